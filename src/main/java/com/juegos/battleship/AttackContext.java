@@ -0,0 +1,125 @@
+package com.juegos.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Vista de sólo lectura del conocimiento de la IA sobre el tablero enemigo.
+ * La mantiene {@link BattleshipAI} y se entrega a la {@link AttackStrategy}
+ * configurada en cada decisión, sin copiar el mapa de disparos.
+ */
+public final class AttackContext {
+
+    // Estados de cada celda
+    public static final byte UNKNOWN = 0;  // Sin atacar
+    public static final byte MISS = 1;     // Agua
+    public static final byte HIT = 2;      // Tocado, barco aún a flote
+    public static final byte SUNK = 3;     // Parte de un barco hundido
+
+    private final int boardSize;
+    private final byte[] cells;            // Mapa de disparos de la IA (compartido)
+    private final SplittableRandom random;  // Generador propio de la IA (no compartido entre hilos)
+    private int[] remainingShips;          // Tamaños de los barcos enemigos a flote
+    private PlacementPriors priors;        // Pesos de búsqueda por celda (puede ser null)
+
+    /**
+     * Constructor del contexto.
+     * @param boardSize Tamaño del tablero
+     * @param cells Mapa de disparos de la IA
+     * @param random Generador de números aleatorios de la IA
+     * @param remainingShips Tamaños de los barcos enemigos a flote
+     */
+    AttackContext(int boardSize, byte[] cells, SplittableRandom random, int[] remainingShips) {
+        this.boardSize = boardSize;
+        this.cells = cells;
+        this.random = random;
+        this.remainingShips = remainingShips;
+    }
+
+    void setRemainingShips(int[] remainingShips) {
+        this.remainingShips = remainingShips;
+    }
+
+    void setPriors(PlacementPriors priors) {
+        this.priors = priors;
+    }
+
+    public boolean hasPriors() {
+        return priors != null;
+    }
+
+    /**
+     * Obtiene el peso de una celda según los priors de colocación humana.
+     * @param cell Índice de celda
+     * @return Peso en punto fijo ({@link PlacementPriors#ONE} = neutro o sin priors)
+     */
+    public int getPriorWeight(int cell) {
+        return priors != null ? priors.getWeight(cell) : PlacementPriors.ONE;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Obtiene el estado de una celda.
+     * @param cell Índice de celda
+     * @return UNKNOWN, MISS, HIT o SUNK
+     */
+    public byte getCell(int cell) {
+        return cells[cell];
+    }
+
+    public boolean isUnknown(int cell) {
+        return cells[cell] == UNKNOWN;
+    }
+
+    /**
+     * Indica si una celda puede contener parte de un barco a flote.
+     * @param cell Índice de celda
+     * @return true si no es agua ni parte de un barco hundido
+     */
+    public boolean isOpen(int cell) {
+        return cells[cell] == UNKNOWN || cells[cell] == HIT;
+    }
+
+    /**
+     * Indica si hay impactos que todavía no pertenecen a un barco hundido.
+     * @return true si hay barcos tocados sin hundir
+     */
+    public boolean hasUnresolvedHits() {
+        for (byte state : cells) {
+            if (state == HIT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getRemainingShipCount() {
+        return remainingShips.length;
+    }
+
+    public int getRemainingShipSize(int index) {
+        return remainingShips[index];
+    }
+
+    /**
+     * Obtiene el tamaño del barco enemigo más pequeño aún a flote.
+     * @return Tamaño del barco o 1 si no queda ninguno
+     */
+    public int getSmallestRemainingShip() {
+        int smallest = Integer.MAX_VALUE;
+        for (int size : remainingShips) {
+            smallest = Math.min(smallest, size);
+        }
+        return smallest == Integer.MAX_VALUE ? 1 : smallest;
+    }
+
+    public SplittableRandom getRandom() {
+        return random;
+    }
+}
@@ -0,0 +1,68 @@
+package com.juegos.battleship;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las estrategias de ataque disponibles y de su coste acumulado
+ * en todo el servidor, para poder elegir niveles de dificultad por su coste.
+ */
+public final class AttackStrategies {
+
+    public static final String CLASSIC = "CLASSIC";          // Lógica HUNT/TARGET/FINISH integrada en la IA
+    public static final String RANDOM = "RANDOM";
+    public static final String PARITY = "PARITY";
+    public static final String DENSITY = "DENSITY";
+    public static final String MONTE_CARLO = "MONTECARLO";
+    public static final String ENDGAME = "ENDGAME";
+
+    private static final Map<String, AttackStrategy> STRATEGIES = new HashMap<>();
+    private static final ConcurrentHashMap<String, StrategyStats> GLOBAL_STATS = new ConcurrentHashMap<>();
+
+    static {
+        register(new RandomStrategy());
+        register(new ParityStrategy());
+        register(new ProbabilityDensityStrategy());
+        register(new MonteCarloStrategy());
+        register(new EndgameStrategy());
+    }
+
+    private AttackStrategies() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    private static void register(AttackStrategy strategy) {
+        STRATEGIES.put(strategy.getName(), strategy);
+    }
+
+    /**
+     * Obtiene una estrategia por nombre.
+     * @param name Nombre de la estrategia (sin distinguir mayúsculas)
+     * @return Estrategia o null para la lógica clásica de la IA
+     */
+    public static AttackStrategy create(String name) {
+        if (name == null) {
+            return null;
+        }
+        return STRATEGIES.get(name.toUpperCase());
+    }
+
+    /**
+     * Obtiene las estadísticas globales de una estrategia.
+     * @param name Nombre de la estrategia
+     * @return Estadísticas acumuladas de todas las IAs que la usan
+     */
+    public static StrategyStats getGlobalStats(String name) {
+        return GLOBAL_STATS.computeIfAbsent(name, StrategyStats::new);
+    }
+
+    /**
+     * Obtiene las estadísticas globales de todas las estrategias usadas.
+     * @return Mapa nombre → estadísticas
+     */
+    public static Map<String, StrategyStats> getAllGlobalStats() {
+        return Collections.unmodifiableMap(GLOBAL_STATS);
+    }
+}
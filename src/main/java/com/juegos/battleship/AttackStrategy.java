@@ -0,0 +1,25 @@
+package com.juegos.battleship;
+
+/**
+ * Estrategia de ataque intercambiable para la IA de Batalla Naval.
+ * Las implementaciones no deben guardar estado de partida: todo lo que necesitan
+ * lo reciben en el contexto, de modo que una misma instancia puede compartirse
+ * entre salas y usarse desde varios hilos a la vez.
+ *
+ * Las estrategias disponibles se obtienen con {@link AttackStrategies#create(String)}.
+ */
+public interface AttackStrategy {
+
+    /**
+     * Nombre de la estrategia, usado para configurar salas y agrupar estadísticas.
+     * @return Nombre de la estrategia
+     */
+    String getName();
+
+    /**
+     * Elige la siguiente celda a atacar.
+     * @param context Conocimiento actual de la IA sobre el tablero enemigo
+     * @return Índice de celda (row * size + col) o -1 si no puede decidir
+     */
+    int selectTarget(AttackContext context);
+}
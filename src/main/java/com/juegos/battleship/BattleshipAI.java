@@ -2,6 +2,12 @@ package com.juegos.battleship;
 
 import com.juegos.common.GameConstants;
 import java.util.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Inteligencia Artificial para el juego Batalla Naval.
@@ -16,7 +22,14 @@ public class BattleshipAI {
     private final Board ownBoard;             // Tablero propio de la IA
     private final List<String> targetQueue;   // Cola de objetivos prioritarios
     private final Set<String> processedHits;  // Impactos ya procesados
-    private final Random random;              // Generador de números aleatorios
+    private final byte[] attackMap;           // Disparos propios por celda (AttackContext.*)
+    private final Set<String> sunkShips;      // Nombres de barcos enemigos hundidos
+    private final SplittableRandom random;    // Generador de números aleatorios (propio de esta IA)
+    private final AttackContext attackContext; // Vista del mapa de disparos para las estrategias
+    
+    // Estrategia de ataque y su coste
+    private AttackStrategy attackStrategy;    // null = lógica clásica HUNT/TARGET/FINISH
+    private StrategyStats strategyStats;      // Coste de las decisiones de esta IA
     
     // Estados de la IA
     private AIMode currentMode;
@@ -25,6 +38,24 @@ public class BattleshipAI {
     private String huntDirection;             // Dirección de caza actual
     private int consecutiveHits;              // Impactos consecutivos en la misma dirección
     
+    // Libro de aperturas
+    private OpeningBook openingBook;          // Primeros disparos precalculados (puede ser null)
+    private int bookPly;                      // Siguiente jugada del libro
+    private int bookSymmetry;                 // Giro o reflejo con que se juega el libro
+    private boolean outOfBook;                // true si la partida ya se salió del libro
+    
+    // Priors de colocación humana
+    private PlacementPriors priors;           // Pesos de búsqueda por celda (puede ser null)
+    
+    // Cálculo especulativo durante el turno del oponente
+    private ExecutorService speculationExecutor;            // null = desactivado
+    private FutureTask<BattleshipAI> readySpeculation;      // Rama para el próximo turno
+    private String speculativeAttack;                       // Respuesta calculada (sólo en ramas)
+    private long speculativeCpu;                            // Coste de la respuesta (sólo en ramas)
+    private long speculativeAllocated;
+    private int speculationHits;
+    private int speculationMisses;
+    
     // Estrategias de disparo
     private static final String[] DIRECTIONS = {"NORTH", "SOUTH", "EAST", "WEST"};
     private static final int[][] DIRECTION_VECTORS = {{-1,0}, {1,0}, {0,1}, {0,-1}};
@@ -44,17 +75,98 @@ public class BattleshipAI {
      * @param enemyBoard Tablero enemigo para atacar
      */
     public BattleshipAI(Board ownBoard, Board enemyBoard) {
+        this(ownBoard, enemyBoard, null);
+    }
+    
+    /**
+     * Constructor de la IA con una disposición de flota ya preparada.
+     * @param ownBoard Tablero propio de la IA
+     * @param enemyBoard Tablero enemigo para atacar
+     * @param layout Disposición de la flota o null para colocarla ahora
+     */
+    public BattleshipAI(Board ownBoard, Board enemyBoard, FleetLayout layout) {
+        this(ownBoard, enemyBoard, layout, new SplittableRandom());
+    }
+    
+    /**
+     * Constructor de la IA con un generador de números aleatorios inyectado,
+     * normalmente dividido del generador de la partida para que sea reproducible.
+     * @param ownBoard Tablero propio de la IA
+     * @param enemyBoard Tablero enemigo para atacar
+     * @param layout Disposición de la flota o null para colocarla ahora
+     * @param random Generador de números aleatorios para esta IA
+     */
+    public BattleshipAI(Board ownBoard, Board enemyBoard, FleetLayout layout, SplittableRandom random) {
         this.ownBoard = ownBoard;
         this.enemyBoard = enemyBoard;
         this.targetQueue = new ArrayList<>();
         this.processedHits = new HashSet<>();
-        this.random = new Random();
+        this.attackMap = new byte[GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE];
+        this.sunkShips = new HashSet<>();
+        this.random = random;
+        this.attackContext = new AttackContext(GameConstants.BATTLESHIP_BOARD_SIZE, attackMap, random,
+                                               GameConstants.SHIP_SIZES.clone());
+        this.strategyStats = new StrategyStats(AttackStrategies.CLASSIC);
         this.currentMode = AIMode.HUNT;
         this.huntingMode = false;
         this.consecutiveHits = 0;
+        this.openingBook = OpeningBook.getShared();
+        this.bookPly = 0;
+        this.outOfBook = false;
+        setPlacementPriors(PlacementPriors.getShared());
         
-        // Configurar automáticamente los barcos de la IA
-        setupAIShips();
+        // Usar la disposición preparada o configurar automáticamente los barcos de la IA
+        if (layout == null || !layout.applyTo(ownBoard)) {
+            setupAIShips();
+        }
+        this.bookSymmetry = random.nextInt(OpeningBook.SYMMETRIES);
+    }
+    
+    /**
+     * Crea una rama de la IA para el cálculo especulativo.
+     * La rama copia el estado de ataque pero no coloca barcos ni especula. Su
+     * generador sale del de la IA, así que una sala con semilla sigue siendo
+     * reproducible.
+     * @param source IA original
+     */
+    private BattleshipAI(BattleshipAI source) {
+        this.ownBoard = source.ownBoard;
+        this.enemyBoard = source.enemyBoard;
+        this.targetQueue = new ArrayList<>();
+        this.processedHits = new HashSet<>();
+        this.attackMap = new byte[source.attackMap.length];
+        this.sunkShips = new HashSet<>();
+        this.random = source.random.split();
+        this.attackContext = new AttackContext(GameConstants.BATTLESHIP_BOARD_SIZE, attackMap, random,
+                                               GameConstants.SHIP_SIZES.clone());
+        this.openingBook = source.openingBook;
+        setPlacementPriors(source.priors);
+        this.attackStrategy = source.attackStrategy;
+        this.strategyStats = source.strategyStats;
+        copyStateFrom(source);
+    }
+    
+    /**
+     * Copia el estado de ataque de otra instancia de la IA.
+     * @param other Instancia de la que copiar el estado
+     */
+    private void copyStateFrom(BattleshipAI other) {
+        targetQueue.clear();
+        targetQueue.addAll(other.targetQueue);
+        processedHits.clear();
+        processedHits.addAll(other.processedHits);
+        System.arraycopy(other.attackMap, 0, attackMap, 0, attackMap.length);
+        sunkShips.clear();
+        sunkShips.addAll(other.sunkShips);
+        updateRemainingShips();
+        currentMode = other.currentMode;
+        lastHit = other.lastHit;
+        huntingMode = other.huntingMode;
+        huntDirection = other.huntDirection;
+        consecutiveHits = other.consecutiveHits;
+        bookPly = other.bookPly;
+        bookSymmetry = other.bookSymmetry;
+        outOfBook = other.outOfBook;
     }
     
     /**
@@ -124,20 +236,75 @@ public class BattleshipAI {
         }
         
         // Barajar para agregar aleatoriedad
-        Collections.shuffle(positions, random);
+        shuffle(positions);
         
         return positions;
     }
     
     /**
      * Calcula el mejor movimiento de ataque para la IA.
+     * Si hay una respuesta especulativa lista para el estado actual, la sirve directamente.
      * @return String con las coordenadas del ataque en formato "row,col"
      */
     public String getBestAttack() {
+        String speculative = takeSpeculativeAttack();
+        if (speculative != null) {
+            return speculative;
+        }
+        return computeBestAttack();
+    }
+    
+    /**
+     * Calcula el mejor ataque a partir del estado actual y registra su coste
+     * en las estadísticas de la estrategia.
+     * @return Coordenadas del ataque
+     */
+    private String computeBestAttack() {
+        long cpuStart = StrategyStats.currentThreadCpuNanos();
+        long allocStart = StrategyStats.currentThreadAllocatedBytes();
+        
+        String attack = decideAttack();
+        
+        long cpu = StrategyStats.currentThreadCpuNanos() - cpuStart;
+        long allocated = allocStart < 0 ? -1 : StrategyStats.currentThreadAllocatedBytes() - allocStart;
+        recordDecision(cpu, allocated);
+        
+        return attack;
+    }
+    
+    /**
+     * Anota el coste de una decisión en las estadísticas de la estrategia.
+     * @param cpu Tiempo de CPU en nanosegundos
+     * @param allocated Bytes reservados o -1 si no se pueden medir
+     */
+    private void recordDecision(long cpu, long allocated) {
+        strategyStats.record(cpu, allocated);
+        AttackStrategies.getGlobalStats(strategyStats.getStrategyName()).record(cpu, allocated);
+    }
+    
+    /**
+     * Decide el ataque: estrategia configurada o, sin ella, libro de aperturas
+     * y lógica clásica.
+     * @return Coordenadas del ataque
+     */
+    private String decideAttack() {
         updateAIMode();
         
         String attack = null;
         
+        if (attackStrategy != null) {
+            int cell = attackStrategy.selectTarget(attackContext);
+            if (cell >= 0 && cell < attackMap.length && attackMap[cell] == AttackContext.UNKNOWN) {
+                int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+                return (cell / size) + "," + (cell % size);
+            }
+        } else if (currentMode == AIMode.HUNT) {
+            attack = getOpeningBookAttack();
+            if (attack != null) {
+                return attack;
+            }
+        }
+        
         switch (currentMode) {
             case HUNT:
                 attack = executeHuntStrategy();
@@ -157,6 +324,47 @@ public class BattleshipAI {
         return attack;
     }
     
+    /**
+     * Obtiene el siguiente disparo del libro de aperturas, si la partida sigue en él.
+     * La línea del libro se juega entera con la simetría sorteada al crear la IA,
+     * así que cada partida abre distinto y una sala con semilla se repite.
+     * @return Coordenadas del ataque o null si no hay jugada de libro
+     */
+    private String getOpeningBookAttack() {
+        if (openingBook == null || outOfBook || bookPly >= openingBook.getPlies()) {
+            return null;
+        }
+        
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        int cell = openingBook.getMove(bookPly, bookSymmetry);
+        if (attackMap[cell] != AttackContext.UNKNOWN) {
+            outOfBook = true;
+            return null;
+        }
+        return (cell / size) + "," + (cell % size);
+    }
+    
+    /**
+     * Avanza el libro de aperturas con el resultado de un ataque.
+     * El libro sólo es válido mientras todos sus disparos hayan sido agua.
+     * @param row Fila del ataque
+     * @param col Columna del ataque
+     * @param result Resultado del ataque
+     */
+    private void advanceOpeningBook(int row, int col, String result) {
+        if (openingBook == null || outOfBook) {
+            return;
+        }
+        
+        if (bookPly < openingBook.getPlies() &&
+            openingBook.getMove(bookPly, bookSymmetry) == row * GameConstants.BATTLESHIP_BOARD_SIZE + col &&
+            "MISS".equals(result)) {
+            bookPly++;
+        } else {
+            outOfBook = true;
+        }
+    }
+    
     /**
      * Actualiza el modo de operación de la IA basado en el estado actual.
      */
@@ -177,7 +385,7 @@ public class BattleshipAI {
      */
     private String executeHuntStrategy() {
         // Usar patrón de tablero de ajedrez para maximizar probabilidad de impacto
-        List<String> validTargets = enemyBoard.getValidTargets();
+        List<String> validTargets = getValidTargets();
         List<String> checkerboardTargets = new ArrayList<>();
         
         for (String target : validTargets) {
@@ -192,12 +400,38 @@ public class BattleshipAI {
         }
         
         if (!checkerboardTargets.isEmpty()) {
-            return checkerboardTargets.get(random.nextInt(checkerboardTargets.size()));
+            return priors != null ? pickByPriors(checkerboardTargets)
+                                  : checkerboardTargets.get(random.nextInt(checkerboardTargets.size()));
         }
         
         return getRandomValidAttack();
     }
     
+    /**
+     * Elige un objetivo al azar con probabilidad proporcional a su peso en los priors.
+     * @param targets Objetivos candidatos ("fila,columna")
+     * @return Objetivo elegido
+     */
+    private String pickByPriors(List<String> targets) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        int[] weights = new int[targets.size()];
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            String[] coords = targets.get(i).split(",");
+            weights[i] = priors.getWeight(Integer.parseInt(coords[0]) * size + Integer.parseInt(coords[1]));
+            total += weights[i];
+        }
+        
+        long pick = random.nextLong(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return targets.get(i);
+            }
+        }
+        return targets.get(targets.size() - 1);
+    }
+    
     /**
      * Ejecuta la estrategia de objetivo (ataque dirigido después de un impacto).
      * @return Coordenadas del ataque
@@ -250,6 +484,10 @@ public class BattleshipAI {
      * @param result Resultado del ataque ("HIT", "MISS", "SUNK:NombreBarco")
      */
     public void processAttackResult(int row, int col, String result) {
+        cancelSpeculations();
+        recordAttack(row, col, result);
+        advanceOpeningBook(row, col, result);
+        
         if (result.startsWith("HIT")) {
             handleHit(row, col);
         } else if (result.startsWith("SUNK")) {
@@ -259,6 +497,184 @@ public class BattleshipAI {
         }
     }
     
+    /**
+     * Registra un ataque propio en el mapa de disparos de la IA.
+     * @param row Fila del ataque
+     * @param col Columna del ataque
+     * @param result Resultado del ataque
+     */
+    private void recordAttack(int row, int col, String result) {
+        if (row < 0 || row >= GameConstants.BATTLESHIP_BOARD_SIZE ||
+            col < 0 || col >= GameConstants.BATTLESHIP_BOARD_SIZE) {
+            return;
+        }
+        
+        int cell = row * GameConstants.BATTLESHIP_BOARD_SIZE + col;
+        if ("MISS".equals(result)) {
+            attackMap[cell] = AttackContext.MISS;
+        } else if (result.startsWith("HIT") || result.startsWith("SUNK")) {
+            attackMap[cell] = AttackContext.HIT;
+            if (result.startsWith("SUNK:")) {
+                String shipName = result.substring(5);
+                sunkShips.add(shipName);
+                markSunkShip(row, col, shipSize(shipName));
+                updateRemainingShips();
+            }
+        }
+    }
+    
+    /**
+     * Marca como hundidas las celdas del barco que acaba de hundirse.
+     * Busca una línea de impactos del tamaño del barco que pase por el último disparo.
+     * @param row Fila del último disparo
+     * @param col Columna del último disparo
+     * @param size Tamaño del barco hundido
+     */
+    private void markSunkShip(int row, int col, int size) {
+        int boardSize = GameConstants.BATTLESHIP_BOARD_SIZE;
+        for (int orientation = 0; orientation < 2; orientation++) {
+            boolean horizontal = orientation == 0;
+            for (int offset = 0; offset < size; offset++) {
+                int startRow = horizontal ? row : row - offset;
+                int startCol = horizontal ? col - offset : col;
+                if (startRow < 0 || startCol < 0 ||
+                    (horizontal ? startCol : startRow) + size > boardSize) {
+                    continue;
+                }
+                
+                boolean allHits = true;
+                for (int i = 0; i < size && allHits; i++) {
+                    int cell = horizontal ? startRow * boardSize + startCol + i
+                                          : (startRow + i) * boardSize + startCol;
+                    allHits = attackMap[cell] == AttackContext.HIT;
+                }
+                
+                if (allHits) {
+                    for (int i = 0; i < size; i++) {
+                        int cell = horizontal ? startRow * boardSize + startCol + i
+                                              : (startRow + i) * boardSize + startCol;
+                        attackMap[cell] = AttackContext.SUNK;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Obtiene el tamaño de un barco de la flota estándar por su nombre.
+     * @param shipName Nombre del barco
+     * @return Tamaño del barco o 1 si no se reconoce
+     */
+    private static int shipSize(String shipName) {
+        for (int i = 0; i < GameConstants.SHIP_NAMES.length; i++) {
+            if (GameConstants.SHIP_NAMES[i].equals(shipName)) {
+                return GameConstants.SHIP_SIZES[i];
+            }
+        }
+        return 1;
+    }
+    
+    /**
+     * Actualiza en el contexto de ataque los tamaños de los barcos enemigos a flote.
+     */
+    private void updateRemainingShips() {
+        int count = 0;
+        int[] remaining = new int[GameConstants.SHIP_SIZES.length];
+        for (int i = 0; i < GameConstants.SHIP_NAMES.length; i++) {
+            if (!sunkShips.contains(GameConstants.SHIP_NAMES[i])) {
+                remaining[count++] = GameConstants.SHIP_SIZES[i];
+            }
+        }
+        attackContext.setRemainingShips(Arrays.copyOf(remaining, count));
+    }
+    
+    /**
+     * Lanza el cálculo especulativo del próximo ataque de la IA. Se llama al
+     * empezar el turno del oponente: los disparos que éste haga sólo tocan el
+     * tablero propio, que no influye en la elección del ataque, así que la rama
+     * sigue siendo válida cuando vuelve el turno de la IA. No hace nada si no hay
+     * ejecutor configurado o si ya hay una rama en curso.
+     */
+    public void speculate() {
+        if (speculationExecutor == null || readySpeculation != null) {
+            return;
+        }
+        
+        final BattleshipAI branch = new BattleshipAI(this);
+        FutureTask<BattleshipAI> task = new FutureTask<>(() -> {
+            long cpuStart = StrategyStats.currentThreadCpuNanos();
+            long allocStart = StrategyStats.currentThreadAllocatedBytes();
+            branch.speculativeAttack = branch.decideAttack();
+            branch.speculativeCpu = StrategyStats.currentThreadCpuNanos() - cpuStart;
+            branch.speculativeAllocated = allocStart < 0 ? -1
+                                        : StrategyStats.currentThreadAllocatedBytes() - allocStart;
+            return branch;
+        });
+        try {
+            speculationExecutor.execute(task);
+            readySpeculation = task;
+        } catch (RejectedExecutionException e) {
+            // Sin capacidad ociosa: el ataque se calculará en su turno
+        }
+    }
+    
+    /**
+     * Notifica a la IA un disparo del oponente sobre su propio tablero.
+     * Este disparo nunca invalida la rama en curso; si no hay ninguna (por
+     * ejemplo, tras recuperar la sala) se lanza ahora.
+     * @param row Fila del disparo recibido
+     * @param col Columna del disparo recibido
+     * @param result Resultado del disparo recibido
+     */
+    public void processOpponentShot(int row, int col, String result) {
+        speculate();
+    }
+    
+    /**
+     * Toma la respuesta especulativa preparada para el estado actual.
+     * Si el ejecutor aún no había empezado la rama, se calcula aquí mismo; si ya
+     * estaba en marcha, se espera a que termine. Así nunca se calcula dos veces el
+     * mismo ataque y sólo se anota en las estadísticas la rama que se usa.
+     * @return Coordenadas del ataque o null si no hay respuesta utilizable
+     */
+    private String takeSpeculativeAttack() {
+        FutureTask<BattleshipAI> task = readySpeculation;
+        readySpeculation = null;
+        if (task == null) {
+            return null;
+        }
+        
+        try {
+            task.run();
+            BattleshipAI branch = task.get();
+            if (branch.speculativeAttack == null || !isValidTarget(branch.speculativeAttack)) {
+                speculationMisses++;
+                return null;
+            }
+            copyStateFrom(branch);
+            recordDecision(branch.speculativeCpu, branch.speculativeAllocated);
+            speculationHits++;
+            return branch.speculativeAttack;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // La rama falló: se calcula el ataque de forma normal
+        }
+        speculationMisses++;
+        return null;
+    }
+    
+    /**
+     * Cancela la rama especulativa, que ha quedado obsoleta.
+     */
+    private void cancelSpeculations() {
+        if (readySpeculation != null) {
+            readySpeculation.cancel(true);
+            readySpeculation = null;
+        }
+    }
+    
     /**
      * Maneja el resultado de un impacto.
      * @param row Fila del impacto
@@ -344,7 +760,17 @@ public class BattleshipAI {
         }
         
         // Barajar para agregar aleatoriedad
-        Collections.shuffle(targetQueue, random);
+        shuffle(targetQueue);
+    }
+    
+    /**
+     * Baraja una lista con el generador de la IA (Fisher-Yates).
+     * @param list Lista a barajar
+     */
+    private <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, random.nextInt(i + 1));
+        }
     }
     
     /**
@@ -428,8 +854,7 @@ public class BattleshipAI {
             }
             
             // Verificar que no haya sido atacada antes
-            List<String> validTargets = enemyBoard.getValidTargets();
-            return validTargets.contains(position);
+            return attackMap[row * GameConstants.BATTLESHIP_BOARD_SIZE + col] == AttackContext.UNKNOWN;
             
         } catch (Exception e) {
             return false;
@@ -441,13 +866,28 @@ public class BattleshipAI {
      * @return Posición aleatoria válida
      */
     private String getRandomValidAttack() {
-        List<String> validTargets = enemyBoard.getValidTargets();
+        List<String> validTargets = getValidTargets();
         if (!validTargets.isEmpty()) {
             return validTargets.get(random.nextInt(validTargets.size()));
         }
         return "0,0"; // Fallback (no debería ocurrir)
     }
     
+    /**
+     * Obtiene las posiciones que la IA todavía no ha atacado.
+     * @return Lista de posiciones en formato "row,col"
+     */
+    private List<String> getValidTargets() {
+        List<String> targets = new ArrayList<>();
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        for (int cell = 0; cell < attackMap.length; cell++) {
+            if (attackMap[cell] == AttackContext.UNKNOWN) {
+                targets.add((cell / size) + "," + (cell % size));
+            }
+        }
+        return targets;
+    }
+    
     /**
      * Obtiene estadísticas de rendimiento de la IA.
      * @return Mapa con estadísticas
@@ -460,6 +900,10 @@ public class BattleshipAI {
         stats.put("processedHits", processedHits.size());
         stats.put("consecutiveHits", consecutiveHits);
         stats.put("currentDirection", huntDirection);
+        stats.put("openingBookPly", outOfBook ? -1 : bookPly);
+        stats.put("speculationHits", speculationHits);
+        stats.put("speculationMisses", speculationMisses);
+        stats.putAll(strategyStats.toMap());
         
         return stats;
     }
@@ -468,17 +912,67 @@ public class BattleshipAI {
      * Reinicia el estado de la IA para una nueva partida.
      */
     public void reset() {
+        cancelSpeculations();
         targetQueue.clear();
         processedHits.clear();
+        Arrays.fill(attackMap, AttackContext.UNKNOWN);
+        sunkShips.clear();
+        updateRemainingShips();
         currentMode = AIMode.HUNT;
         lastHit = null;
         huntingMode = false;
         huntDirection = null;
         consecutiveHits = 0;
+        bookPly = 0;
+        outOfBook = false;
         
         // Reconfigurar barcos
         ownBoard.reset();
         setupAIShips();
+        bookSymmetry = random.nextInt(OpeningBook.SYMMETRIES);
+    }
+    
+    /**
+     * Configura el libro de aperturas que usará la IA.
+     * @param openingBook Libro de aperturas o null para desactivarlo
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        cancelSpeculations();
+        this.openingBook = openingBook;
+    }
+    
+    /**
+     * Configura la estrategia de ataque de la IA.
+     * Las estadísticas de coste se reinician para la nueva estrategia.
+     * @param strategy Estrategia de ataque o null para la lógica clásica HUNT/TARGET/FINISH
+     */
+    public void setAttackStrategy(AttackStrategy strategy) {
+        cancelSpeculations();
+        this.attackStrategy = strategy;
+        this.strategyStats = new StrategyStats(strategy != null ? strategy.getName() : AttackStrategies.CLASSIC);
+    }
+    
+    /**
+     * Cambia los priors de colocación humana con los que la IA pondera su búsqueda.
+     * @param priors Priors a usar o null para buscar sin ellos
+     */
+    public void setPlacementPriors(PlacementPriors priors) {
+        this.priors = priors;
+        attackContext.setPriors(priors);
+    }
+    
+    public PlacementPriors getPlacementPriors() {
+        return priors;
+    }
+    
+    /**
+     * Activa el cálculo especulativo durante el turno del oponente.
+     * Conviene usar un ejecutor de baja prioridad para aprovechar sólo capacidad ociosa.
+     * @param executor Ejecutor para las ramas especulativas o null para desactivarlo
+     */
+    public void setSpeculationExecutor(ExecutorService executor) {
+        cancelSpeculations();
+        this.speculationExecutor = executor;
     }
     
     // Getters
@@ -502,4 +996,12 @@ public class BattleshipAI {
     public int getConsecutiveHits() {
         return consecutiveHits;
     }
+    
+    public AttackStrategy getAttackStrategy() {
+        return attackStrategy;
+    }
+    
+    public StrategyStats getStrategyStats() {
+        return strategyStats;
+    }
 }
@@ -3,6 +3,9 @@ package com.juegos.battleship;
 import com.juegos.common.GameConstants;
 import com.juegos.common.Player;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Implementa la lógica completa del juego Batalla Naval.
  * Maneja dos tableros (jugador y oponente) y coordina las fases del juego.
@@ -22,16 +25,42 @@ public class BattleshipGame {
     private String winner;
     private int totalTurns;
     
+    private int lastShotRow;        // Fila del último disparo válido
+    private int lastShotCol;        // Columna del último disparo válido
+    private String lastShotResult;  // Resultado del último disparo válido
+    private byte[] shotLog;         // Disparos válidos en orden: celda | (jugador 2 ? 0x80 : 0)
+    private int shotCount;
+    
+    private boolean salvo;          // Regla Salvo: un disparo por barco propio a flote en cada turno
+    private int[] lastSalvoCells;   // Celdas de la última andanada válida
+    private String[] lastSalvoResults; // Resultado de cada disparo de la última andanada
+    
+    private final long seed;                // Semilla de la partida
+    private final SplittableRandom random;  // Generador del que se dividen los de tableros e IA
+    
     /**
-     * Constructor del juego Batalla Naval.
+     * Constructor del juego Batalla Naval con semilla aleatoria.
      */
     public BattleshipGame() {
-        this.playerBoard = new Board();
-        this.opponentBoard = new Board();
+        this(ThreadLocalRandom.current().nextLong());
+    }
+    
+    /**
+     * Constructor del juego Batalla Naval con semilla fija.
+     * Con la misma semilla y los mismos movimientos la partida es reproducible.
+     * @param seed Semilla de la partida
+     */
+    public BattleshipGame(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.playerBoard = new Board(random.split());
+        this.opponentBoard = new Board(random.split());
         this.gamePhase = "SETUP";
         this.gameEnded = false;
         this.winner = null;
         this.totalTurns = 0;
+        this.shotLog = new byte[2 * GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE];
+        this.shotCount = 0;
     }
     
     /**
@@ -66,16 +95,16 @@ public class BattleshipGame {
             return false;
         }
         
-        // Verificar que es el turno del jugador correcto
-        if (!currentPlayer.getId().equals(playerId)) {
-            return false;
-        }
-        
         try {
+            // Cada jugador coloca su flota cuando quiere; los disparos van por turnos
             if ("SETUP".equals(gamePhase)) {
                 return processSetupMove(playerId, moveData);
-            } else if ("BATTLE".equals(gamePhase)) {
-                return processBattleMove(playerId, moveData);
+            }
+            if (!currentPlayer.getId().equals(playerId)) {
+                return false;
+            }
+            if ("BATTLE".equals(gamePhase)) {
+                return salvo ? processSalvoMove(playerId, moveData) : processBattleMove(playerId, moveData);
             }
             
         } catch (Exception e) {
@@ -89,10 +118,16 @@ public class BattleshipGame {
     /**
      * Procesa un movimiento durante la fase de configuración.
      * @param playerId ID del jugador
-     * @param moveData Datos del movimiento (formato: "PLACE:shipIndex:row:col:horizontal")
+     * @param moveData Datos del movimiento (formato: "PLACE:shipIndex:row:col:horizontal"
+     *                 o "PLACE_FLEET:fila,columna,H|V;..." con toda la flota)
      * @return true si es válido
      */
     private boolean processSetupMove(String playerId, String moveData) {
+        if (moveData.startsWith("PLACE_FLEET:")) {
+            FleetLayout layout = FleetLayout.parse(moveData.substring("PLACE_FLEET:".length()));
+            return layout != null && placeFleet(playerId, layout);
+        }
+        
         String[] parts = moveData.split(":");
         if (parts.length < 5 || !"PLACE".equals(parts[0])) {
             return false;
@@ -151,6 +186,11 @@ public class BattleshipGame {
             
             if (!"INVALID".equals(result)) {
                 totalTurns++;
+                lastShotRow = row;
+                lastShotCol = col;
+                lastShotResult = result;
+                shotLog[shotCount++] = (byte) ((row * GameConstants.BATTLESHIP_BOARD_SIZE + col) |
+                                               (targetBoard == playerBoard ? 0x80 : 0));
                 
                 // Registrar disparo en el tablero del jugador
                 Board playerBoardRef = getPlayerBoard(playerId);
@@ -178,6 +218,72 @@ public class BattleshipGame {
         return false;
     }
     
+    /**
+     * Procesa una andanada con la regla Salvo: tantos disparos como barcos propios
+     * a flote (o como celdas sin disparar, si quedan menos). Todos se resuelven a la
+     * vez con {@link Board#receiveSalvo(int[])} y el turno pasa siempre al rival.
+     * @param playerId ID del jugador
+     * @param moveData Datos del movimiento (formato: "SALVO:fila,columna;fila,columna;...")
+     * @return true si la andanada es válida
+     */
+    private boolean processSalvoMove(String playerId, String moveData) {
+        if (!moveData.startsWith("SALVO:")) {
+            return false;
+        }
+        Board targetBoard = getOpponentBoard(playerId);
+        Board ownBoard = getPlayerBoard(playerId);
+        if (targetBoard == null || ownBoard == null) {
+            return false;
+        }
+        
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        String[] shots = moveData.substring("SALVO:".length()).split(";");
+        int expected = Math.min(ownBoard.getShipsRemaining(), targetBoard.getUnshotCount());
+        if (shots.length != expected) {
+            return false;
+        }
+        int[] cells = new int[shots.length];
+        try {
+            for (int i = 0; i < shots.length; i++) {
+                String[] coords = shots[i].split(",");
+                if (coords.length != 2) {
+                    return false;
+                }
+                int row = Integer.parseInt(coords[0].trim());
+                int col = Integer.parseInt(coords[1].trim());
+                if (row < 0 || row >= size || col < 0 || col >= size) {
+                    return false;
+                }
+                cells[i] = row * size + col;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        
+        String[] results = targetBoard.receiveSalvo(cells);
+        if (results == null) {
+            return false;
+        }
+        
+        totalTurns++;
+        for (int i = 0; i < cells.length; i++) {
+            shotLog[shotCount++] = (byte) (cells[i] | (targetBoard == playerBoard ? 0x80 : 0));
+            ownBoard.recordShot(cells[i] / size, cells[i] % size, results[i]);
+        }
+        lastShotRow = cells[cells.length - 1] / size;
+        lastShotCol = cells[cells.length - 1] % size;
+        lastShotResult = results[results.length - 1];
+        lastSalvoCells = cells;
+        lastSalvoResults = results;
+        
+        if (targetBoard.allShipsSunk()) {
+            endGame(playerId);
+        } else {
+            switchPlayer();
+        }
+        return true;
+    }
+    
     /**
      * Obtiene el tablero del jugador especificado.
      * @param playerId ID del jugador
@@ -232,6 +338,23 @@ public class BattleshipGame {
         }
     }
     
+    /**
+     * Coloca de una vez la flota completa de un jugador durante la configuración.
+     * @param playerId ID del jugador
+     * @param layout Disposición de la flota
+     * @return true si se colocó (si no, el tablero no cambia)
+     */
+    public boolean placeFleet(String playerId, FleetLayout layout) {
+        Board board = getPlayerBoard(playerId);
+        if (!"SETUP".equals(gamePhase) || board == null || !board.placeFleet(layout)) {
+            return false;
+        }
+        if (playerBoard.isSetupComplete() && opponentBoard.isSetupComplete()) {
+            startBattlePhase();
+        }
+        return true;
+    }
+    
     /**
      * Configura automáticamente los barcos de un jugador.
      * @param playerId ID del jugador
@@ -282,6 +405,10 @@ public class BattleshipGame {
         gameEnded = false;
         winner = null;
         totalTurns = 0;
+        lastShotResult = null;
+        lastSalvoCells = null;
+        lastSalvoResults = null;
+        shotCount = 0;
         currentPlayer = player1;
     }
     
@@ -295,8 +422,7 @@ public class BattleshipGame {
     public String getLastShotInfo(int row, int col, String playerId) {
         Board targetBoard = getOpponentBoard(playerId);
         if (targetBoard != null) {
-            char[][] enemyGrid = targetBoard.getOwnGrid();
-            char cell = enemyGrid[row][col];
+            char cell = targetBoard.getCell(row, col);
             
             if (cell == GameConstants.BATTLESHIP_HIT) {
                 return "¡Tocado!";
@@ -345,6 +471,74 @@ public class BattleshipGame {
         return totalTurns;
     }
     
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Obtiene un generador independiente derivado del de la partida (por ejemplo, para la IA).
+     * Debe llamarse siempre en el mismo orden para que la partida sea reproducible.
+     * @return Nuevo generador dividido
+     */
+    public SplittableRandom splitRandom() {
+        return random.split();
+    }
+    
+    /**
+     * Activa la regla Salvo. Debe configurarse antes de la fase de batalla.
+     * @param salvo true para jugar con andanadas
+     */
+    public void setSalvo(boolean salvo) {
+        this.salvo = salvo;
+    }
+    
+    public boolean isSalvo() {
+        return salvo;
+    }
+    
+    public int[] getLastSalvoCells() {
+        return lastSalvoCells;
+    }
+    
+    public String[] getLastSalvoResults() {
+        return lastSalvoResults;
+    }
+    
+    public int getLastShotRow() {
+        return lastShotRow;
+    }
+    
+    public int getLastShotCol() {
+        return lastShotCol;
+    }
+    
+    /**
+     * Obtiene el resultado del último disparo válido.
+     * @return "HIT", "MISS", "SUNK:NombreBarco" o null si aún no hubo disparos
+     */
+    public String getLastShotResult() {
+        return lastShotResult;
+    }
+    
+    /**
+     * Obtiene el número de disparos válidos de la partida.
+     * @return Número de disparos
+     */
+    public int getShotCount() {
+        return shotCount;
+    }
+    
+    /**
+     * Obtiene un disparo del registro de la partida, codificado en un byte:
+     * los 7 bits bajos son la celda (fila * tamaño + columna) y el bit alto
+     * indica que disparó el segundo jugador.
+     * @param index Número de disparo (0 = primero)
+     * @return Disparo codificado
+     */
+    public byte getShot(int index) {
+        return shotLog[index];
+    }
+    
     public boolean isSetupPhase() {
         return "SETUP".equals(gamePhase);
     }
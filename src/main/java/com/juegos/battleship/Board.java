@@ -3,7 +3,9 @@ package com.juegos.battleship;
 import com.juegos.common.GameConstants;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Representa el tablero de Batalla Naval.
@@ -20,11 +22,27 @@ public class Board {
     private List<String> hits;       // Registro de impactos recibidos
     private List<String> misses;     // Registro de fallos recibidos
     private boolean setupComplete;   // Si la configuración de barcos está completa
+    private SplittableRandom random; // Generador para la colocación automática
+    
+    // Bitboards: la celda c es el bit (c % 64) de la palabra c / 64
+    private static final int WORDS = (GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE + 63) / 64;
+    private long[] shipBits;         // Celdas ocupadas por barcos
+    private long[] shotBits;         // Celdas que ya recibieron un disparo
+    private long[][] shipMasks;      // Celdas de cada barco, por índice de la flota
     
     /**
      * Constructor del tablero.
      */
     public Board() {
+        this(new SplittableRandom());
+    }
+    
+    /**
+     * Constructor del tablero con un generador de números aleatorios propio.
+     * @param random Generador para la colocación automática (normalmente dividido del de la partida)
+     */
+    public Board(SplittableRandom random) {
+        this.random = random;
         initializeGrid();
         this.ships = Ship.createStandardFleet();
         this.shots = new ArrayList<>();
@@ -40,6 +58,9 @@ public class Board {
         int size = GameConstants.BATTLESHIP_BOARD_SIZE;
         grid = new char[size][size];
         enemyView = new char[size][size];
+        shipBits = new long[WORDS];
+        shotBits = new long[WORDS];
+        shipMasks = new long[GameConstants.SHIP_SIZES.length][WORDS];
         
         // Llenar con agua
         for (int i = 0; i < size; i++) {
@@ -88,7 +109,7 @@ public class Board {
         
         // Colocar el barco
         ship.place(startRow, startCol, isHorizontal);
-        updateGridWithShip(ship);
+        updateGridWithShip(shipIndex);
         
         // Verificar si se completó la configuración
         checkSetupComplete();
@@ -97,16 +118,62 @@ public class Board {
     }
     
     /**
-     * Actualiza el tablero con la posición de un barco.
-     * @param ship Barco a colocar en el grid
+     * Coloca la flota completa de una vez, sustituyendo la que hubiera.
+     * La disposición se valida entera antes de tocar el tablero: o se colocan
+     * todos los barcos o el tablero queda como estaba.
+     * @param layout Disposición de la flota
+     * @return true si se colocó la flota
      */
-    private void updateGridWithShip(Ship ship) {
-        String[] positions = ship.getPositions();
+    public boolean placeFleet(FleetLayout layout) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        if (layout.getShipCount() != ships.length) {
+            return false;
+        }
+        
+        boolean[] occupied = new boolean[size * size];
+        for (int i = 0; i < ships.length; i++) {
+            int row = layout.getRow(i);
+            int col = layout.getCol(i);
+            boolean horizontal = layout.isHorizontal(i);
+            if (!ships[i].fitsInBoard(row, col, horizontal, size)) {
+                return false;
+            }
+            for (int j = 0; j < ships[i].getSize(); j++) {
+                int cell = horizontal ? row * size + col + j : (row + j) * size + col;
+                if (occupied[cell]) {
+                    return false;
+                }
+                occupied[cell] = true;
+            }
+        }
+        
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i].isPlaced()) {
+                removeShip(i);
+            }
+        }
+        for (int i = 0; i < ships.length; i++) {
+            ships[i].place(layout.getRow(i), layout.getCol(i), layout.isHorizontal(i));
+            updateGridWithShip(i);
+        }
+        checkSetupComplete();
+        return true;
+    }
+    
+    /**
+     * Actualiza el tablero y los bitboards con la posición de un barco.
+     * @param shipIndex Índice del barco a colocar en el grid
+     */
+    private void updateGridWithShip(int shipIndex) {
+        String[] positions = ships[shipIndex].getPositions();
         for (String pos : positions) {
             String[] coords = pos.split(",");
             int row = Integer.parseInt(coords[0]);
             int col = Integer.parseInt(coords[1]);
             grid[row][col] = GameConstants.BATTLESHIP_SHIP;
+            int cell = row * GameConstants.BATTLESHIP_BOARD_SIZE + col;
+            shipMasks[shipIndex][cell >>> 6] |= 1L << cell;
+            shipBits[cell >>> 6] |= 1L << cell;
         }
     }
     
@@ -134,6 +201,11 @@ public class Board {
             grid[row][col] = GameConstants.BATTLESHIP_WATER;
         }
         
+        for (int w = 0; w < WORDS; w++) {
+            shipBits[w] &= ~shipMasks[shipIndex][w];
+            shipMasks[shipIndex][w] = 0;
+        }
+        
         // Remover el barco
         ship.remove();
         setupComplete = false;
@@ -154,13 +226,13 @@ public class Board {
             return "INVALID";
         }
         
-        String position = row + "," + col;
-        
-        // Verificar si ya se disparó en esta posición
-        if (hits.contains(position) || misses.contains(position)) {
+        // Verificar si ya se disparó en esta posición (el grid ya la marca, sin recorrer las listas)
+        if (grid[row][col] == GameConstants.BATTLESHIP_HIT || grid[row][col] == GameConstants.BATTLESHIP_MISS) {
             return "INVALID";
         }
         
+        String position = row + "," + col;
+        
         // Verificar si hay un barco
         boolean hitShip = false;
         Ship hitShipRef = null;
@@ -174,6 +246,9 @@ public class Board {
             }
         }
         
+        int cell = row * GameConstants.BATTLESHIP_BOARD_SIZE + col;
+        shotBits[cell >>> 6] |= 1L << cell;
+        
         if (hitShip) {
             hits.add(position);
             grid[row][col] = GameConstants.BATTLESHIP_HIT;
@@ -191,6 +266,98 @@ public class Board {
         }
     }
     
+    /**
+     * Procesa una andanada de disparos (regla Salvo) de una sola vez.
+     * La andanada se valida entera antes de aplicarla: si algún disparo se sale
+     * del tablero, se repite o cae en una celda ya disparada, no se aplica ninguno.
+     * Los impactos se calculan sobre los bitboards con operaciones de palabra completa
+     * (andanada AND barcos); sólo las celdas disparadas se recorren una a una para
+     * actualizar el grid y los barcos.
+     * @param cells Celdas disparadas (fila * tamaño + columna)
+     * @return Resultado de cada disparo en el mismo orden ("HIT", "MISS" o "SUNK:nombre"
+     *         en el disparo que hunde el barco), o null si la andanada no es válida
+     */
+    public String[] receiveSalvo(int[] cells) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        long[] salvo = new long[WORDS];
+        for (int cell : cells) {
+            if (cell < 0 || cell >= size * size || (salvo[cell >>> 6] & (1L << cell)) != 0) {
+                return null;
+            }
+            salvo[cell >>> 6] |= 1L << cell;
+        }
+        
+        long[] hitBits = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            if ((salvo[w] & shotBits[w]) != 0) {
+                return null;
+            }
+        }
+        for (int w = 0; w < WORDS; w++) {
+            hitBits[w] = salvo[w] & shipBits[w];
+            shotBits[w] |= salvo[w];
+        }
+        
+        String[] results = new String[cells.length];
+        int[] lastHitOfShip = new int[ships.length];
+        Arrays.fill(lastHitOfShip, -1);
+        for (int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            int row = cell / size;
+            int col = cell % size;
+            if ((hitBits[cell >>> 6] & (1L << cell)) != 0) {
+                int ship = shipAt(cell);
+                ships[ship].hit(row, col);
+                hits.add(row + "," + col);
+                grid[row][col] = GameConstants.BATTLESHIP_HIT;
+                results[i] = "HIT";
+                lastHitOfShip[ship] = i;
+            } else {
+                misses.add(row + "," + col);
+                grid[row][col] = GameConstants.BATTLESHIP_MISS;
+                results[i] = "MISS";
+            }
+        }
+        
+        // Un barco alcanzado en la andanada está hundido si no le queda ninguna celda sin disparar
+        for (int ship = 0; ship < ships.length; ship++) {
+            if (lastHitOfShip[ship] >= 0 && isMaskShot(shipMasks[ship])) {
+                results[lastHitOfShip[ship]] = "SUNK:" + ships[ship].getName();
+            }
+        }
+        return results;
+    }
+    
+    private int shipAt(int cell) {
+        for (int ship = 0; ship < ships.length; ship++) {
+            if ((shipMasks[ship][cell >>> 6] & (1L << cell)) != 0) {
+                return ship;
+            }
+        }
+        return -1;
+    }
+    
+    private boolean isMaskShot(long[] mask) {
+        for (int w = 0; w < WORDS; w++) {
+            if ((mask[w] & ~shotBits[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Obtiene el número de celdas que aún no han recibido ningún disparo.
+     * @return Celdas sin disparar
+     */
+    public int getUnshotCount() {
+        int shot = 0;
+        for (int w = 0; w < WORDS; w++) {
+            shot += Long.bitCount(shotBits[w]);
+        }
+        return GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE - shot;
+    }
+    
     /**
      * Realiza un disparo al tablero enemigo.
      * @param row Fila del disparo
@@ -252,9 +419,9 @@ public class Board {
             int attempts = 0;
             
             while (!placed && attempts < 100) { // Máximo 100 intentos por barco
-                int row = (int) (Math.random() * GameConstants.BATTLESHIP_BOARD_SIZE);
-                int col = (int) (Math.random() * GameConstants.BATTLESHIP_BOARD_SIZE);
-                boolean horizontal = Math.random() < 0.5;
+                int row = random.nextInt(GameConstants.BATTLESHIP_BOARD_SIZE);
+                int col = random.nextInt(GameConstants.BATTLESHIP_BOARD_SIZE);
+                boolean horizontal = random.nextBoolean();
                 
                 if (placeShip(i, row, col, horizontal)) {
                     placed = true;
@@ -289,6 +456,16 @@ public class Board {
         return targets;
     }
     
+    /**
+     * Obtiene el contenido de una celda del tablero propio sin copiar el grid.
+     * @param row Fila
+     * @param col Columna
+     * @return Carácter de la celda (agua, barco, tocado o fallo)
+     */
+    public char getCell(int row, int col) {
+        return grid[row][col];
+    }
+    
     /**
      * Obtiene una representación del tablero para el jugador.
      * @return Grid del tablero propio
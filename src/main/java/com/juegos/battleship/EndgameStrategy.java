@@ -0,0 +1,119 @@
+package com.juegos.battleship;
+
+/**
+ * Estrategia de final exacto: cuando quedan pocos barcos a flote enumera todas
+ * las disposiciones compatibles con lo que sabe la IA y ataca la celda ocupada
+ * en más de ellas. Mientras la enumeración sea demasiado grande, o si supera el
+ * presupuesto de nodos, usa la densidad de probabilidad.
+ */
+public class EndgameStrategy implements AttackStrategy {
+
+    private static final int EXACT_MAX_SHIPS = 3;
+    private static final long NODE_BUDGET = 2_000_000L;
+
+    @Override
+    public String getName() {
+        return AttackStrategies.ENDGAME;
+    }
+
+    @Override
+    public int selectTarget(AttackContext context) {
+        if (context.getRemainingShipCount() <= EXACT_MAX_SHIPS) {
+            Enumeration enumeration = new Enumeration(context);
+            if (enumeration.run()) {
+                int target = StrategySupport.pickBest(context, enumeration.counts);
+                if (target != -1) {
+                    return target;
+                }
+            }
+        }
+        return StrategySupport.pickBest(context, ProbabilityDensityStrategy.computeDensity(context));
+    }
+
+    /**
+     * Enumeración recursiva de disposiciones de los barcos a flote.
+     */
+    private static final class Enumeration {
+
+        private final AttackContext context;
+        private final int boardSize;
+        private final long[] counts;
+        private final int[] occupancy;     // Barcos que cubren cada celda en la rama actual
+        private final int hitCells;        // Impactos sin resolver que hay que cubrir
+        private int coveredHits;
+        private long nodes;
+
+        Enumeration(AttackContext context) {
+            this.context = context;
+            this.boardSize = context.getBoardSize();
+            this.counts = new long[context.getCellCount()];
+            this.occupancy = new int[context.getCellCount()];
+            int hits = 0;
+            for (int cell = 0; cell < context.getCellCount(); cell++) {
+                if (context.getCell(cell) == AttackContext.HIT) {
+                    hits++;
+                }
+            }
+            this.hitCells = hits;
+        }
+
+        /**
+         * @return true si la enumeración terminó dentro del presupuesto
+         */
+        boolean run() {
+            return place(0);
+        }
+
+        private boolean place(int ship) {
+            if (++nodes > NODE_BUDGET) {
+                return false;
+            }
+            if (ship == context.getRemainingShipCount()) {
+                if (coveredHits == hitCells) {
+                    for (int cell = 0; cell < counts.length; cell++) {
+                        if (occupancy[cell] > 0) {
+                            counts[cell]++;
+                        }
+                    }
+                }
+                return true;
+            }
+
+            int size = context.getRemainingShipSize(ship);
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    if (!tryPlacement(ship, row, col, size, true) || !tryPlacement(ship, row, col, size, false)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean tryPlacement(int ship, int row, int col, int size, boolean horizontal) {
+            if (!StrategySupport.fits(context, row, col, size, horizontal)) {
+                return true;
+            }
+            for (int i = 0; i < size; i++) {
+                if (occupancy[StrategySupport.cellOf(boardSize, row, col, i, horizontal)] > 0) {
+                    return true;
+                }
+            }
+
+            mark(row, col, size, horizontal, 1);
+            boolean completed = place(ship + 1);
+            mark(row, col, size, horizontal, -1);
+            return completed;
+        }
+
+        private void mark(int row, int col, int size, boolean horizontal, int delta) {
+            for (int i = 0; i < size; i++) {
+                int cell = StrategySupport.cellOf(boardSize, row, col, i, horizontal);
+                occupancy[cell] += delta;
+                if (context.getCell(cell) == AttackContext.HIT) {
+                    coveredHits += delta;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.util.SplittableRandom;
+
+/**
+ * Disposición completa e inmutable de la flota estándar sobre el tablero.
+ * Guarda fila, columna y orientación de cada barco en un array compacto y
+ * se genera sin crear objetos Ship ni cadenas de coordenadas.
+ */
+public final class FleetLayout {
+
+    private static final int MAX_ATTEMPTS_PER_SHIP = 200;
+
+    private final byte[] placements;  // 3 bytes por barco: fila, columna, horizontal (0/1)
+
+    private FleetLayout(byte[] placements) {
+        this.placements = placements;
+    }
+
+    /**
+     * Genera una disposición aleatoria y válida de la flota estándar.
+     * Cada barco se coloca de forma uniforme entre posiciones al azar que no
+     * se salen del tablero ni se superponen con los barcos anteriores.
+     * @param random Generador de números aleatorios
+     * @return Disposición generada
+     */
+    public static FleetLayout generate(SplittableRandom random) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        int[] shipSizes = GameConstants.SHIP_SIZES;
+
+        while (true) {
+            boolean[] occupied = new boolean[size * size];
+            byte[] placements = new byte[shipSizes.length * 3];
+            boolean complete = true;
+
+            for (int ship = 0; ship < shipSizes.length && complete; ship++) {
+                complete = false;
+                for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_SHIP && !complete; attempt++) {
+                    boolean horizontal = random.nextBoolean();
+                    int row = random.nextInt(horizontal ? size : size - shipSizes[ship] + 1);
+                    int col = random.nextInt(horizontal ? size - shipSizes[ship] + 1 : size);
+
+                    if (isFree(occupied, size, row, col, shipSizes[ship], horizontal)) {
+                        for (int i = 0; i < shipSizes[ship]; i++) {
+                            occupied[horizontal ? row * size + col + i : (row + i) * size + col] = true;
+                        }
+                        placements[ship * 3] = (byte) row;
+                        placements[ship * 3 + 1] = (byte) col;
+                        placements[ship * 3 + 2] = (byte) (horizontal ? 1 : 0);
+                        complete = true;
+                    }
+                }
+            }
+
+            if (complete) {
+                return new FleetLayout(placements);
+            }
+        }
+    }
+
+    /**
+     * Crea una disposición a partir de posiciones conocidas, por ejemplo al
+     * restaurar una partida guardada.
+     * @param rows Fila de cada barco
+     * @param cols Columna de cada barco
+     * @param horizontal Orientación de cada barco
+     * @return Disposición con esas posiciones
+     */
+    public static FleetLayout of(int[] rows, int[] cols, boolean[] horizontal) {
+        byte[] placements = new byte[rows.length * 3];
+        for (int ship = 0; ship < rows.length; ship++) {
+            placements[ship * 3] = (byte) rows[ship];
+            placements[ship * 3 + 1] = (byte) cols[ship];
+            placements[ship * 3 + 2] = (byte) (horizontal[ship] ? 1 : 0);
+        }
+        return new FleetLayout(placements);
+    }
+
+    /**
+     * Lee una disposición en el formato del protocolo: "fila,columna,H|V" por
+     * barco, en el orden de la flota y separados por ';'.
+     * @param text Disposición codificada
+     * @return Disposición o null si el texto no tiene ese formato
+     */
+    public static FleetLayout parse(String text) {
+        String[] ships = text.split(";");
+        byte[] placements = new byte[ships.length * 3];
+        for (int ship = 0; ship < ships.length; ship++) {
+            String[] parts = ships[ship].split(",");
+            if (parts.length != 3 || !("H".equals(parts[2]) || "V".equals(parts[2]))) {
+                return null;
+            }
+            try {
+                int row = Integer.parseInt(parts[0].trim());
+                int col = Integer.parseInt(parts[1].trim());
+                if (row < 0 || row > Byte.MAX_VALUE || col < 0 || col > Byte.MAX_VALUE) {
+                    return null;
+                }
+                placements[ship * 3] = (byte) row;
+                placements[ship * 3 + 1] = (byte) col;
+                placements[ship * 3 + 2] = (byte) ("H".equals(parts[2]) ? 1 : 0);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return new FleetLayout(placements);
+    }
+
+    /**
+     * Codifica la disposición en el formato que lee {@link #parse(String)}.
+     * @return Disposición codificada
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder(getShipCount() * 7);
+        for (int ship = 0; ship < getShipCount(); ship++) {
+            if (ship > 0) sb.append(';');
+            sb.append(getRow(ship)).append(',').append(getCol(ship)).append(',').append(isHorizontal(ship) ? 'H' : 'V');
+        }
+        return sb.toString();
+    }
+
+    private static boolean isFree(boolean[] occupied, int size, int row, int col, int length, boolean horizontal) {
+        for (int i = 0; i < length; i++) {
+            if (occupied[horizontal ? row * size + col + i : (row + i) * size + col]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Coloca la flota en un tablero vacío.
+     * @param board Tablero destino
+     * @return true si se colocaron todos los barcos
+     */
+    public boolean applyTo(Board board) {
+        for (int ship = 0; ship < getShipCount(); ship++) {
+            if (!board.placeShip(ship, getRow(ship), getCol(ship), isHorizontal(ship))) {
+                for (int placed = 0; placed < ship; placed++) {
+                    board.removeShip(placed);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getShipCount() {
+        return placements.length / 3;
+    }
+
+    public int getRow(int ship) {
+        return placements[ship * 3];
+    }
+
+    public int getCol(int ship) {
+        return placements[ship * 3 + 1];
+    }
+
+    public boolean isHorizontal(int ship) {
+        return placements[ship * 3 + 2] != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FleetLayout{");
+        for (int ship = 0; ship < getShipCount(); ship++) {
+            if (ship > 0) sb.append(';');
+            sb.append(getRow(ship)).append(',').append(getCol(ship)).append(isHorizontal(ship) ? 'H' : 'V');
+        }
+        return sb.append('}').toString();
+    }
+}
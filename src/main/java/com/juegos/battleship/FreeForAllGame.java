@@ -0,0 +1,265 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+import com.juegos.common.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Batalla Naval todos contra todos: entre {@link GameConstants#FFA_MIN_PLAYERS}
+ * y {@link GameConstants#FFA_MAX_PLAYERS} flotas en la misma partida.
+ *
+ * Cada jugador tiene su tablero y dispara a la flota que elija con
+ * "SHOOT:idObjetivo:fila:columna". El orden de turnos es un anillo doblemente
+ * enlazado sobre las plazas: pasar el turno y eliminar a un jugador son O(1),
+ * igual que encontrar el tablero del objetivo (por su ID), así que el coste de
+ * un disparo no depende del número de jugadores. Quien acierta vuelve a
+ * disparar y gana el último jugador con barcos a flote.
+ */
+public class FreeForAllGame {
+
+    private final Player[] players;
+    private final Board[] boards;
+    private final Map<String, Integer> slots;  // ID del jugador → plaza
+    private final int[] next;                  // Siguiente plaza viva en el orden de turnos
+    private final int[] prev;                  // Plaza viva anterior
+    private final boolean[] eliminated;
+    private final SplittableRandom random;
+
+    private String gamePhase;        // SETUP, BATTLE, FINISHED
+    private int alive;
+    private int pendingFleets;       // Jugadores vivos que aún no colocaron la flota
+    private int current;             // Plaza con el turno
+    private String winner;
+    private int totalTurns;
+
+    private int lastShotTarget;      // Plaza que recibió el último disparo válido
+    private int lastShotRow;
+    private int lastShotCol;
+    private String lastShotResult;
+    private String lastEliminated;   // Jugador eliminado por el último movimiento (o null)
+
+    /**
+     * Constructor de la partida.
+     * @param seed Semilla de la partida
+     * @param players Jugadores en orden de turno
+     */
+    public FreeForAllGame(long seed, Player[] players) {
+        int count = players.length;
+        if (count < GameConstants.FFA_MIN_PLAYERS || count > GameConstants.FFA_MAX_PLAYERS) {
+            throw new IllegalArgumentException("Número de jugadores fuera de rango: " + count);
+        }
+        this.random = new SplittableRandom(seed);
+        this.players = players.clone();
+        this.boards = new Board[count];
+        this.slots = new HashMap<>(count * 2);
+        this.next = new int[count];
+        this.prev = new int[count];
+        this.eliminated = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = new Board(random.split());
+            slots.put(players[i].getId(), i);
+            next[i] = (i + 1) % count;
+            prev[i] = (i + count - 1) % count;
+        }
+        this.alive = count;
+        this.pendingFleets = count;
+        this.current = 0;
+        this.gamePhase = "SETUP";
+    }
+
+    /**
+     * Procesa un movimiento.
+     * @param playerId ID del jugador
+     * @param moveData "PLACE_FLEET:fila,columna,H|V;..." en la configuración
+     *                 o "SHOOT:idObjetivo:fila:columna" en la batalla
+     * @return true si el movimiento es válido
+     */
+    public boolean makeMove(String playerId, String moveData) {
+        Integer slot = slots.get(playerId);
+        lastEliminated = null;
+        if (slot == null || eliminated[slot]) {
+            return false;
+        }
+        if ("SETUP".equals(gamePhase)) {
+            return moveData.startsWith("PLACE_FLEET:") && placeFleet(slot, moveData.substring("PLACE_FLEET:".length()));
+        }
+        if ("BATTLE".equals(gamePhase) && slot == current && moveData.startsWith("SHOOT:")) {
+            return shoot(slot, moveData);
+        }
+        return false;
+    }
+
+    private boolean placeFleet(int slot, String layoutData) {
+        FleetLayout layout = FleetLayout.parse(layoutData);
+        boolean firstFleet = !boards[slot].isSetupComplete();
+        if (layout == null || !boards[slot].placeFleet(layout)) {
+            return false;
+        }
+        if (firstFleet && --pendingFleets == 0) {
+            gamePhase = "BATTLE";
+        }
+        return true;
+    }
+
+    private boolean shoot(int slot, String moveData) {
+        String[] parts = moveData.split(":");
+        if (parts.length != 4) {
+            return false;
+        }
+        Integer target = slots.get(parts[1]);
+        if (target == null || target == slot || eliminated[target]) {
+            return false;
+        }
+        int row;
+        int col;
+        try {
+            row = Integer.parseInt(parts[2].trim());
+            col = Integer.parseInt(parts[3].trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        String result = boards[target].receiveShot(row, col);
+        if ("INVALID".equals(result)) {
+            return false;
+        }
+        totalTurns++;
+        lastShotTarget = target;
+        lastShotRow = row;
+        lastShotCol = col;
+        lastShotResult = result;
+
+        if (boards[target].allShipsSunk()) {
+            eliminate(target);
+        } else if ("MISS".equals(result)) {
+            current = next[current];
+        }
+        return true;
+    }
+
+    /**
+     * Elimina a un jugador que abandona la partida. Si tenía el turno pasa al siguiente.
+     * @param playerId ID del jugador
+     * @return true si el jugador seguía en la partida
+     */
+    public boolean eliminatePlayer(String playerId) {
+        Integer slot = slots.get(playerId);
+        lastEliminated = null;
+        if (slot == null || eliminated[slot] || "FINISHED".equals(gamePhase)) {
+            return false;
+        }
+        if ("SETUP".equals(gamePhase) && !boards[slot].isSetupComplete() && --pendingFleets == 0) {
+            gamePhase = "BATTLE";
+        }
+        eliminate(slot);
+        return true;
+    }
+
+    /**
+     * Saca una plaza del anillo de turnos y termina la partida si sólo queda un jugador.
+     */
+    private void eliminate(int slot) {
+        eliminated[slot] = true;
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
+        if (current == slot) {
+            current = next[slot];
+        }
+        alive--;
+        lastEliminated = players[slot].getId();
+
+        if (alive == 1) {
+            gamePhase = "FINISHED";
+            winner = players[current].getId();
+            for (Player player : players) {
+                if (player == players[current]) {
+                    player.incrementWins();
+                } else {
+                    player.incrementLosses();
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica si el juego terminó.
+     * @return Resultado ("WIN:id") o null si continúa
+     */
+    public String checkGameEnd() {
+        return winner != null ? GameConstants.RESULT_WIN + ":" + winner : null;
+    }
+
+    /**
+     * Obtiene el tablero de un jugador.
+     * @param playerId ID del jugador
+     * @return Tablero o null si no juega en la partida
+     */
+    public Board getBoard(String playerId) {
+        Integer slot = slots.get(playerId);
+        return slot != null ? boards[slot] : null;
+    }
+
+    /**
+     * Divide un generador independiente del de la partida.
+     * @return Generador nuevo
+     */
+    public SplittableRandom splitRandom() {
+        return random.split();
+    }
+
+    public Player getCurrentPlayer() {
+        return players[current];
+    }
+
+    public Player[] getPlayers() {
+        return players.clone();
+    }
+
+    public int getAliveCount() {
+        return alive;
+    }
+
+    public boolean isEliminated(String playerId) {
+        Integer slot = slots.get(playerId);
+        return slot != null && eliminated[slot];
+    }
+
+    public boolean isSetupPhase() {
+        return "SETUP".equals(gamePhase);
+    }
+
+    public boolean isBattlePhase() {
+        return "BATTLE".equals(gamePhase);
+    }
+
+    public String getGamePhase() {
+        return gamePhase;
+    }
+
+    public int getTotalTurns() {
+        return totalTurns;
+    }
+
+    public String getLastShotTarget() {
+        return players[lastShotTarget].getId();
+    }
+
+    public int getLastShotRow() {
+        return lastShotRow;
+    }
+
+    public int getLastShotCol() {
+        return lastShotCol;
+    }
+
+    public String getLastShotResult() {
+        return lastShotResult;
+    }
+
+    public String getLastEliminated() {
+        return lastEliminated;
+    }
+}
@@ -0,0 +1,422 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.Inflater;
+
+/**
+ * Análisis del archivo de partidas terminadas.
+ *
+ * Calcula mapas de calor de dónde colocan los barcos los jugadores humanos y
+ * dónde hacen su primer disparo, la distribución de la duración de las
+ * partidas y el porcentaje de victorias de la IA por estrategia. El resultado
+ * se guarda como fichero de priors que puede cargar la IA.
+ *
+ * El archivo se mapea en memoria y sus bloques se reparten entre tareas
+ * fork/join; cada tarea descomprime sus bloques y recorre los registros
+ * directamente sobre los bytes, sin crear un objeto por partida ni por disparo.
+ * En modo continuo sólo se procesan los bloques añadidos desde la pasada anterior.
+ *
+ * Formato del fichero de priors (big-endian):
+ * <pre>
+ *   int    MAGIC ("BSPR")
+ *   short  VERSION
+ *   byte   tamaño del tablero
+ *   byte   número de barcos, seguido de un byte por tamaño de barco
+ *   long   partidas analizadas
+ *   char[] ocupación de los barcos humanos por celda, escalada a 0..65535
+ *   char[] primeros disparos humanos por celda, escalados a 0..65535
+ *   int[]  partidas por número de disparos (0..255)
+ *   byte   número de rivales, y por rival: int partidas, int victorias de la IA, int derrotas de la IA
+ * </pre>
+ */
+public final class GameAnalytics {
+
+    public static final int MAGIC = 0x42535052; // "BSPR"
+    public static final short VERSION = 1;
+
+    public static final int MAX_SHOTS = 256;
+    /** Rivales analizados: los de {@link GameRecordCodec#OPPONENTS} más "otros". */
+    public static final int OPPONENT_BUCKETS = GameRecordCodec.OPPONENTS.length + 1;
+
+    private static final int SIZE = GameConstants.BATTLESHIP_BOARD_SIZE;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int BLOCKS_PER_TASK = 4;
+    private static final int FOLLOW_INTERVAL_SECONDS = 10;
+
+    private GameAnalytics() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Agregados del análisis. Se pueden combinar entre tareas y entre pasadas.
+     */
+    public static final class Aggregate {
+        private final long[] placementHeat = new long[CELLS];
+        private final long[] firstShotHeat = new long[CELLS];
+        private final long[] lengths = new long[MAX_SHOTS];
+        private final long[] opponentGames = new long[OPPONENT_BUCKETS];
+        private final long[] aiWins = new long[OPPONENT_BUCKETS];
+        private final long[] aiLosses = new long[OPPONENT_BUCKETS];
+        private long games;
+        private long humanFleets;
+        private long endOffset;   // Posición del archivo hasta la que se ha analizado
+
+        /**
+         * Suma otro agregado a este.
+         * @param other Agregado a sumar
+         * @return Este agregado
+         */
+        public Aggregate merge(Aggregate other) {
+            add(placementHeat, other.placementHeat);
+            add(firstShotHeat, other.firstShotHeat);
+            add(lengths, other.lengths);
+            add(opponentGames, other.opponentGames);
+            add(aiWins, other.aiWins);
+            add(aiLosses, other.aiLosses);
+            games += other.games;
+            humanFleets += other.humanFleets;
+            endOffset = Math.max(endOffset, other.endOffset);
+            return this;
+        }
+
+        private static void add(long[] target, long[] source) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
+
+        /**
+         * Acumula los registros codificados de un bloque descomprimido.
+         */
+        private void scanBlock(byte[] raw, int records) {
+            int position = 0;
+            for (int i = 0; i < records; i++) {
+                int shift = GameRecordCodec.fieldShift(raw[position]);
+                int opponent = raw[position + GameRecordCodec.OPPONENT_OFFSET] & 0xFF;
+                int outcome = raw[position + GameRecordCodec.OUTCOME_OFFSET];
+                boolean salvo = shift == 0 &&
+                                raw[position + GameRecordCodec.RULES_OFFSET] == GameRecordCodec.RULES_SALVO;
+                int shotCount = raw[position + GameRecordCodec.SHOT_COUNT_OFFSET + shift] & 0xFF;
+                int fleet = position + GameRecordCodec.FLEET_OFFSET + shift;
+                int shots = position + GameRecordCodec.FIXED_SIZE + shift;
+
+                games++;
+                lengths[shotCount]++;
+
+                // El primer jugador es siempre humano; el segundo sólo si no hay IA
+                boolean vsHuman = opponent == 0;
+                addFleet(raw, fleet);
+                if (shotCount > 0) {
+                    firstShotHeat[raw[shots] & 0x7F]++;
+                }
+                if (vsHuman) {
+                    addFleet(raw, fleet + GameRecord.SHIPS);
+                    // En Salvo el segundo jugador dispara tras la primera andanada,
+                    // de un disparo por barco; si no, tras el primer fallo
+                    if (salvo && shotCount > GameRecord.SHIPS) {
+                        firstShotHeat[raw[shots + GameRecord.SHIPS] & 0x7F]++;
+                    }
+                    for (int shot = 0; !salvo && shot < shotCount - 1; shot++) {
+                        if ((raw[shots + shot] & 0x80) == 0) {
+                            firstShotHeat[raw[shots + shot + 1] & 0x7F]++;
+                            break;
+                        }
+                    }
+                } else {
+                    int bucket = opponent < GameRecordCodec.OPPONENTS.length ? opponent : OPPONENT_BUCKETS - 1;
+                    opponentGames[bucket]++;
+                    if (outcome == GameRecord.OUTCOME_SECOND_PLAYER) {
+                        aiWins[bucket]++;
+                    } else if (outcome == GameRecord.OUTCOME_FIRST_PLAYER) {
+                        aiLosses[bucket]++;
+                    }
+                }
+
+                position = shots + shotCount;
+            }
+        }
+
+        private void addFleet(byte[] raw, int offset) {
+            humanFleets++;
+            for (int ship = 0; ship < GameRecord.SHIPS; ship++) {
+                int value = raw[offset + ship];
+                int cell = value & 0x7F;
+                int step = (value & 0x80) != 0 ? 1 : SIZE;
+                for (int i = 0; i < GameConstants.SHIP_SIZES[ship]; i++) {
+                    placementHeat[cell + i * step]++;
+                }
+            }
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getHumanFleets() {
+            return humanFleets;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public long getPlacementHeat(int row, int col) {
+            return placementHeat[row * SIZE + col];
+        }
+
+        public long getFirstShotHeat(int row, int col) {
+            return firstShotHeat[row * SIZE + col];
+        }
+
+        public long getGamesWithLength(int shots) {
+            return lengths[shots];
+        }
+
+        /**
+         * Obtiene el porcentaje de victorias de la IA contra humanos con una estrategia.
+         * @param strategy Nombre de la estrategia (ver {@link AttackStrategies})
+         * @return Porcentaje entre 0 y 100, o 0 si no hay partidas terminadas
+         */
+        public double getAIWinPercentage(String strategy) {
+            int bucket = OPPONENT_BUCKETS - 1;
+            for (int i = 1; i < GameRecordCodec.OPPONENTS.length; i++) {
+                if (GameRecordCodec.OPPONENTS[i].equals(strategy)) {
+                    bucket = i;
+                }
+            }
+            long decided = aiWins[bucket] + aiLosses[bucket];
+            return decided == 0 ? 0.0 : aiWins[bucket] * 100.0 / decided;
+        }
+
+        /**
+         * Duración media de las partidas en disparos.
+         * @return Media de disparos por partida
+         */
+        public double getAverageLength() {
+            long total = 0;
+            for (int shots = 0; shots < MAX_SHOTS; shots++) {
+                total += shots * lengths[shots];
+            }
+            return games == 0 ? 0.0 : (double) total / games;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Partidas: %d, flotas humanas: %d, duración media: %.1f disparos%n",
+                                      games, humanFleets, getAverageLength()));
+            for (int i = 1; i < OPPONENT_BUCKETS; i++) {
+                if (opponentGames[i] > 0) {
+                    String name = i < GameRecordCodec.OPPONENTS.length ? GameRecordCodec.OPPONENTS[i] : "OTRAS";
+                    text.append(String.format("  IA %-10s %6d partidas, %.1f%% victorias%n",
+                                              name, opponentGames[i], getAIWinPercentage(name)));
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Analiza un archivo completo.
+     * @param archive Ruta del archivo de partidas
+     * @return Agregados del archivo
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public static Aggregate analyze(Path archive) throws IOException {
+        return analyze(archive, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analiza los bloques de un archivo a partir de una posición.
+     * @param archive Ruta del archivo de partidas
+     * @param fromOffset Posición del primer bloque a analizar (0 = desde el principio)
+     * @param pool Pool fork/join donde repartir los bloques
+     * @return Agregados de los bloques analizados; getEndOffset() indica dónde seguir
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public static Aggregate analyze(Path archive, long fromOffset, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.limit() < GameArchive.HEADER_SIZE || data.getInt(0) != GameArchive.MAGIC ||
+                data.getShort(4) != GameArchive.VERSION) {
+                throw new IOException("Archivo de partidas no válido: " + archive);
+            }
+
+            // Índice de bloques completos; un bloque a medio escribir se deja para la próxima pasada
+            List<Integer> blocks = new ArrayList<>();
+            int position = (int) Math.max(fromOffset, GameArchive.HEADER_SIZE);
+            while (position + GameArchive.BLOCK_HEADER_SIZE <= data.limit()) {
+                int length = data.getInt(position);
+                if (length <= 0 || position + GameArchive.BLOCK_HEADER_SIZE + length > data.limit()) {
+                    break;
+                }
+                blocks.add(position);
+                position += GameArchive.BLOCK_HEADER_SIZE + length;
+            }
+
+            int[] offsets = new int[blocks.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = blocks.get(i);
+            }
+            Aggregate result = pool.invoke(new BlockTask(data, offsets, 0, offsets.length));
+            result.endOffset = position;
+            return result;
+        }
+    }
+
+    /**
+     * Tarea fork/join sobre un tramo de bloques del archivo.
+     */
+    private static final class BlockTask extends RecursiveTask<Aggregate> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+
+        BlockTask(ByteBuffer data, int[] offsets, int from, int to) {
+            this.data = data;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                BlockTask left = new BlockTask(data, offsets, from, middle);
+                left.fork();
+                Aggregate right = new BlockTask(data, offsets, middle, to).compute();
+                return right.merge(left.join());
+            }
+
+            Aggregate aggregate = new Aggregate();
+            ByteBuffer view = data.duplicate();  // Posición propia para no interferir con otras tareas
+            Inflater inflater = new Inflater();
+            try {
+                byte[] compressed = new byte[0];
+                for (int i = from; i < to; i++) {
+                    int offset = offsets[i];
+                    int length = view.getInt(offset);
+                    int rawLength = view.getInt(offset + 4);
+                    int records = view.getInt(offset + 8);
+                    if (compressed.length < length) {
+                        compressed = new byte[length];
+                    }
+                    view.position(offset + GameArchive.BLOCK_HEADER_SIZE);
+                    view.get(compressed, 0, length);
+                    aggregate.scanBlock(GameArchive.inflate(inflater, compressed, 0, length, rawLength), records);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Bloque de partidas dañado", e);
+            } finally {
+                inflater.end();
+            }
+            return aggregate;
+        }
+    }
+
+    /**
+     * Escribe los priors de un análisis. Se escribe en un fichero temporal que
+     * luego reemplaza al anterior de forma atómica, así quien lo tenga mapeado
+     * nunca ve un fichero a medias.
+     * @param aggregate Agregados del análisis
+     * @param file Ruta del fichero de priors
+     * @throws IOException Si no se puede escribir el fichero
+     */
+    public static void writePriors(Aggregate aggregate, Path file) throws IOException {
+        int[] fleet = GameConstants.SHIP_SIZES;
+        ByteBuffer out = ByteBuffer.allocate(8 + fleet.length + 8 + CELLS * 4 + MAX_SHOTS * 4 + 1 +
+                                             OPPONENT_BUCKETS * 12);
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.put((byte) SIZE);
+        out.put((byte) fleet.length);
+        for (int size : fleet) {
+            out.put((byte) size);
+        }
+        out.putLong(aggregate.games);
+        putScaled(out, aggregate.placementHeat);
+        putScaled(out, aggregate.firstShotHeat);
+        for (long count : aggregate.lengths) {
+            out.putInt((int) Math.min(count, Integer.MAX_VALUE));
+        }
+        out.put((byte) OPPONENT_BUCKETS);
+        for (int i = 0; i < OPPONENT_BUCKETS; i++) {
+            out.putInt((int) Math.min(aggregate.opponentGames[i], Integer.MAX_VALUE));
+            out.putInt((int) Math.min(aggregate.aiWins[i], Integer.MAX_VALUE));
+            out.putInt((int) Math.min(aggregate.aiLosses[i], Integer.MAX_VALUE));
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void putScaled(ByteBuffer out, long[] heat) {
+        long max = 1;
+        for (long value : heat) {
+            max = Math.max(max, value);
+        }
+        for (long value : heat) {
+            out.putChar((char) (value * 65535 / max));
+        }
+    }
+
+    /**
+     * Analiza un archivo de partidas y escribe los priors.
+     * Con --follow sigue analizando los bloques nuevos cada pocos segundos.
+     * Uso: GameAnalytics [archivo] [fichero de priors] [--follow]
+     * @param args Argumentos de línea de comandos
+     * @throws IOException Si no se puede leer el archivo o escribir los priors
+     * @throws InterruptedException Si se interrumpe el modo continuo
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path archive = Paths.get(args.length > 0 ? args[0] : GameConstants.ARCHIVE_FILE);
+        Path priors = Paths.get(args.length > 1 ? args[1] : GameConstants.PRIORS_FILE);
+        boolean follow = args.length > 2 && "--follow".equals(args[2]);
+
+        Aggregate total = new Aggregate();
+        do {
+            long start = System.nanoTime();
+            long from = Math.max(total.endOffset, GameArchive.HEADER_SIZE);
+            Aggregate pass = analyze(archive, total.endOffset, ForkJoinPool.commonPool());
+            if (pass.games > 0 || total.games == 0) {
+                total.merge(pass);
+                writePriors(total, priors);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d partidas nuevas en %.3f s (%.1f MB/s)%n%s", pass.games, seconds,
+                                  (pass.endOffset - from) / 1e6 / Math.max(seconds, 1e-9), total);
+            }
+            if (follow) {
+                Thread.sleep(FOLLOW_INTERVAL_SECONDS * 1000L);
+            }
+        } while (follow);
+    }
+}
@@ -0,0 +1,251 @@
+package com.juegos.battleship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archivo de partidas terminadas en bloques comprimidos.
+ * Los registros se codifican con {@link GameRecordCodec} en un bloque en memoria;
+ * cuando el bloque llega a BLOCK_SIZE (o al llamar a {@link #flush()}) se comprime
+ * con Deflate y se añade al final del fichero.
+ *
+ * Formato del fichero (big-endian):
+ * <pre>
+ *   int MAGIC ("BSGA"), short VERSION
+ *   bloques: int longitud comprimida, int longitud original, int número de registros, datos
+ * </pre>
+ * Un bloque incompleto al final (por una caída durante la escritura) se ignora al leer.
+ */
+public class GameArchive implements Closeable {
+
+    public static final int MAGIC = 0x42534741; // "BSGA"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 6;
+    public static final int BLOCK_HEADER_SIZE = 12;
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream block;
+    private final DataOutputStream blockOut;
+    private final Deflater deflater;
+    private int blockRecords;
+    private long archived;
+    private long compressedBytes;
+
+    private GameArchive(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.block = new ByteArrayOutputStream(BLOCK_SIZE + 256);
+        this.blockOut = new DataOutputStream(block);
+        this.deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Abre un archivo para añadir partidas, creándolo si no existe.
+     * @param file Ruta del archivo
+     * @return Archivo abierto
+     * @throws IOException Si no se puede abrir o no es un archivo de partidas
+     */
+    public static GameArchive open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+                header.flip();
+                channel.write(header);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+                    throw new IOException("Archivo de partidas no válido: " + file);
+                }
+                channel.position(validLength(channel));
+                channel.truncate(channel.position());
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new GameArchive(file, channel);
+    }
+
+    /**
+     * Calcula la longitud del archivo hasta el último bloque completo.
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long position = HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        while (position + BLOCK_HEADER_SIZE <= channel.size()) {
+            header.clear();
+            channel.read(header, position);
+            long end = position + BLOCK_HEADER_SIZE + header.getInt(0);
+            if (header.getInt(0) <= 0 || end > channel.size()) {
+                break;
+            }
+            position = end;
+        }
+        return position;
+    }
+
+    /**
+     * Añade una partida al bloque actual y escribe el bloque si está lleno.
+     * @param record Registro de la partida
+     * @throws IOException Si falla la escritura del bloque
+     */
+    public synchronized void append(GameRecord record) throws IOException {
+        GameRecordCodec.write(record, blockOut);
+        blockRecords++;
+        archived++;
+        if (block.size() >= BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Comprime y escribe el bloque actual aunque no esté lleno.
+     * @throws IOException Si falla la escritura
+     */
+    public synchronized void flush() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+
+        byte[] raw = block.toByteArray();
+        byte[] compressed = new byte[raw.length + 64];
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int length = deflater.deflate(compressed);
+        if (!deflater.finished()) {
+            throw new IOException("No se pudo comprimir el bloque de partidas");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(BLOCK_HEADER_SIZE + length);
+        out.putInt(length).putInt(raw.length).putInt(blockRecords).put(compressed, 0, length);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        channel.force(false);
+
+        compressedBytes += BLOCK_HEADER_SIZE + length;
+        block.reset();
+        blockRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    /**
+     * Recorre todas las partidas de un archivo en orden.
+     * @param file Ruta del archivo
+     * @param consumer Receptor de cada registro
+     * @return Número de partidas leídas
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public static long forEach(Path file, Consumer<GameRecord> consumer) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getShort(4) != VERSION) {
+            throw new IOException("Archivo de partidas no válido: " + file);
+        }
+
+        long count = 0;
+        int position = HEADER_SIZE;
+        Inflater inflater = new Inflater();
+        try {
+            while (position + BLOCK_HEADER_SIZE <= data.limit()) {
+                int length = data.getInt(position);
+                int rawLength = data.getInt(position + 4);
+                int records = data.getInt(position + 8);
+                if (length <= 0 || position + BLOCK_HEADER_SIZE + length > data.limit()) {
+                    break; // Bloque incompleto
+                }
+
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    inflate(inflater, data.array(), position + BLOCK_HEADER_SIZE, length, rawLength)));
+                for (int i = 0; i < records; i++) {
+                    consumer.accept(GameRecordCodec.read(in));
+                }
+                count += records;
+                position += BLOCK_HEADER_SIZE + length;
+            }
+        } finally {
+            inflater.end();
+        }
+        return count;
+    }
+
+    /**
+     * Lee todas las partidas de un archivo.
+     * @param file Ruta del archivo
+     * @return Registros en orden
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public static List<GameRecord> readAll(Path file) throws IOException {
+        List<GameRecord> records = new ArrayList<>();
+        forEach(file, records::add);
+        return records;
+    }
+
+    static byte[] inflate(Inflater inflater, byte[] data, int offset, int length, int rawLength) throws IOException {
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        try {
+            int total = 0;
+            while (total < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, total, rawLength - total);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Los datos comprimidos se acabaron antes de la longitud anunciada
+                    throw new IOException("Bloque de partidas truncado: " + total + " de " + rawLength + " bytes");
+                }
+                total += inflated;
+            }
+            if (total < rawLength) {
+                throw new IOException("Bloque de partidas truncado: " + total + " de " + rawLength + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque de partidas dañado", e);
+        }
+        return raw;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized long getArchivedCount() {
+        return archived;
+    }
+
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+}
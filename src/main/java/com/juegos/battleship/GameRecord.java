@@ -0,0 +1,222 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.util.Arrays;
+
+/**
+ * Registro compacto de una partida de Batalla Naval terminada o en curso:
+ * semilla, flotas de los dos jugadores y disparos en orden.
+ *
+ * Cada barco ocupa un byte (celda | 0x80 si es horizontal) y cada disparo otro
+ * (celda | 0x80 si fue impacto). Quién disparó no se guarda: el primer jugador
+ * empieza y el turno sólo cambia con un fallo, así que se deduce de los impactos.
+ * En las partidas Salvo el turno cambia tras cada andanada, y el tamaño de cada
+ * una se deduce de los barcos que le quedan a quien dispara.
+ * La codificación binaria versionada está en {@link GameRecordCodec}.
+ */
+public final class GameRecord {
+
+    public static final int SHIPS = GameConstants.SHIP_SIZES.length;
+
+    // Resultados de la partida
+    public static final byte OUTCOME_UNFINISHED = 0;
+    public static final byte OUTCOME_FIRST_PLAYER = 1;   // Ganó el primer jugador
+    public static final byte OUTCOME_SECOND_PLAYER = 2;  // Ganó el segundo jugador (o la IA)
+    public static final byte OUTCOME_ABANDONED = 3;
+
+    private static final int SIZE = GameConstants.BATTLESHIP_BOARD_SIZE;
+
+    private final long seed;
+    private final byte[] fleet;     // SHIPS bytes del primer jugador y SHIPS del segundo
+    private final byte[] shots;
+    private final byte outcome;
+    private final boolean salvo;    // true si se jugó con las reglas Salvo
+    private final String opponent;  // Estrategia de la IA rival o null si el rival era humano
+    private final long endedAt;     // Marca de tiempo en milisegundos
+
+    /**
+     * Constructor de un registro sin resultado ni metadatos.
+     * @param seed Semilla de la partida
+     * @param fleet Barcos de los dos jugadores (2 * SHIPS bytes)
+     * @param shots Disparos en orden
+     */
+    public GameRecord(long seed, byte[] fleet, byte[] shots) {
+        this(seed, fleet, shots, OUTCOME_UNFINISHED, null, 0);
+    }
+
+    /**
+     * Constructor completo.
+     * @param seed Semilla de la partida
+     * @param fleet Barcos de los dos jugadores (2 * SHIPS bytes)
+     * @param shots Disparos en orden
+     * @param outcome Resultado (OUTCOME_*)
+     * @param opponent Estrategia de la IA rival o null si era humano
+     * @param endedAt Marca de tiempo del final en milisegundos
+     */
+    public GameRecord(long seed, byte[] fleet, byte[] shots, byte outcome, String opponent, long endedAt) {
+        this(seed, fleet, shots, outcome, false, opponent, endedAt);
+    }
+
+    /**
+     * Constructor completo con las reglas de la partida.
+     * @param seed Semilla de la partida
+     * @param fleet Barcos de los dos jugadores (2 * SHIPS bytes)
+     * @param shots Disparos en orden
+     * @param outcome Resultado (OUTCOME_*)
+     * @param salvo true si se jugó con las reglas Salvo
+     * @param opponent Estrategia de la IA rival o null si era humano
+     * @param endedAt Marca de tiempo del final en milisegundos
+     */
+    public GameRecord(long seed, byte[] fleet, byte[] shots, byte outcome, boolean salvo, String opponent,
+                      long endedAt) {
+        if (fleet.length != 2 * SHIPS) {
+            throw new IllegalArgumentException("Se esperaban " + 2 * SHIPS + " barcos y hay " + fleet.length);
+        }
+        this.seed = seed;
+        this.fleet = fleet;
+        this.shots = shots;
+        this.outcome = outcome;
+        this.salvo = salvo;
+        this.opponent = opponent;
+        this.endedAt = endedAt;
+    }
+
+    /**
+     * Crea el registro de una partida a partir de su estado actual.
+     * Los dos tableros deben tener la flota completa.
+     * @param game Partida
+     * @return Registro de la partida
+     */
+    public static GameRecord of(BattleshipGame game) {
+        return of(game, null, false);
+    }
+
+    /**
+     * Crea el registro de una partida con sus metadatos.
+     * Los dos tableros deben tener la flota completa.
+     * @param game Partida
+     * @param opponent Estrategia de la IA rival o null si era humano
+     * @param abandoned true si la partida terminó por abandono
+     * @return Registro de la partida
+     */
+    public static GameRecord of(BattleshipGame game, String opponent, boolean abandoned) {
+        byte[] fleet = new byte[2 * SHIPS];
+        encodeFleet(game.getPlayerBoard(), fleet, 0);
+        encodeFleet(game.getOpponentBoard(), fleet, SHIPS);
+
+        byte[] shots = new byte[game.getShotCount()];
+        for (int i = 0; i < shots.length; i++) {
+            int cell = game.getShot(i) & 0x7F;
+            Board target = (game.getShot(i) & 0x80) != 0 ? game.getPlayerBoard() : game.getOpponentBoard();
+            boolean hit = false;
+            for (Ship ship : target.getShips()) {
+                hit |= ship.occupiesPosition(cell / SIZE, cell % SIZE);
+            }
+            shots[i] = (byte) (cell | (hit ? 0x80 : 0));
+        }
+
+        byte outcome = OUTCOME_UNFINISHED;
+        if (abandoned) {
+            outcome = OUTCOME_ABANDONED;
+        } else if (game.getWinner() != null && game.getPlayer1() != null) {
+            outcome = game.getWinner().equals(game.getPlayer1().getId()) ? OUTCOME_FIRST_PLAYER : OUTCOME_SECOND_PLAYER;
+        }
+        return new GameRecord(game.getSeed(), fleet, shots, outcome, game.isSalvo(), opponent,
+                              System.currentTimeMillis());
+    }
+
+    private static void encodeFleet(Board board, byte[] fleet, int offset) {
+        Ship[] ships = board.getShips();
+        for (int i = 0; i < SHIPS; i++) {
+            if (!ships[i].isPlaced()) {
+                throw new IllegalArgumentException("La flota no está completa");
+            }
+            fleet[offset + i] = (byte) ((ships[i].getStartRow() * SIZE + ships[i].getStartCol()) |
+                                        (ships[i].isHorizontal() ? 0x80 : 0));
+        }
+    }
+
+    // Acceso a los datos
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public byte getOutcome() {
+        return outcome;
+    }
+
+    public boolean isSalvo() {
+        return salvo;
+    }
+
+    public String getOpponent() {
+        return opponent;
+    }
+
+    public long getEndedAt() {
+        return endedAt;
+    }
+
+    byte[] getFleetBytes() {
+        return fleet;
+    }
+
+    byte[] getShotBytes() {
+        return shots;
+    }
+
+    public int getShipRow(int player, int ship) {
+        return (fleet[player * SHIPS + ship] & 0x7F) / SIZE;
+    }
+
+    public int getShipCol(int player, int ship) {
+        return (fleet[player * SHIPS + ship] & 0x7F) % SIZE;
+    }
+
+    public boolean isShipHorizontal(int player, int ship) {
+        return (fleet[player * SHIPS + ship] & 0x80) != 0;
+    }
+
+    public int getShotCount() {
+        return shots.length;
+    }
+
+    public int getShotRow(int index) {
+        return (shots[index] & 0x7F) / SIZE;
+    }
+
+    public int getShotCol(int index) {
+        return (shots[index] & 0x7F) % SIZE;
+    }
+
+    /**
+     * Indica si un disparo fue impacto según el registro.
+     * @param index Número de disparo
+     * @return true si el disparo tocó un barco
+     */
+    public boolean isHit(int index) {
+        return (shots[index] & 0x80) != 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        GameRecord other = (GameRecord) obj;
+        return seed == other.seed && outcome == other.outcome && salvo == other.salvo &&
+               Arrays.equals(fleet, other.fleet) && Arrays.equals(shots, other.shots);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(seed) + Arrays.hashCode(fleet)) + Arrays.hashCode(shots);
+    }
+
+    @Override
+    public String toString() {
+        return "GameRecord{seed=" + seed + (salvo ? ", SALVO" : "") + ", shots=" + shots.length +
+               ", outcome=" + outcome + ", opponent=" + (opponent != null ? opponent : "HUMAN") + "}";
+    }
+}
@@ -0,0 +1,123 @@
+package com.juegos.battleship;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codificación binaria versionada de {@link GameRecord}.
+ *
+ * Formato de la versión 2 (big-endian, 27 bytes más uno por disparo):
+ * <pre>
+ *   byte   versión
+ *   byte   rival (0 humano, 1.. estrategia de la IA según OPPONENTS, 0xFF otra)
+ *   byte   resultado (GameRecord.OUTCOME_*)
+ *   byte   reglas (RULES_CLASSIC o RULES_SALVO)
+ *   int    final de la partida en segundos desde 1970
+ *   long   semilla de la partida
+ *   byte[] flota del primer jugador y del segundo, un byte por barco (celda | 0x80 horizontal)
+ *   byte   número de disparos, seguido de un byte por disparo (celda | 0x80 impacto)
+ * </pre>
+ * La versión 1 no tenía el byte de reglas (todas sus partidas son clásicas) y
+ * se sigue leyendo.
+ */
+public final class GameRecordCodec {
+
+    public static final byte VERSION = 2;
+    static final byte VERSION_1 = 1;
+
+    // Reglas de la partida
+    public static final byte RULES_CLASSIC = 0;
+    public static final byte RULES_SALVO = 1;
+
+    /** Rivales codificables; el índice es el código guardado. No reordenar. */
+    static final String[] OPPONENTS = {
+        null,
+        AttackStrategies.CLASSIC,
+        AttackStrategies.RANDOM,
+        AttackStrategies.PARITY,
+        AttackStrategies.DENSITY,
+        AttackStrategies.MONTE_CARLO,
+        AttackStrategies.ENDGAME
+    };
+
+    private static final int OTHER_OPPONENT = 0xFF;
+
+    // Posiciones de los campos dentro de un registro codificado, para recorrerlos sin decodificar
+    static final int OPPONENT_OFFSET = 1;
+    static final int OUTCOME_OFFSET = 2;
+    static final int RULES_OFFSET = 3;
+    static final int FLEET_OFFSET = 16;
+    static final int SHOT_COUNT_OFFSET = FLEET_OFFSET + 2 * GameRecord.SHIPS;
+    static final int FIXED_SIZE = SHOT_COUNT_OFFSET + 1;
+
+    /**
+     * Desplazamiento de los campos que siguen a las reglas en un registro de una
+     * versión dada respecto a las posiciones de la versión actual.
+     * @param version Versión del registro
+     * @return -1 para la versión 1, que no tenía el byte de reglas; 0 en otro caso
+     */
+    static int fieldShift(int version) {
+        return version == VERSION_1 ? -1 : 0;
+    }
+
+    private GameRecordCodec() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Escribe un registro.
+     * @param record Registro de la partida
+     * @param out Destino
+     * @throws IOException Si falla la escritura
+     */
+    public static void write(GameRecord record, DataOutput out) throws IOException {
+        out.writeByte(VERSION);
+        out.writeByte(encodeOpponent(record.getOpponent()));
+        out.writeByte(record.getOutcome());
+        out.writeByte(record.isSalvo() ? RULES_SALVO : RULES_CLASSIC);
+        out.writeInt((int) (record.getEndedAt() / 1000));
+        out.writeLong(record.getSeed());
+        out.write(record.getFleetBytes());
+        out.writeByte(record.getShotCount());
+        out.write(record.getShotBytes());
+    }
+
+    /**
+     * Lee un registro escrito con {@link #write(GameRecord, DataOutput)}.
+     * @param in Origen
+     * @return Registro leído
+     * @throws IOException Si falla la lectura o la versión no se reconoce
+     */
+    public static GameRecord read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("Versión de registro de partida no soportada: " + version);
+        }
+
+        int opponent = in.readUnsignedByte();
+        byte outcome = in.readByte();
+        boolean salvo = version != VERSION_1 && in.readByte() == RULES_SALVO;
+        long endedAt = (in.readInt() & 0xFFFFFFFFL) * 1000;
+        long seed = in.readLong();
+        byte[] fleet = new byte[2 * GameRecord.SHIPS];
+        in.readFully(fleet);
+        byte[] shots = new byte[in.readUnsignedByte()];
+        in.readFully(shots);
+
+        return new GameRecord(seed, fleet, shots, outcome, salvo,
+                              opponent < OPPONENTS.length ? OPPONENTS[opponent] : "OTHER", endedAt);
+    }
+
+    private static int encodeOpponent(String opponent) {
+        if (opponent == null) {
+            return 0;
+        }
+        for (int i = 1; i < OPPONENTS.length; i++) {
+            if (OPPONENTS[i].equals(opponent)) {
+                return i;
+            }
+        }
+        return OTHER_OPPONENT;
+    }
+}
@@ -0,0 +1,223 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+import com.juegos.common.Player;
+
+import java.util.SplittableRandom;
+
+/**
+ * Batalla Naval a gran escala: dos tableros dispersos de hasta
+ * {@link GameConstants#MEGA_BOARD_MAX_SIZE} de lado con miles de barcos.
+ *
+ * Las flotas se colocan al azar con la semilla de la partida al crearla (no hay
+ * fase de configuración) y la batalla sigue las reglas clásicas: un disparo por
+ * turno y quien acierta vuelve a disparar.
+ */
+public class MegaBattleshipGame {
+
+    private final SparseBoard playerBoard;    // Tablero del primer jugador
+    private final SparseBoard opponentBoard;  // Tablero del segundo jugador
+    private final long seed;
+    private Player player1;
+    private Player player2;
+    private Player currentPlayer;
+
+    private boolean gameEnded;
+    private String winner;
+    private int totalTurns;
+
+    private int lastShotRow;
+    private int lastShotCol;
+    private String lastShotResult;
+
+    /**
+     * Constructor de la partida.
+     * @param seed Semilla de la partida
+     * @param size Lado de los tableros
+     * @param ships Barcos de cada flota
+     * @throws IllegalArgumentException Si el tamaño o la flota no son válidos
+     */
+    public MegaBattleshipGame(long seed, int size, int ships) {
+        String error = validate(size, ships);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+        this.playerBoard = new SparseBoard(size);
+        this.opponentBoard = new SparseBoard(size);
+        if (!playerBoard.placeRandomFleet(ships, random.split()) ||
+            !opponentBoard.placeRandomFleet(ships, random.split())) {
+            throw new IllegalArgumentException("No se pudo colocar la flota");
+        }
+    }
+
+    /**
+     * Comprueba si un tamaño de tablero y una flota son válidos, sin crear la partida.
+     * @param size Lado de los tableros
+     * @param ships Barcos de cada flota
+     * @return Motivo del rechazo o null si son válidos
+     */
+    public static String validate(int size, int ships) {
+        if (size < GameConstants.BATTLESHIP_BOARD_SIZE || size > GameConstants.MEGA_BOARD_MAX_SIZE) {
+            return "Tamaño de tablero fuera de rango: " + size;
+        }
+        if (ships < 1 || ships > GameConstants.MEGA_MAX_SHIPS) {
+            return "Número de barcos fuera de rango: " + ships;
+        }
+        long fleetCells = (long) ships * fleetCellsPerShip();
+        if (fleetCells * GameConstants.MEGA_MAX_FLEET_DENSITY > (long) size * size) {
+            return "Demasiados barcos para un tablero de " + size + "x" + size;
+        }
+        return null;
+    }
+
+    /**
+     * Celdas medias por barco de la flota estándar, redondeadas hacia arriba.
+     */
+    private static int fleetCellsPerShip() {
+        int total = 0;
+        for (int size : GameConstants.SHIP_SIZES) {
+            total += size;
+        }
+        return (total + GameConstants.SHIP_SIZES.length - 1) / GameConstants.SHIP_SIZES.length;
+    }
+
+    /**
+     * Número de barcos por defecto para un tablero: uno por cada
+     * {@link GameConstants#MEGA_CELLS_PER_SHIP} celdas, como mínimo la flota estándar.
+     * @param size Lado del tablero
+     * @return Barcos de cada flota
+     */
+    public static int defaultShips(int size) {
+        long ships = (long) size * size / GameConstants.MEGA_CELLS_PER_SHIP;
+        return (int) Math.max(GameConstants.SHIP_SIZES.length, Math.min(GameConstants.MEGA_MAX_SHIPS, ships));
+    }
+
+    /**
+     * Configura los jugadores de la partida.
+     * @param player1 Primer jugador (empieza disparando)
+     * @param player2 Segundo jugador
+     */
+    public void setPlayers(Player player1, Player player2) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.currentPlayer = player1;
+    }
+
+    /**
+     * Procesa un disparo.
+     * @param playerId ID del jugador
+     * @param moveData Datos del movimiento (formato: "SHOOT:fila:columna")
+     * @return true si el disparo es válido
+     */
+    public boolean makeMove(String playerId, String moveData) {
+        if (gameEnded || currentPlayer == null || !currentPlayer.getId().equals(playerId) ||
+            !moveData.startsWith("SHOOT:")) {
+            return false;
+        }
+        String[] parts = moveData.split(":");
+        if (parts.length != 3) {
+            return false;
+        }
+        int row;
+        int col;
+        try {
+            row = Integer.parseInt(parts[1].trim());
+            col = Integer.parseInt(parts[2].trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        SparseBoard target = currentPlayer == player1 ? opponentBoard : playerBoard;
+        String result = target.receiveShot(row, col);
+        if ("INVALID".equals(result)) {
+            return false;
+        }
+
+        totalTurns++;
+        lastShotRow = row;
+        lastShotCol = col;
+        lastShotResult = result;
+
+        if (target.allShipsSunk()) {
+            endGame(playerId);
+        } else if ("MISS".equals(result)) {
+            currentPlayer = currentPlayer == player1 ? player2 : player1;
+        }
+        return true;
+    }
+
+    private void endGame(String winnerId) {
+        gameEnded = true;
+        winner = winnerId;
+        if (player1.getId().equals(winnerId)) {
+            player1.incrementWins();
+            player2.incrementLosses();
+        } else {
+            player2.incrementWins();
+            player1.incrementLosses();
+        }
+    }
+
+    /**
+     * Verifica si el juego terminó.
+     * @return Resultado ("WIN:id") o null si continúa
+     */
+    public String checkGameEnd() {
+        return gameEnded ? GameConstants.RESULT_WIN + ":" + winner : null;
+    }
+
+    /**
+     * Obtiene el tablero de un jugador.
+     * @param playerId ID del jugador
+     * @return Tablero propio o null si no juega en la partida
+     */
+    public SparseBoard getPlayerBoard(String playerId) {
+        if (player1 != null && player1.getId().equals(playerId)) {
+            return playerBoard;
+        }
+        return player2 != null && player2.getId().equals(playerId) ? opponentBoard : null;
+    }
+
+    public Player getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public Player getPlayer1() {
+        return player1;
+    }
+
+    public Player getPlayer2() {
+        return player2;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getBoardSize() {
+        return playerBoard.getSize();
+    }
+
+    public int getTotalTurns() {
+        return totalTurns;
+    }
+
+    public int getLastShotRow() {
+        return lastShotRow;
+    }
+
+    public int getLastShotCol() {
+        return lastShotCol;
+    }
+
+    public String getLastShotResult() {
+        return lastShotResult;
+    }
+
+    public boolean isGameEnded() {
+        return gameEnded;
+    }
+}
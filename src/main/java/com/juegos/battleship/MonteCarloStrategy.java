@@ -0,0 +1,138 @@
+package com.juegos.battleship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Estrategia Monte Carlo: genera flotas completas al azar compatibles con lo que
+ * sabe la IA (sin tocar agua ni barcos hundidos y cubriendo todos los impactos
+ * sin resolver) y ataca la celda ocupada en más muestras.
+ * Si no consigue ninguna muestra válida, recurre a la densidad de probabilidad.
+ */
+public class MonteCarloStrategy implements AttackStrategy {
+
+    private static final int DEFAULT_SAMPLES = 300;
+    private static final int PLACEMENT_ATTEMPTS = 40;
+
+    private final int samples;
+
+    /**
+     * Constructor con el número de muestras por defecto.
+     */
+    public MonteCarloStrategy() {
+        this(DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Constructor con número de muestras específico.
+     * @param samples Flotas generadas por decisión
+     */
+    public MonteCarloStrategy(int samples) {
+        this.samples = samples;
+    }
+
+    @Override
+    public String getName() {
+        return AttackStrategies.MONTE_CARLO;
+    }
+
+    @Override
+    public int selectTarget(AttackContext context) {
+        int cells = context.getCellCount();
+        long[] counts = new long[cells];
+        boolean[] occupied = new boolean[cells];
+        int accepted = 0;
+
+        for (int sample = 0; sample < samples; sample++) {
+            Arrays.fill(occupied, false);
+            if (sampleFleet(context, occupied) && coversAllHits(context, occupied)) {
+                accepted++;
+                for (int cell = 0; cell < cells; cell++) {
+                    if (occupied[cell]) {
+                        counts[cell]++;
+                    }
+                }
+            }
+        }
+
+        if (accepted == 0) {
+            return StrategySupport.pickBest(context, ProbabilityDensityStrategy.computeDensity(context));
+        }
+        return StrategySupport.pickBest(context, counts);
+    }
+
+    /**
+     * Coloca al azar todos los barcos a flote. Mientras queden impactos sin cubrir,
+     * cada barco se ancla a uno de ellos.
+     * @return true si se pudieron colocar todos los barcos
+     */
+    private boolean sampleFleet(AttackContext context, boolean[] occupied) {
+        SplittableRandom random = context.getRandom();
+        int boardSize = context.getBoardSize();
+
+        for (int ship = 0; ship < context.getRemainingShipCount(); ship++) {
+            int size = context.getRemainingShipSize(ship);
+            int anchor = findUncoveredHit(context, occupied, random);
+            boolean placed = false;
+
+            for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS && !placed; attempt++) {
+                boolean horizontal = random.nextBoolean();
+                int row;
+                int col;
+                if (anchor != -1) {
+                    int offset = random.nextInt(size);
+                    row = anchor / boardSize - (horizontal ? 0 : offset);
+                    col = anchor % boardSize - (horizontal ? offset : 0);
+                    if (row < 0 || col < 0) {
+                        continue;
+                    }
+                } else {
+                    row = random.nextInt(boardSize);
+                    col = random.nextInt(boardSize);
+                }
+
+                if (StrategySupport.fits(context, row, col, size, horizontal) &&
+                    isFree(occupied, boardSize, row, col, size, horizontal)) {
+                    for (int i = 0; i < size; i++) {
+                        occupied[StrategySupport.cellOf(boardSize, row, col, i, horizontal)] = true;
+                    }
+                    placed = true;
+                }
+            }
+
+            if (!placed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFree(boolean[] occupied, int boardSize, int row, int col, int size, boolean horizontal) {
+        for (int i = 0; i < size; i++) {
+            if (occupied[StrategySupport.cellOf(boardSize, row, col, i, horizontal)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int findUncoveredHit(AttackContext context, boolean[] occupied, SplittableRandom random) {
+        int chosen = -1;
+        int seen = 0;
+        for (int cell = 0; cell < occupied.length; cell++) {
+            if (context.getCell(cell) == AttackContext.HIT && !occupied[cell] && random.nextInt(++seen) == 0) {
+                chosen = cell;
+            }
+        }
+        return chosen;
+    }
+
+    private static boolean coversAllHits(AttackContext context, boolean[] occupied) {
+        for (int cell = 0; cell < occupied.length; cell++) {
+            if (context.getCell(cell) == AttackContext.HIT && !occupied[cell]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,299 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Libro de aperturas precalculado para la IA de Batalla Naval.
+ * Contiene la secuencia de primeros disparos sobre un tablero enemigo vacío
+ * y el mapa de probabilidad de cada jugada, asumiendo que todos los disparos
+ * anteriores del libro fueron agua.
+ *
+ * Formato binario (big-endian):
+ * <pre>
+ *   int    MAGIC ("BSOB")
+ *   short  VERSION
+ *   byte   tamaño del tablero
+ *   byte   número de barcos, seguido de un byte por tamaño de barco
+ *   short  número de jugadas (plies)
+ *   byte[] jugadas (índice de celda row * size + col)
+ *   char[] mapas de probabilidad, plies * size * size valores escalados a 0..65535
+ * </pre>
+ *
+ * El servidor mapea el fichero en memoria al iniciar y la IA lee directamente
+ * del buffer mapeado, sin copiar su contenido. La IA no repite siempre la misma
+ * secuencia: juega la línea guardada vista con una de las ocho simetrías del
+ * tablero ({@link #getMove(int, int)}).
+ */
+public final class OpeningBook {
+
+    public static final int MAGIC = 0x42534F42; // "BSOB"
+    public static final short VERSION = 1;
+
+    private static final int DEFAULT_PLIES = 12;
+    public static final int SYMMETRIES = 8;      // Giros y reflejos del tablero
+
+    private static volatile OpeningBook shared;  // Libro compartido por todas las IAs
+
+    private final ByteBuffer buffer;   // Contenido del libro (normalmente mapeado)
+    private final int boardSize;
+    private final int plies;
+    private final int movesOffset;
+    private final int mapsOffset;
+
+    /**
+     * Construye el libro sobre un buffer ya validado.
+     * @param buffer Buffer con el contenido del fichero
+     */
+    private OpeningBook(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Formato de libro de aperturas no reconocido");
+        }
+
+        this.boardSize = buffer.get(6) & 0xFF;
+        int fleetCount = buffer.get(7) & 0xFF;
+        int[] fleet = new int[fleetCount];
+        for (int i = 0; i < fleetCount; i++) {
+            fleet[i] = buffer.get(8 + i) & 0xFF;
+        }
+
+        if (boardSize != GameConstants.BATTLESHIP_BOARD_SIZE ||
+            !Arrays.equals(fleet, GameConstants.SHIP_SIZES)) {
+            throw new IllegalArgumentException("El libro de aperturas no corresponde a la flota estándar");
+        }
+
+        this.plies = buffer.getShort(8 + fleetCount) & 0xFFFF;
+        this.movesOffset = 10 + fleetCount;
+        this.mapsOffset = movesOffset + plies;
+
+        int expected = mapsOffset + plies * boardSize * boardSize * 2;
+        if (buffer.limit() < expected) {
+            throw new IllegalArgumentException("Libro de aperturas truncado");
+        }
+    }
+
+    /**
+     * Mapea en memoria un fichero de libro de aperturas.
+     * @param file Ruta del fichero
+     * @return Libro de aperturas
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static OpeningBook map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(mapped);
+        }
+    }
+
+    /**
+     * Carga el libro compartido que usarán las IAs creadas a partir de ahora.
+     * @param file Ruta del fichero
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static void loadShared(Path file) throws IOException {
+        shared = map(file);
+    }
+
+    /**
+     * Obtiene el libro compartido.
+     * @return Libro cargado o null si no hay ninguno
+     */
+    public static OpeningBook getShared() {
+        return shared;
+    }
+
+    /**
+     * Obtiene el número de jugadas del libro.
+     * @return Número de jugadas
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * Obtiene la fila de la jugada indicada.
+     * @param ply Número de jugada (0 = primer disparo)
+     * @return Fila del disparo
+     */
+    public int getMoveRow(int ply) {
+        return (buffer.get(movesOffset + ply) & 0xFF) / boardSize;
+    }
+
+    /**
+     * Obtiene la columna de la jugada indicada.
+     * @param ply Número de jugada (0 = primer disparo)
+     * @return Columna del disparo
+     */
+    public int getMoveCol(int ply) {
+        return (buffer.get(movesOffset + ply) & 0xFF) % boardSize;
+    }
+
+    /**
+     * Obtiene la probabilidad relativa de que una celda contenga un barco
+     * antes de la jugada indicada.
+     * @param ply Número de jugada
+     * @param row Fila
+     * @param col Columna
+     * @return Probabilidad relativa entre 0 y 1 (1 = celda más probable)
+     */
+    public double getProbability(int ply, int row, int col) {
+        int index = (ply * boardSize + row) * boardSize + col;
+        return buffer.getChar(mapsOffset + index * 2) / 65535.0;
+    }
+
+    /**
+     * Obtiene la jugada del libro vista con una simetría del tablero (giros y
+     * reflejos). La densidad de colocaciones no cambia con ellas, así que la línea
+     * transformada es tan buena como la guardada y sus mapas siguen valiendo.
+     * @param ply Número de jugada
+     * @param symmetry Simetría entre 0 y SYMMETRIES - 1 (0 = la línea guardada)
+     * @return Índice de la celda (row * size + col)
+     */
+    public int getMove(int ply, int symmetry) {
+        int last = boardSize - 1;
+        int row = getMoveRow(ply);
+        int col = getMoveCol(ply);
+        if ((symmetry & 1) != 0) {
+            col = last - col;
+        }
+        if ((symmetry & 2) != 0) {
+            row = last - row;
+        }
+        if ((symmetry & 4) != 0) {
+            int swap = row;
+            row = col;
+            col = swap;
+        }
+        return row * boardSize + col;
+    }
+
+    /**
+     * Genera el contenido del libro para una flota y un tamaño de tablero.
+     * Cada jugada se elige como la celda con mayor densidad de colocaciones
+     * posibles, suponiendo que los disparos anteriores fueron agua.
+     * @param shipSizes Tamaños de los barcos
+     * @param boardSize Tamaño del tablero
+     * @param plies Número de jugadas a generar (como mucho una por celda)
+     * @return Bytes del fichero
+     */
+    public static byte[] generate(int[] shipSizes, int boardSize, int plies) {
+        int cells = boardSize * boardSize;
+        plies = Math.max(0, Math.min(plies, cells));
+        ByteBuffer out = ByteBuffer.allocate(10 + shipSizes.length + plies + plies * cells * 2);
+
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.put((byte) boardSize);
+        out.put((byte) shipSizes.length);
+        for (int size : shipSizes) {
+            out.put((byte) size);
+        }
+        out.putShort((short) plies);
+
+        boolean[] misses = new boolean[cells];
+        int[][] densities = new int[plies][];
+
+        for (int ply = 0; ply < plies; ply++) {
+            int[] density = computeDensity(shipSizes, boardSize, misses);
+            densities[ply] = density;
+
+            int best = -1;
+            for (int cell = 0; cell < cells; cell++) {
+                if (misses[cell]) continue;
+                // En caso de empate, preferir el patrón de tablero de ajedrez
+                if (best == -1 || density[cell] > density[best] ||
+                    (density[cell] == density[best] && isParityCell(cell, boardSize) && !isParityCell(best, boardSize))) {
+                    best = cell;
+                }
+            }
+
+            out.put((byte) best);
+            misses[best] = true;
+        }
+
+        for (int ply = 0; ply < plies; ply++) {
+            int max = 1;
+            for (int value : densities[ply]) {
+                max = Math.max(max, value);
+            }
+            for (int value : densities[ply]) {
+                out.putChar((char) ((long) value * 65535 / max));
+            }
+        }
+
+        return out.array();
+    }
+
+    /**
+     * Cuenta, para cada celda, cuántas colocaciones de barco la cubren sin tocar agua conocida.
+     * @param shipSizes Tamaños de los barcos
+     * @param boardSize Tamaño del tablero
+     * @param misses Celdas conocidas como agua
+     * @return Densidad por celda
+     */
+    private static int[] computeDensity(int[] shipSizes, int boardSize, boolean[] misses) {
+        int[] density = new int[boardSize * boardSize];
+
+        for (int size : shipSizes) {
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    addPlacement(density, misses, boardSize, row, col, size, true);
+                    addPlacement(density, misses, boardSize, row, col, size, false);
+                }
+            }
+        }
+
+        return density;
+    }
+
+    private static void addPlacement(int[] density, boolean[] misses, int boardSize,
+                                     int row, int col, int size, boolean horizontal) {
+        if ((horizontal ? col : row) + size > boardSize) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = horizontal ? row * boardSize + col + i : (row + i) * boardSize + col;
+            if (misses[cell]) return;
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = horizontal ? row * boardSize + col + i : (row + i) * boardSize + col;
+            density[cell]++;
+        }
+    }
+
+    private static boolean isParityCell(int cell, int boardSize) {
+        return (cell / boardSize + cell % boardSize) % 2 == 0;
+    }
+
+    /**
+     * Generador offline del libro de aperturas.
+     * Uso: OpeningBook [fichero] [jugadas]
+     * @param args Argumentos de línea de comandos
+     * @throws IOException Si no se puede escribir el fichero
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : GameConstants.OPENING_BOOK_FILE);
+        int cells = GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE;
+        int plies = Math.min(cells, args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PLIES);
+
+        byte[] content = generate(GameConstants.SHIP_SIZES, GameConstants.BATTLESHIP_BOARD_SIZE, plies);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, content);
+
+        System.out.println("Libro de aperturas generado: " + file + " (" + plies + " jugadas, " +
+                           content.length + " bytes)");
+    }
+}
@@ -0,0 +1,28 @@
+package com.juegos.battleship;
+
+/**
+ * Estrategia de paridad: remata los impactos sin resolver disparando a celdas
+ * adyacentes y, mientras busca, sólo dispara a las celdas de una retícula cuyo
+ * paso es el tamaño del barco más pequeño a flote.
+ */
+public class ParityStrategy implements AttackStrategy {
+
+    @Override
+    public String getName() {
+        return AttackStrategies.PARITY;
+    }
+
+    @Override
+    public int selectTarget(AttackContext context) {
+        int target = StrategySupport.pickAdjacentToHit(context);
+        if (target != -1) {
+            return target;
+        }
+
+        target = StrategySupport.pickRandom(context, context.getSmallestRemainingShip());
+        if (target != -1) {
+            return target;
+        }
+        return StrategySupport.pickRandom(context, 1);
+    }
+}
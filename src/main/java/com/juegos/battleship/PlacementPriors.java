@@ -0,0 +1,224 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Priors de colocación de flotas humanas para la IA de Batalla Naval.
+ * Se leen del fichero que genera {@link GameAnalytics} a partir del archivo de partidas.
+ *
+ * Los jugadores reales no colocan los barcos al azar: tienden a los bordes y
+ * evitan el centro. Al cargar el fichero se calcula, para cada celda, cuánto
+ * más (o menos) ocupan los humanos esa celda que una colocación uniforme, y la
+ * IA multiplica su mapa de búsqueda por ese peso. Los pesos se calculan una
+ * sola vez por fichero, así que aplicarlos no añade trabajo por jugada.
+ *
+ * El fichero se mapea en memoria. {@link #reloadShared()} lo vuelve a mapear si
+ * ha cambiado y sustituye la referencia compartida de una vez; las IAs en curso
+ * conservan los priors con los que empezaron.
+ */
+public final class PlacementPriors {
+
+    /** Peso neutro en punto fijo: una celda tan ocupada como con colocación uniforme. */
+    public static final int ONE = 256;
+    public static final int MIN_WEIGHT = ONE / 4;
+    public static final int MAX_WEIGHT = ONE * 4;
+    /** Partidas necesarias para que los priors se tengan en cuenta. */
+    public static final long MIN_GAMES = 50;
+
+    private static volatile PlacementPriors shared;  // Priors compartidos por las IAs nuevas
+    private static volatile Path sharedFile;
+    private static volatile FileTime sharedModified;
+    private static volatile Object sharedKey;        // Identidad del fichero (cambia al reemplazarlo)
+
+    private final ByteBuffer buffer;   // Contenido del fichero (normalmente mapeado)
+    private final int boardSize;
+    private final long games;
+    private final int placementOffset;
+    private final int firstShotOffset;
+    private final int[] weights;       // Peso de cada celda en punto fijo (ONE = neutro)
+
+    /**
+     * Construye los priors sobre un buffer y calcula los pesos.
+     * @param buffer Buffer con el contenido del fichero
+     */
+    private PlacementPriors(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.limit() < 8 || buffer.getInt(0) != GameAnalytics.MAGIC ||
+            buffer.getShort(4) != GameAnalytics.VERSION) {
+            throw new IllegalArgumentException("Formato de priors no reconocido");
+        }
+
+        this.boardSize = buffer.get(6) & 0xFF;
+        int fleetCount = buffer.get(7) & 0xFF;
+        int[] fleet = new int[fleetCount];
+        for (int i = 0; i < fleetCount; i++) {
+            fleet[i] = buffer.get(8 + i) & 0xFF;
+        }
+        if (boardSize != GameConstants.BATTLESHIP_BOARD_SIZE ||
+            !Arrays.equals(fleet, GameConstants.SHIP_SIZES)) {
+            throw new IllegalArgumentException("Los priors no corresponden a la flota estándar");
+        }
+
+        int cells = boardSize * boardSize;
+        this.games = buffer.getLong(8 + fleetCount);
+        this.placementOffset = 16 + fleetCount;
+        this.firstShotOffset = placementOffset + cells * 2;
+        if (buffer.limit() < firstShotOffset + cells * 2) {
+            throw new IllegalArgumentException("Fichero de priors truncado");
+        }
+
+        this.weights = computeWeights(fleet, cells);
+    }
+
+    /**
+     * Compara la ocupación humana de cada celda con la de una colocación uniforme.
+     * Ambas se normalizan por su media, así que sólo importa la forma del mapa.
+     */
+    private int[] computeWeights(int[] fleet, int cells) {
+        int[] result = new int[cells];
+        Arrays.fill(result, ONE);
+        if (games < MIN_GAMES) {
+            return result;
+        }
+
+        long[] uniform = new long[cells];
+        for (int size : fleet) {
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    for (int i = 0; col + size <= boardSize && i < size; i++) {
+                        uniform[row * boardSize + col + i]++;
+                    }
+                    for (int i = 0; row + size <= boardSize && i < size; i++) {
+                        uniform[(row + i) * boardSize + col]++;
+                    }
+                }
+            }
+        }
+
+        double humanTotal = 0;
+        double uniformTotal = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            humanTotal += buffer.getChar(placementOffset + cell * 2);
+            uniformTotal += uniform[cell];
+        }
+        if (humanTotal == 0) {
+            return result;
+        }
+
+        for (int cell = 0; cell < cells; cell++) {
+            double human = buffer.getChar(placementOffset + cell * 2) / humanTotal;
+            double expected = uniform[cell] / uniformTotal;
+            long weight = Math.round(ONE * human / expected);
+            result[cell] = (int) Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, weight));
+        }
+        return result;
+    }
+
+    /**
+     * Mapea en memoria un fichero de priors.
+     * @param file Ruta del fichero
+     * @return Priors cargados
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static PlacementPriors map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PlacementPriors(mapped);
+        }
+    }
+
+    /**
+     * Carga los priors compartidos que usarán las IAs creadas a partir de ahora.
+     * Si el fichero aún no existe no se carga nada, pero {@link #reloadShared()}
+     * lo cargará en cuanto aparezca.
+     * @param file Ruta del fichero
+     * @return true si se cargaron los priors
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static synchronized boolean loadShared(Path file) throws IOException {
+        sharedFile = file;
+        sharedModified = null;
+        sharedKey = null;
+        return reloadShared();
+    }
+
+    /**
+     * Vuelve a cargar los priors compartidos si el fichero ha cambiado desde la última carga.
+     * Si el fichero nuevo no es válido se conservan los priors anteriores.
+     * @return true si se cargaron priors nuevos
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static synchronized boolean reloadShared() throws IOException {
+        Path file = sharedFile;
+        if (file == null || !Files.exists(file)) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.lastModifiedTime().equals(sharedModified) && Objects.equals(attributes.fileKey(), sharedKey)) {
+            return false;
+        }
+        // Un fichero no válido no se vuelve a intentar hasta que cambie
+        sharedModified = attributes.lastModifiedTime();
+        sharedKey = attributes.fileKey();
+        shared = map(file);
+        return true;
+    }
+
+    /**
+     * Obtiene los priors compartidos.
+     * @return Priors cargados o null si no hay ninguno
+     */
+    public static PlacementPriors getShared() {
+        return shared;
+    }
+
+    /**
+     * Obtiene el número de partidas de las que salen los priors.
+     * @return Número de partidas
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Obtiene el peso de una celda para el mapa de búsqueda de la IA.
+     * @param cell Índice de celda
+     * @return Peso en punto fijo (ONE = neutro)
+     */
+    public int getWeight(int cell) {
+        return weights[cell];
+    }
+
+    /**
+     * Obtiene la ocupación relativa de una celda por barcos humanos.
+     * @param row Fila
+     * @param col Columna
+     * @return Valor entre 0 y 1 (1 = celda más ocupada)
+     */
+    public double getPlacementPrior(int row, int col) {
+        return buffer.getChar(placementOffset + (row * boardSize + col) * 2) / 65535.0;
+    }
+
+    /**
+     * Obtiene la frecuencia relativa del primer disparo humano en una celda.
+     * @param row Fila
+     * @param col Columna
+     * @return Valor entre 0 y 1 (1 = celda más elegida)
+     */
+    public double getFirstShotPrior(int row, int col) {
+        return buffer.getChar(firstShotOffset + (row * boardSize + col) * 2) / 65535.0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.juegos.battleship;
+
+/**
+ * Estrategia de densidad de probabilidad: para cada barco a flote cuenta las
+ * colocaciones compatibles con los disparos conocidos y ataca la celda cubierta
+ * por más colocaciones. Las colocaciones que pasan por impactos sin resolver
+ * pesan mucho más, lo que hace que la estrategia remate barcos tocados.
+ */
+public class ProbabilityDensityStrategy implements AttackStrategy {
+
+    private static final long HIT_WEIGHT = 20; // Peso extra por impacto cubierto
+
+    @Override
+    public String getName() {
+        return AttackStrategies.DENSITY;
+    }
+
+    @Override
+    public int selectTarget(AttackContext context) {
+        return StrategySupport.pickBest(context, computeDensity(context));
+    }
+
+    /**
+     * Calcula la densidad de colocaciones de todos los barcos a flote.
+     * @param context Contexto de ataque
+     * @return Peso de cada celda
+     */
+    static long[] computeDensity(AttackContext context) {
+        int boardSize = context.getBoardSize();
+        long[] density = new long[context.getCellCount()];
+
+        for (int ship = 0; ship < context.getRemainingShipCount(); ship++) {
+            int size = context.getRemainingShipSize(ship);
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    addPlacement(context, density, row, col, size, true);
+                    addPlacement(context, density, row, col, size, false);
+                }
+            }
+        }
+
+        return density;
+    }
+
+    private static void addPlacement(AttackContext context, long[] density,
+                                     int row, int col, int size, boolean horizontal) {
+        if (!StrategySupport.fits(context, row, col, size, horizontal)) {
+            return;
+        }
+
+        int boardSize = context.getBoardSize();
+        long weight = 1;
+        for (int i = 0; i < size; i++) {
+            if (context.getCell(StrategySupport.cellOf(boardSize, row, col, i, horizontal)) == AttackContext.HIT) {
+                weight *= HIT_WEIGHT;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            density[StrategySupport.cellOf(boardSize, row, col, i, horizontal)] += weight;
+        }
+    }
+}
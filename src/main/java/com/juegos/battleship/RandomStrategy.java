@@ -0,0 +1,18 @@
+package com.juegos.battleship;
+
+/**
+ * Estrategia aleatoria: dispara a cualquier celda sin atacar.
+ * Es la más barata y la más débil; sirve como nivel de dificultad mínimo.
+ */
+public class RandomStrategy implements AttackStrategy {
+
+    @Override
+    public String getName() {
+        return AttackStrategies.RANDOM;
+    }
+
+    @Override
+    public int selectTarget(AttackContext context) {
+        return StrategySupport.pickRandom(context, 1);
+    }
+}
@@ -0,0 +1,331 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+import com.juegos.common.Player;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Motor de repetición de partidas grabadas, sin servidor ni interfaz.
+ * Reconstruye cada partida pasando sus disparos por {@link BattleshipGame#makeMove},
+ * de modo que cualquier cambio en las reglas del motor se refleja en la repetición.
+ * Las partidas Salvo se repiten andanada a andanada.
+ *
+ * Sirve para avanzar una partida hasta un turno concreto, para comprobar que el
+ * motor sigue dando los mismos resultados que cuando se grabó la partida y para
+ * recalcular estadísticas sobre muchas partidas en paralelo.
+ */
+public final class ReplayEngine {
+
+    public static final String PLAYER_1 = "REPLAY_1";
+    public static final String PLAYER_2 = "REPLAY_2";
+
+    private ReplayEngine() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Repite una partida completa.
+     * @param record Registro de la partida
+     * @return Partida en su estado final
+     */
+    public static BattleshipGame replay(GameRecord record) {
+        return replay(record, record.getShotCount());
+    }
+
+    /**
+     * Avanza una partida hasta el disparo indicado. En Salvo se aplican sólo
+     * andanadas completas, así que puede quedarse antes de ese disparo.
+     * @param record Registro de la partida
+     * @param shots Número de disparos a aplicar (0 = justo tras colocar las flotas)
+     * @return Partida tras esos disparos
+     * @throws IllegalStateException Si el motor rechaza algún disparo del registro
+     */
+    public static BattleshipGame replay(GameRecord record, int shots) {
+        BattleshipGame game = setUp(record);
+        int limit = Math.min(shots, record.getShotCount());
+        for (int i = 0; i < limit && turnSize(game) <= limit - i; ) {
+            int applied = step(game, record, i);
+            if (applied == 0) {
+                throw new IllegalStateException("Disparo " + i + " rechazado al repetir " + record);
+            }
+            i += applied;
+        }
+        return game;
+    }
+
+    /**
+     * Comprueba que el motor actual reproduce la partida tal como se grabó:
+     * que acepta cada disparo y que el resultado (agua o impacto) coincide.
+     * @param record Registro de la partida
+     * @return Índice del primer disparo que diverge, o -1 si la repetición es idéntica
+     */
+    public static int verify(GameRecord record) {
+        BattleshipGame game = setUp(record);
+        for (int i = 0; i < record.getShotCount(); ) {
+            int applied = step(game, record, i);
+            if (applied == 0 || !matches(game, record, i)) {
+                return i;
+            }
+            i += applied;
+        }
+        return -1;
+    }
+
+    /**
+     * Repite muchas partidas en paralelo y acumula estadísticas generales.
+     * @param records Registros de las partidas
+     * @param visitor Recibe cada registro con su partida final (se llama desde varios hilos; puede ser null)
+     * @return Resumen de la repetición
+     */
+    public static Summary replayAll(Collection<GameRecord> records,
+                                    BiConsumer<GameRecord, BattleshipGame> visitor) {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+
+        records.parallelStream().forEach(record -> {
+            BattleshipGame game = setUp(record);
+            int diverged = -1;
+            for (int i = 0; i < record.getShotCount() && diverged < 0; ) {
+                int applied = step(game, record, i);
+                if (applied == 0 || !matches(game, record, i)) {
+                    diverged = i;
+                }
+                i += applied;
+            }
+            summary.record(record, game, diverged);
+            if (visitor != null) {
+                visitor.accept(record, game);
+            }
+        });
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Crea la partida del registro con las dos flotas colocadas y la batalla iniciada.
+     */
+    private static BattleshipGame setUp(GameRecord record) {
+        BattleshipGame game = new BattleshipGame(record.getSeed());
+        game.setPlayers(new Player(PLAYER_1, PLAYER_1), new Player(PLAYER_2, PLAYER_2));
+        game.setSalvo(record.isSalvo());
+
+        for (int ship = 0; ship < GameRecord.SHIPS; ship++) {
+            game.getPlayerBoard().placeShip(ship, record.getShipRow(0, ship), record.getShipCol(0, ship),
+                                            record.isShipHorizontal(0, ship));
+            game.getOpponentBoard().placeShip(ship, record.getShipRow(1, ship), record.getShipCol(1, ship),
+                                              record.isShipHorizontal(1, ship));
+        }
+        game.startBattlePhase();
+        return game;
+    }
+
+    /**
+     * Número de disparos del turno siguiente: uno en la partida clásica; en Salvo, uno por barco a flote de quien dispara (o por
+     * celda sin disparar del rival si quedan menos), como exige el motor.
+     */
+    private static int turnSize(BattleshipGame game) {
+        if (!game.isSalvo()) {
+            return 1;
+        }
+        boolean first = game.getCurrentPlayer() == game.getPlayer1();
+        Board own = first ? game.getPlayerBoard() : game.getOpponentBoard();
+        Board target = first ? game.getOpponentBoard() : game.getPlayerBoard();
+        return Math.min(own.getShipsRemaining(), target.getUnshotCount());
+    }
+
+    /**
+     * Aplica el turno del registro que empieza en el disparo indicado, con el
+     * jugador que tiene el turno: un disparo o una andanada completa.
+     * @return Disparos aplicados, o 0 si el motor rechaza el turno o el registro se corta a mitad
+     */
+    private static int step(BattleshipGame game, GameRecord record, int index) {
+        Player shooter = game.getCurrentPlayer();
+        if (shooter == null) {
+            return 0;
+        }
+        if (!game.isSalvo()) {
+            return game.makeMove(shooter.getId(),
+                "SHOOT:" + record.getShotRow(index) + ":" + record.getShotCol(index)) ? 1 : 0;
+        }
+
+        int count = turnSize(game);
+        if (count == 0 || index + count > record.getShotCount()) {
+            return 0;
+        }
+        StringBuilder move = new StringBuilder("SALVO:");
+        for (int i = index; i < index + count; i++) {
+            if (i > index) {
+                move.append(';');
+            }
+            move.append(record.getShotRow(i)).append(',').append(record.getShotCol(i));
+        }
+        return game.makeMove(shooter.getId(), move.toString()) ? count : 0;
+    }
+
+    /**
+     * Comprueba que el resultado del último turno aplicado (agua o impacto en cada
+     * disparo) coincide con el registro.
+     * @param index Primer disparo del turno en el registro
+     */
+    private static boolean matches(BattleshipGame game, GameRecord record, int index) {
+        if (!game.isSalvo()) {
+            return "MISS".equals(game.getLastShotResult()) != record.isHit(index);
+        }
+        String[] results = game.getLastSalvoResults();
+        for (int i = 0; i < results.length; i++) {
+            if ("MISS".equals(results[i]) == record.isHit(index + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estadísticas acumuladas de una repetición en paralelo.
+     */
+    public static final class Summary {
+        private final LongAdder games = new LongAdder();
+        private final LongAdder shots = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder diverged = new LongAdder();
+        private final LongAdder firstPlayerWins = new LongAdder();
+        private final LongAdder secondPlayerWins = new LongAdder();
+        private final LongAdder unfinished = new LongAdder();
+        private volatile long elapsedNanos;
+
+        private void record(GameRecord record, BattleshipGame game, int divergedAt) {
+            games.increment();
+            shots.add(record.getShotCount());
+            for (int i = 0; i < record.getShotCount(); i++) {
+                if (record.isHit(i)) {
+                    hits.increment();
+                }
+            }
+            if (divergedAt >= 0) {
+                diverged.increment();
+            } else if (PLAYER_1.equals(game.getWinner())) {
+                firstPlayerWins.increment();
+            } else if (PLAYER_2.equals(game.getWinner())) {
+                secondPlayerWins.increment();
+            } else {
+                unfinished.increment();
+            }
+        }
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        public long getShots() {
+            return shots.sum();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getDiverged() {
+            return diverged.sum();
+        }
+
+        public long getFirstPlayerWins() {
+            return firstPlayerWins.sum();
+        }
+
+        public long getSecondPlayerWins() {
+            return secondPlayerWins.sum();
+        }
+
+        public long getUnfinished() {
+            return unfinished.sum();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Obtiene el ritmo de repetición.
+         * @return Partidas por minuto
+         */
+        public double getGamesPerMinute() {
+            return elapsedNanos > 0 ? getGames() * 60e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Partidas: %d, disparos: %d (%.1f%% impactos), divergentes: %d, " +
+                                 "victorias J1/J2: %d/%d, sin terminar: %d, %.0f partidas/min",
+                                 getGames(), getShots(), getShots() > 0 ? 100.0 * getHits() / getShots() : 0,
+                                 getDiverged(), getFirstPlayerWins(), getSecondPlayerWins(), getUnfinished(),
+                                 getGamesPerMinute());
+        }
+    }
+
+    /**
+     * Repite y verifica un archivo de partidas, o partidas sintéticas si no se indica ninguno.
+     * Uso: ReplayEngine [archivo | número de partidas]
+     * @param args Argumentos de línea de comandos
+     * @throws IOException Si no se puede leer el fichero
+     */
+    public static void main(String[] args) throws IOException {
+        List<GameRecord> records = new ArrayList<>();
+
+        if (args.length > 0 && Files.isRegularFile(Paths.get(args[0]))) {
+            records = GameArchive.readAll(Paths.get(args[0]));
+        } else {
+            int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < count; i++) {
+                records.add(playRandomGame(random.nextLong()));
+            }
+        }
+
+        // Una pasada de calentamiento para que el JIT compile el motor
+        replayAll(records.subList(0, Math.min(records.size(), 10_000)), null);
+        System.out.println(replayAll(records, null));
+    }
+
+    /**
+     * Juega una partida con disparos al azar y devuelve su registro.
+     * @param seed Semilla de la partida
+     * @return Registro de la partida
+     */
+    static GameRecord playRandomGame(long seed) {
+        BattleshipGame game = new BattleshipGame(seed);
+        game.setPlayers(new Player(PLAYER_1, PLAYER_1), new Player(PLAYER_2, PLAYER_2));
+        game.getPlayerBoard().autoPlaceShips();
+        game.getOpponentBoard().autoPlaceShips();
+        game.startBattlePhase();
+
+        SplittableRandom random = game.splitRandom();
+        int cells = GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE;
+        int[][] order = new int[2][cells];
+        for (int[] cellsOrder : order) {
+            for (int cell = 0; cell < cells; cell++) {
+                int other = random.nextInt(cell + 1);
+                cellsOrder[cell] = cellsOrder[other];
+                cellsOrder[other] = cell;
+            }
+        }
+
+        int[] fired = new int[2];
+        while (game.isBattlePhase()) {
+            int player = PLAYER_1.equals(game.getCurrentPlayer().getId()) ? 0 : 1;
+            int cell = order[player][fired[player]++];
+            game.makeMove(game.getCurrentPlayer().getId(), "SHOOT:" + cell / GameConstants.BATTLESHIP_BOARD_SIZE +
+                          ":" + cell % GameConstants.BATTLESHIP_BOARD_SIZE);
+        }
+        return GameRecord.of(game);
+    }
+}
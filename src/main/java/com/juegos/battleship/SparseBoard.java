@@ -0,0 +1,270 @@
+package com.juegos.battleship;
+
+import com.juegos.common.GameConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Tablero disperso para la Batalla Naval a gran escala (modo MEGA_BATTLESHIP).
+ *
+ * A diferencia de {@link Board} no reserva una matriz del tamaño del tablero:
+ * sólo guarda las celdas ocupadas por barcos (celda → índice del barco) y las
+ * celdas que recibieron un disparo (celda → resultado), cada una en una tabla
+ * hash de claves long con direccionamiento abierto. La memoria crece con los
+ * barcos y los disparos, no con el área, así que un tablero de 10.000×10.000
+ * con miles de barcos ocupa lo mismo que uno pequeño con la misma flota.
+ */
+public class SparseBoard {
+
+    private static final int NO_VALUE = -1;
+    private static final int SHOT_MISS = 0;
+    private static final int SHOT_HIT = 1;
+    private static final int MAX_ATTEMPTS_PER_SHIP = 1000;
+
+    private final int size;
+    private final List<Ship> ships;      // Barcos en orden de colocación
+    private final CellMap shipCells;     // Celda → índice del barco que la ocupa
+    private final CellMap shots;         // Celda → resultado del disparo recibido
+    private int shipCellCount;
+    private int hitCount;
+    private int shipsSunk;
+
+    /**
+     * Tabla hash de celda (long) a entero con sondeo lineal, sin objetos por entrada.
+     */
+    private static final class CellMap {
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private int[] values;
+        private int count;
+
+        CellMap() {
+            keys = new long[16];
+            values = new int[16];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return NO_VALUE;
+        }
+
+        void put(long key, int value) {
+            if ((count + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                count++;
+            }
+            values[i] = value;
+        }
+
+        int size() {
+            return count;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Constructor del tablero.
+     * @param size Lado del tablero, entre el tamaño clásico y {@link GameConstants#MEGA_BOARD_MAX_SIZE}
+     */
+    public SparseBoard(int size) {
+        if (size < GameConstants.BATTLESHIP_BOARD_SIZE || size > GameConstants.MEGA_BOARD_MAX_SIZE) {
+            throw new IllegalArgumentException("Tamaño de tablero fuera de rango: " + size);
+        }
+        this.size = size;
+        this.ships = new ArrayList<>();
+        this.shipCells = new CellMap();
+        this.shots = new CellMap();
+    }
+
+    /**
+     * Intenta colocar un barco nuevo.
+     * @param row Fila inicial
+     * @param col Columna inicial
+     * @param length Tamaño del barco
+     * @param horizontal Orientación del barco
+     * @return true si se colocó (dentro del tablero y sin superponerse)
+     */
+    public boolean placeShip(int row, int col, int length, boolean horizontal) {
+        if (!isFree(row, col, length, horizontal)) {
+            return false;
+        }
+        int index = ships.size();
+        Ship ship = new Ship(length, GameConstants.SHIP_NAMES[index % GameConstants.SHIP_NAMES.length] + " " + (index + 1));
+        ship.place(row, col, horizontal);
+        ships.add(ship);
+        for (int i = 0; i < length; i++) {
+            shipCells.put(key(horizontal ? row : row + i, horizontal ? col + i : col), index);
+        }
+        shipCellCount += length;
+        return true;
+    }
+
+    private boolean isFree(int row, int col, int length, boolean horizontal) {
+        if (row < 0 || col < 0 || length <= 0 ||
+            (horizontal ? col + length > size || row >= size : row + length > size || col >= size)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (shipCells.get(key(horizontal ? row : row + i, horizontal ? col + i : col)) != NO_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Coloca una flota aleatoria con los tamaños de la flota estándar repetidos
+     * en orden. Si un barco no encuentra sitio tras varios intentos se abandona
+     * la colocación.
+     * @param count Número de barcos
+     * @param random Generador de números aleatorios
+     * @return true si se colocaron todos los barcos
+     */
+    public boolean placeRandomFleet(int count, SplittableRandom random) {
+        for (int ship = 0; ship < count; ship++) {
+            int length = GameConstants.SHIP_SIZES[ship % GameConstants.SHIP_SIZES.length];
+            boolean placed = false;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS_PER_SHIP && !placed; attempt++) {
+                boolean horizontal = random.nextBoolean();
+                int row = random.nextInt(horizontal ? size : size - length + 1);
+                int col = random.nextInt(horizontal ? size - length + 1 : size);
+                placed = placeShip(row, col, length, horizontal);
+            }
+            if (!placed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Procesa un disparo en el tablero.
+     * @param row Fila del disparo
+     * @param col Columna del disparo
+     * @return Resultado del disparo ("HIT", "MISS", "SUNK:nombre", "INVALID")
+     */
+    public String receiveShot(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            return "INVALID";
+        }
+        long cell = key(row, col);
+        if (shots.get(cell) != NO_VALUE) {
+            return "INVALID";
+        }
+
+        int index = shipCells.get(cell);
+        if (index == NO_VALUE) {
+            shots.put(cell, SHOT_MISS);
+            return "MISS";
+        }
+        shots.put(cell, SHOT_HIT);
+        hitCount++;
+        Ship ship = ships.get(index);
+        ship.hit(row, col);
+        if (ship.isSunk()) {
+            shipsSunk++;
+            return "SUNK:" + ship.getName();
+        }
+        return "HIT";
+    }
+
+    /**
+     * Obtiene el contenido de una celda con los mismos símbolos que {@link Board}.
+     * @param row Fila
+     * @param col Columna
+     * @return Símbolo de la celda
+     */
+    public char getCell(int row, int col) {
+        long cell = key(row, col);
+        int shot = shots.get(cell);
+        if (shot != NO_VALUE) {
+            return shot == SHOT_HIT ? GameConstants.BATTLESHIP_HIT : GameConstants.BATTLESHIP_MISS;
+        }
+        return shipCells.get(cell) != NO_VALUE ? GameConstants.BATTLESHIP_SHIP : GameConstants.BATTLESHIP_WATER;
+    }
+
+    /**
+     * Codifica la flota como "fila,columna,tamaño,H|V;..." en orden de colocación.
+     * @return Flota codificada
+     */
+    public String encodeFleet() {
+        StringBuilder text = new StringBuilder(ships.size() * 14);
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            if (i > 0) {
+                text.append(';');
+            }
+            text.append(ship.getStartRow()).append(',').append(ship.getStartCol()).append(',')
+                .append(ship.getSize()).append(',').append(ship.isHorizontal() ? 'H' : 'V');
+        }
+        return text.toString();
+    }
+
+    private long key(int row, int col) {
+        return (long) row * size + col;
+    }
+
+    public boolean allShipsSunk() {
+        return !ships.isEmpty() && shipsSunk == ships.size();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getShipCount() {
+        return ships.size();
+    }
+
+    public int getShipsRemaining() {
+        return ships.size() - shipsSunk;
+    }
+
+    public int getShipCellCount() {
+        return shipCellCount;
+    }
+
+    public int getShotCount() {
+        return shots.size();
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+}
@@ -0,0 +1,113 @@
+package com.juegos.battleship;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula el coste de las decisiones de una estrategia de ataque:
+ * número de decisiones, tiempo de CPU y bytes reservados en el hilo que decide.
+ * Es segura para hilos, ya que las ramas especulativas registran su coste en paralelo.
+ */
+public final class StrategyStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String strategyName;
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /**
+     * Constructor de las estadísticas.
+     * @param strategyName Nombre de la estrategia medida
+     */
+    public StrategyStats(String strategyName) {
+        this.strategyName = strategyName;
+    }
+
+    /**
+     * Registra el coste de una decisión.
+     * @param cpu Nanosegundos de CPU consumidos
+     * @param allocated Bytes reservados (negativo si no se pudo medir)
+     */
+    public void record(long cpu, long allocated) {
+        decisions.increment();
+        cpuNanos.add(cpu);
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+        }
+    }
+
+    /**
+     * Obtiene el tiempo de CPU del hilo actual.
+     * @return Nanosegundos de CPU o tiempo de reloj si la JVM no lo soporta
+     */
+    public static long currentThreadCpuNanos() {
+        if (THREADS.isCurrentThreadCpuTimeSupported()) {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Obtiene los bytes reservados por el hilo actual desde su creación.
+     * @return Bytes reservados o -1 si la JVM no lo soporta
+     */
+    public static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS)
+                   .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    public long getDecisions() {
+        return decisions.sum();
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public long getCpuNanosPerDecision() {
+        long count = decisions.sum();
+        return count == 0 ? 0 : cpuNanos.sum() / count;
+    }
+
+    public long getAllocatedBytesPerDecision() {
+        long count = decisions.sum();
+        return count == 0 ? 0 : allocatedBytes.sum() / count;
+    }
+
+    /**
+     * Obtiene las estadísticas como mapa, en el formato de getPerformanceStats.
+     * @return Mapa con las estadísticas
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("strategy", strategyName);
+        stats.put("decisions", getDecisions());
+        stats.put("cpuNanos", getCpuNanos());
+        stats.put("allocatedBytes", getAllocatedBytes());
+        stats.put("cpuNanosPerDecision", getCpuNanosPerDecision());
+        stats.put("allocatedBytesPerDecision", getAllocatedBytesPerDecision());
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StrategyStats{strategy='%s', decisions=%d, cpuNs/dec=%d, bytes/dec=%d}",
+                           strategyName, getDecisions(), getCpuNanosPerDecision(), getAllocatedBytesPerDecision());
+    }
+}
@@ -0,0 +1,114 @@
+package com.juegos.battleship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Utilidades compartidas por las estrategias de ataque.
+ */
+final class StrategySupport {
+
+    private StrategySupport() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Obtiene la celda i-ésima de una colocación.
+     */
+    static int cellOf(int boardSize, int row, int col, int offset, boolean horizontal) {
+        return horizontal ? row * boardSize + col + offset : (row + offset) * boardSize + col;
+    }
+
+    /**
+     * Verifica si un barco puede estar en una colocación según lo que sabe la IA.
+     * @return true si cabe en el tablero y no toca agua ni barcos hundidos
+     */
+    static boolean fits(AttackContext context, int row, int col, int size, boolean horizontal) {
+        int boardSize = context.getBoardSize();
+        if ((horizontal ? col : row) + size > boardSize) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!context.isOpen(cellOf(boardSize, row, col, i, horizontal))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Elige la celda sin atacar con mayor peso, desempatando al azar.
+     * Mientras se busca (sin impactos pendientes) los pesos se multiplican por
+     * los priors de colocación humana, si la IA los tiene.
+     * @param context Contexto de ataque
+     * @param weights Peso de cada celda
+     * @return Índice de celda o -1 si ninguna tiene peso positivo
+     */
+    static int pickBest(AttackContext context, long[] weights) {
+        SplittableRandom random = context.getRandom();
+        boolean weighted = context.hasPriors() && !context.hasUnresolvedHits();
+        int best = -1;
+        long bestWeight = 0;
+        int ties = 0;
+        for (int cell = 0; cell < weights.length; cell++) {
+            if (!context.isUnknown(cell) || weights[cell] <= 0) {
+                continue;
+            }
+            long weight = weighted ? weights[cell] * context.getPriorWeight(cell) : weights[cell];
+            if (best == -1 || weight > bestWeight) {
+                best = cell;
+                bestWeight = weight;
+                ties = 1;
+            } else if (weight == bestWeight && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Elige una celda sin atacar al azar que cumpla un patrón de paridad.
+     * @param context Contexto de ataque
+     * @param modulus Módulo de la paridad (1 = cualquier celda)
+     * @return Índice de celda o -1 si no queda ninguna
+     */
+    static int pickRandom(AttackContext context, int modulus) {
+        SplittableRandom random = context.getRandom();
+        int boardSize = context.getBoardSize();
+        int chosen = -1;
+        int seen = 0;
+        for (int cell = 0; cell < context.getCellCount(); cell++) {
+            if (context.isUnknown(cell) && (cell / boardSize + cell % boardSize) % modulus == 0 &&
+                random.nextInt(++seen) == 0) {
+                chosen = cell;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Elige al azar una celda sin atacar adyacente a un impacto sin resolver.
+     * @param context Contexto de ataque
+     * @return Índice de celda o -1 si no hay ninguna
+     */
+    static int pickAdjacentToHit(AttackContext context) {
+        SplittableRandom random = context.getRandom();
+        int boardSize = context.getBoardSize();
+        int chosen = -1;
+        int seen = 0;
+        for (int cell = 0; cell < context.getCellCount(); cell++) {
+            if (!context.isUnknown(cell)) {
+                continue;
+            }
+            int row = cell / boardSize;
+            int col = cell % boardSize;
+            boolean adjacent = (row > 0 && context.getCell(cell - boardSize) == AttackContext.HIT) ||
+                               (row < boardSize - 1 && context.getCell(cell + boardSize) == AttackContext.HIT) ||
+                               (col > 0 && context.getCell(cell - 1) == AttackContext.HIT) ||
+                               (col < boardSize - 1 && context.getCell(cell + 1) == AttackContext.HIT);
+            if (adjacent && random.nextInt(++seen) == 0) {
+                chosen = cell;
+            }
+        }
+        return chosen;
+    }
+}
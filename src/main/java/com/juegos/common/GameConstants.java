@@ -15,10 +15,16 @@ public class GameConstants {
     
     // Tipos de juego
     public static final String GAME_BATTLESHIP = "BATTLESHIP";
+    public static final String GAME_MEGA_BATTLESHIP = "MEGA_BATTLESHIP";  // Tableros grandes y dispersos
     
     // Modos de juego
     public static final String MODE_VS_HUMAN = "VS_HUMAN";
     public static final String MODE_VS_AI = "VS_AI";
+    public static final String MODE_FFA = "FFA";  // Todos contra todos, de 3 a 16 jugadores
+    
+    // Reglas de Batalla Naval
+    public static final String RULES_CLASSIC = "CLASSIC";
+    public static final String RULES_SALVO = "SALVO";
     
     // Estados del juego
     public static final String STATE_WAITING = "WAITING";
@@ -53,6 +59,18 @@ public class GameConstants {
     public static final int[] SHIP_SIZES = {5, 4, 3, 3, 2}; // Portaaviones, Acorazado, Crucero, Submarino, Destructor
     public static final String[] SHIP_NAMES = {"Portaaviones", "Acorazado", "Crucero", "Submarino", "Destructor"};
     
+    // Todos contra todos (FFA)
+    public static final int FFA_MIN_PLAYERS = 3;
+    public static final int FFA_MAX_PLAYERS = 16;
+    public static final int FFA_DEFAULT_PLAYERS = 4;
+    
+    // Batalla Naval a gran escala (MEGA_BATTLESHIP)
+    public static final int MEGA_BOARD_DEFAULT_SIZE = 1000;
+    public static final int MEGA_BOARD_MAX_SIZE = 10000;
+    public static final int MEGA_MAX_SHIPS = 20000;
+    public static final int MEGA_CELLS_PER_SHIP = 20;      // Barcos por defecto: uno por cada tantas celdas
+    public static final int MEGA_MAX_FLEET_DENSITY = 4;    // El área debe ser al menos 4 veces las celdas de la flota
+    
     // Configuración de interfaz
     public static final int WINDOW_WIDTH = 800;
     public static final int WINDOW_HEIGHT = 600;
@@ -62,6 +80,57 @@ public class GameConstants {
     // Configuración de IA
     public static final int AI_THINKING_DELAY = 1000; // 1 segundo
     public static final int AI_MAX_DEPTH = 9; // Para minimax en Tic-Tac-Toe
+    public static final String OPENING_BOOK_FILE = "data/opening-book.bin"; // Libro de aperturas de la IA
+    public static final String PRIORS_FILE = "data/placement-priors.bin";   // Priors sacados del archivo de partidas
+    public static final int PRIORS_RELOAD_SECONDS = 60;  // Intervalo de comprobación del fichero de priors
+    public static final int FLEET_POOL_CAPACITY = 256;  // Disposiciones de flota preparadas para la IA
+    public static final int FLEET_POOL_LOW_WATER = 64;  // Nivel a partir del cual se rellena el pool
+    
+    // Configuración de persistencia
+    public static final String JOURNAL_DIR = "data/journal";             // Diario de eventos de las salas
+    public static final int JOURNAL_SEGMENT_SIZE = 16 * 1024 * 1024;     // 16 MB por segmento
+    public static final int JOURNAL_QUEUE_CAPACITY = 65536;              // Eventos pendientes de escribir
+    public static final String SNAPSHOT_DIR = "data/snapshots";          // Instantáneas de las salas en curso
+    public static final int SNAPSHOT_INTERVAL_SECONDS = 30;              // Intervalo entre instantáneas
+    public static final int RESUME_WINDOW_SECONDS = 300;                 // Plazo para volver a una sala recuperada
+    public static final int RECONNECT_GRACE_SECONDS = 60;                // Plazo para reconectar tras perder la conexión
+    public static final int ROOM_HISTORY_SIZE = 512;                     // Eventos de sala guardados para reenviar
+    public static final int MAX_SESSIONS_PER_CONNECTION = 32;            // Partidas simultáneas en una conexión multiplexada
+    public static final String ARCHIVE_FILE = "data/archive/games.bsga"; // Archivo de partidas terminadas
+    public static final String STATS_DIR = "data/stats";                 // Estadísticas de jugadores
+    public static final int STATS_CHECKPOINT_BYTES = 4 * 1024 * 1024;    // Tamaño del log que provoca un checkpoint
+    public static final int LOG_RING_CAPACITY = 8192;                    // Eventos de registro pendientes
+    
+    // Configuración de la clasificación
+    public static final int LEADERBOARD_PAGE_SIZE = 20;           // Jugadores por página
+    public static final int LEADERBOARD_CACHED_RANKS = 1000;      // Posiciones guardadas en la instantánea
+    public static final long LEADERBOARD_REFRESH_MILLIS = 1000;   // Antigüedad mínima para rehacer la instantánea
+    
+    // Configuración de los espectadores
+    public static final int MAX_SPECTATORS_PER_ROOM = 10000;      // Espectadores admitidos en una sala
+    public static final int SPECTATOR_QUEUE_CAPACITY = 1024;      // Eventos pendientes por espectador
+    public static final int SPECTATOR_MAX_DELAY_SECONDS = 300;    // Retardo máximo de la retransmisión
+    public static final int SPECTATOR_DELIVERY_THREADS = 4;       // Hilos que escriben a los espectadores
+    
+    // Configuración de los relojes de partida
+    public static final long CLOCK_TICK_MILLIS = 100;             // Periodo del planificador compartido de relojes
+    public static final int CLOCK_MAX_SECONDS = 3600;             // Tiempo máximo por jugador
+    public static final String CLOCK_TIMEOUT_LOSE = "LOSE";       // Sin tiempo se pierde la partida
+    public static final String CLOCK_TIMEOUT_AUTO = "AUTO";       // Sin tiempo el servidor dispara por el jugador
+    
+    // Configuración del emparejamiento por puntuación
+    public static final double RATING_INITIAL = 1500;             // Puntuación Elo de un jugador nuevo
+    public static final double RATING_K_FACTOR = 32;              // Máximo que se gana o pierde en una partida
+    public static final long MATCH_TICK_MILLIS = 200;             // Periodo de las pasadas de emparejamiento
+    public static final double MATCH_INITIAL_BAND = 100;          // Diferencia de puntuación admitida al llegar
+    public static final double MATCH_BAND_GROWTH = 25;            // Crecimiento de la banda por segundo de espera
+    public static final double MATCH_MAX_BAND = 1000;             // Banda máxima
+    
+    // Configuración de los torneos
+    public static final String TOURNAMENT_ELIMINATION = "ELIMINATION";  // Eliminación directa
+    public static final String TOURNAMENT_SWISS = "SWISS";              // Sistema suizo
+    public static final int TOURNAMENT_MIN_ENTRANTS = 2;          // Inscritos necesarios para empezar
+    public static final int TOURNAMENT_MAX_ENTRANTS = 16384;      // Inscritos admitidos en un torneo
     
     // Mensajes de usuario
     public static final String MSG_CONNECTION_SUCCESS = "Conectado al servidor exitosamente";
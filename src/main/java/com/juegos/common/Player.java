@@ -18,6 +18,7 @@ public class Player {
     private int gamesWon;          // Partidas ganadas
     private int gamesLost;         // Partidas perdidas
     private int gamesDrawn;        // Partidas empatadas
+    private double rating;         // Puntuación Elo
     
     /**
      * Constructor para jugador humano.
@@ -31,6 +32,7 @@ public class Player {
         this.gamesWon = 0;
         this.gamesLost = 0;
         this.gamesDrawn = 0;
+        this.rating = GameConstants.RATING_INITIAL;
     }
     
     /**
@@ -46,6 +48,7 @@ public class Player {
         this.gamesWon = 0;
         this.gamesLost = 0;
         this.gamesDrawn = 0;
+        this.rating = GameConstants.RATING_INITIAL;
     }
     
     /**
@@ -61,6 +64,7 @@ public class Player {
         this.gamesWon = 0;
         this.gamesLost = 0;
         this.gamesDrawn = 0;
+        this.rating = GameConstants.RATING_INITIAL;
     }
     
     // Getters y Setters
@@ -129,6 +133,23 @@ public class Player {
         this.gamesDrawn = gamesDrawn;
     }
     
+    public double getRating() {
+        return rating;
+    }
+    
+    public void setRating(double rating) {
+        this.rating = rating;
+    }
+    
+    /**
+     * Calcula la puntuación esperada contra un rival según el modelo Elo.
+     * @param opponentRating Puntuación del rival
+     * @return Probabilidad de ganar (0-1)
+     */
+    public double expectedScore(double opponentRating) {
+        return 1.0 / (1.0 + Math.pow(10, (opponentRating - rating) / 400.0));
+    }
+    
     /**
      * Incrementa las partidas ganadas.
      */
@@ -175,6 +196,7 @@ public class Player {
         this.gamesWon = 0;
         this.gamesLost = 0;
         this.gamesDrawn = 0;
+        this.rating = GameConstants.RATING_INITIAL;
     }
     
     /**
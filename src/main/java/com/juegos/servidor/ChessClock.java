@@ -0,0 +1,108 @@
+package com.juegos.servidor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloj de ajedrez de una sala: cada jugador tiene una reserva de tiempo que
+ * sólo se descuenta mientras tiene el turno, con incremento opcional tras cada
+ * jugada. Los tiempos se miden con {@link System#nanoTime()}, que no salta si
+ * cambia la hora del sistema.
+ *
+ * No es seguro entre hilos: lo usa la sala dentro de su propio bloqueo.
+ */
+public class ChessClock {
+
+    private final long incrementNanos;
+    private final Map<String, Long> remaining;  // Reserva de cada jugador, en nanosegundos
+    private String running;                      // Jugador cuyo reloj corre (o null)
+    private long since;                          // Instante en que empezó a correr
+    private long turn;                           // Cambia con cada turno; descarta vencimientos viejos
+
+    /**
+     * Constructor del reloj.
+     * @param playerIds Jugadores de la partida
+     * @param bankNanos Reserva inicial de cada jugador
+     * @param incrementNanos Tiempo añadido tras cada jugada
+     */
+    public ChessClock(Iterable<String> playerIds, long bankNanos, long incrementNanos) {
+        this.incrementNanos = incrementNanos;
+        this.remaining = new LinkedHashMap<>();
+        for (String playerId : playerIds) {
+            remaining.put(playerId, bankNanos);
+        }
+    }
+
+    /**
+     * Para el reloj del jugador en curso (sumándole el incremento) y pone en
+     * marcha el de un jugador, aunque sea el mismo que acaba de jugar.
+     * @param playerId Jugador con el turno
+     * @param now Instante actual de System.nanoTime()
+     * @return Instante en que se agota la reserva del jugador
+     */
+    public long switchTo(String playerId, long now) {
+        if (running != null) {
+            remaining.put(running, charge(now) + incrementNanos);
+        }
+        running = playerId;
+        since = now;
+        turn++;
+        return now + Math.max(0, remaining.getOrDefault(playerId, 0L));
+    }
+
+    /**
+     * Para el reloj sin poner en marcha ninguno.
+     * @param now Instante actual de System.nanoTime()
+     */
+    public void stop(long now) {
+        if (running != null) {
+            remaining.put(running, charge(now));
+            running = null;
+            turn++;
+        }
+    }
+
+    /**
+     * Descuenta del jugador en curso el tiempo desde que empezó su turno.
+     */
+    private long charge(long now) {
+        return Math.max(0, remaining.getOrDefault(running, 0L) - (now - since));
+    }
+
+    /**
+     * Obtiene la reserva de un jugador en un instante.
+     * @param playerId ID del jugador
+     * @param now Instante actual de System.nanoTime()
+     * @return Nanosegundos restantes (0 si se agotó)
+     */
+    public long remainingNanos(String playerId, long now) {
+        long left = remaining.getOrDefault(playerId, 0L);
+        return playerId.equals(running) ? Math.max(0, left - (now - since)) : left;
+    }
+
+    /**
+     * Codifica las reservas para el protocolo: "id=milisegundos,id=milisegundos,...".
+     * @param now Instante actual de System.nanoTime()
+     * @return Reservas codificadas
+     */
+    public String encode(long now) {
+        StringBuilder text = new StringBuilder(remaining.size() * 40);
+        for (String playerId : remaining.keySet()) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(playerId).append('=')
+                .append(TimeUnit.NANOSECONDS.toMillis(remainingNanos(playerId, now)));
+        }
+        return text.toString();
+    }
+
+    public String getRunning() {
+        return running;
+    }
+
+    public long getTurn() {
+        return turn;
+    }
+}
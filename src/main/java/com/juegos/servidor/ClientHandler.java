@@ -1,9 +1,14 @@
 package com.juegos.servidor;
 
+import com.juegos.battleship.MegaBattleshipGame;
+import com.juegos.common.GameConstants;
 import com.juegos.common.Player;
 
 import java.io.*;
 import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -16,17 +21,28 @@ import java.util.logging.Level;
 public class ClientHandler implements Runnable {
     
     private static final Logger LOGGER = Logger.getLogger(ClientHandler.class.getName());
+    private static final SecureRandom TOKENS = new SecureRandom();
+    
+    /** Separa el ID de sala del mensaje en una conexión multiplexada ("ROOM_3|MOVE:SHOOT:1:2"). */
+    public static final char SESSION_SEPARATOR = '|';
     
     private final Socket clientSocket;
     private final GameServer server;
-    private final String clientId;
+    private volatile String clientId;
+    private volatile String sessionToken;  // Secreto para reconectar a la partida (ver RESUME)
+    private volatile boolean leaving;      // true si el cliente pidió desconectarse
     
     private BufferedReader reader;
     private PrintWriter writer;
-    private boolean isConnected;
+    private OutputStream output;        // Flujo del socket, para los eventos ya codificados
+    private final Object outputLock = new Object();
+    private volatile boolean isConnected;
     
     private Player player;
-    private String currentRoomId;
+    private volatile String currentRoomId;     // Última sala elegida; destino de los comandos sin prefijo
+    private final Set<String> roomIds;         // Salas en las que juega esta conexión
+    private volatile boolean multiplexed;      // Si los eventos de sala llevan el prefijo de la sala
+    private volatile String spectatingRoomId;  // Sala que observa como espectador, o null
     
     /**
      * Constructor del manejador de cliente.
@@ -38,6 +54,8 @@ public class ClientHandler implements Runnable {
         this.server = server;
         this.clientId = "CLIENT_" + System.currentTimeMillis() + "_" + 
                        clientSocket.getInetAddress().toString().replace("/", "");
+        this.sessionToken = Long.toHexString(TOKENS.nextLong()) + Long.toHexString(TOKENS.nextLong());
+        this.roomIds = ConcurrentHashMap.newKeySet();
         this.isConnected = false;
     }
     
@@ -80,11 +98,14 @@ public class ClientHandler implements Runnable {
      */
     private void setupStreams() throws IOException {
         reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        writer = new PrintWriter(clientSocket.getOutputStream(), true);
+        output = clientSocket.getOutputStream();
+        writer = new PrintWriter(output, true);
     }
     
     /**
-     * Procesa un mensaje recibido del cliente.
+     * Procesa un mensaje recibido del cliente. En una conexión multiplexada los
+     * comandos de partida pueden llevar delante la sala a la que van ("ROOM_3|MOVE:...");
+     * sin prefijo van a la última sala elegida.
      * @param messageText Texto del mensaje en formato JSON
      */
     private void processMessage(String messageText) {
@@ -92,12 +113,41 @@ public class ClientHandler implements Runnable {
             // En una implementación real, aquí se deserializaría JSON
             // Por simplicidad, procesamos mensajes de texto
             
+            String sessionId = null;
+            int separator = messageText.indexOf(SESSION_SEPARATOR);
+            int colon = messageText.indexOf(':');
+            if (separator > 0 && (colon < 0 || separator < colon)) {
+                sessionId = messageText.substring(0, separator);
+                messageText = messageText.substring(separator + 1);
+            }
+            
             if (messageText.startsWith("CONNECT:")) {
                 handleConnect(messageText);
             } else if (messageText.startsWith("GAME_SELECT:")) {
                 handleGameSelect(messageText);
+            } else if (messageText.startsWith("RESUME:")) {
+                handleResume(messageText);
+            } else if (messageText.startsWith("SYNC")) {
+                handleSync(sessionId, messageText);
+            } else if (messageText.startsWith("ACK:")) {
+                handleAck(sessionId, messageText);
             } else if (messageText.startsWith("MOVE:")) {
-                handleMove(messageText);
+                handleMove(sessionId, messageText);
+            } else if (messageText.startsWith("MUX")) {
+                multiplexed = true;
+                sendMessage("MUX_OK:" + GameConstants.MAX_SESSIONS_PER_CONNECTION);
+            } else if (messageText.startsWith("LEADERBOARD")) {
+                handleLeaderboard(messageText);
+            } else if (messageText.startsWith("RANK")) {
+                handleRank();
+            } else if (messageText.startsWith("SPECTATE:")) {
+                handleSpectate(messageText);
+            } else if (messageText.startsWith("UNSPECTATE")) {
+                server.stopSpectating(this);
+            } else if (messageText.startsWith("TOURNAMENT_")) {
+                handleTournament(messageText);
+            } else if (messageText.startsWith("CANCEL_MATCH")) {
+                sendMessage(server.cancelMatch(clientId) ? "MATCHMAKING:CANCELLED" : "MATCHMAKING:NOT_QUEUED");
             } else if (messageText.startsWith("DISCONNECT")) {
                 handleDisconnect();
             } else {
@@ -119,9 +169,10 @@ public class ClientHandler implements Runnable {
         if (parts.length >= 2) {
             String playerName = parts[1];
             player.setName(playerName);
+            server.loadPlayerStats(player);
             
-            LOGGER.info("Cliente conectado: " + playerName + " (" + clientId + ")");
-            sendMessage("CONNECT_OK:" + clientId);
+            ServerLog.log(ServerLog.Event.CLIENT_CONNECTED, playerName, clientId);
+            sendMessage("CONNECT_OK:" + clientId + ":" + sessionToken);
         }
     }
     
@@ -134,16 +185,51 @@ public class ClientHandler implements Runnable {
         if (parts.length >= 3) {
             String gameType = parts[1];
             String mode = parts[2];
+            RoomOptions options = RoomOptions.parse(parts.length >= 4 ? parts[3] : null);
+            if (multiplexed && roomIds.size() >= GameConstants.MAX_SESSIONS_PER_CONNECTION) {
+                sendErrorMessage("Demasiadas partidas simultáneas en esta conexión");
+                return;
+            }
+            if (GameConstants.GAME_MEGA_BATTLESHIP.equals(gameType) && !GameConstants.MODE_VS_HUMAN.equals(mode)) {
+                sendErrorMessage("MEGA_BATTLESHIP sólo está disponible en VS_HUMAN");
+                return;
+            }
+            if (GameConstants.GAME_MEGA_BATTLESHIP.equals(gameType)) {
+                int size = options.getInt(RoomOptions.BOARD, GameConstants.MEGA_BOARD_DEFAULT_SIZE);
+                String error = MegaBattleshipGame.validate(size,
+                        options.getInt(RoomOptions.SHIPS, MegaBattleshipGame.defaultShips(size)));
+                if (error != null) {
+                    sendErrorMessage(error);
+                    return;
+                }
+            }
+            if (GameConstants.MODE_VS_AI.equals(mode) &&
+                GameConstants.RULES_SALVO.equalsIgnoreCase(options.get(RoomOptions.RULES, GameConstants.RULES_CLASSIC))) {
+                sendErrorMessage("Salvo sólo está disponible en VS_HUMAN");
+                return;
+            }
+            
+            // Las partidas VS_HUMAN esperan a un rival de puntuación parecida
+            if (server.usesMatchmaking(mode)) {
+                if (server.isWaitingForMatch(clientId)) {
+                    sendErrorMessage("Ya estás buscando rival");
+                    return;
+                }
+                // El aviso va antes de encolar: si hay rival, GAME_STARTED llega en el momento
+                sendMessage("MATCHMAKING:QUEUED:" + Math.round(player.getRating()));
+                server.queueForMatch(this, gameType, mode, options);
+                return;
+            }
             
             // Buscar o crear sala de juego
-            String roomId = server.findOrCreateRoom(clientId, gameType, mode);
+            String roomId = server.findOrCreateRoom(clientId, gameType, mode, options);
             if (roomId != null) {
                 currentRoomId = roomId;
                 GameRoom room = server.getGameRoom(roomId);
                 
                 if (room != null) {
                     room.initializeGame();
-                    sendMessage("GAME_STARTED:" + roomId + ":" + gameType + ":" + mode);
+                    sendRoomMessage(roomId, "GAME_STARTED:" + roomId + ":" + gameType + ":" + mode);
                     
                     // Si la sala está llena, notificar a todos los jugadores
                     if (room.isFull()) {
@@ -156,30 +242,206 @@ public class ClientHandler implements Runnable {
         }
     }
     
+    /**
+     * Maneja la vuelta de un jugador a su partida tras perder la conexión o tras
+     * reiniciar el servidor, en ambos casos con el token de sesión de CONNECT_OK.
+     * Con el último evento recibido sólo se reenvía lo posterior.
+     * @param message Mensaje "RESUME:token" o "RESUME:token:ultimoEvento"
+     */
+    private void handleResume(String message) {
+        String[] parts = message.split(":");
+        String sessionId = parts.length >= 2 ? parts[1].trim() : "";
+        long lastAck = -1;
+        if (parts.length >= 3) {
+            try {
+                lastAck = Long.parseLong(parts[2].trim());
+            } catch (NumberFormatException e) {
+                lastAck = -1;
+            }
+        }
+        if (sessionId.isEmpty() || !server.resumeSession(this, sessionId, lastAck)) {
+            sendErrorMessage("No hay ninguna partida que reanudar para " + sessionId);
+        }
+    }
+    
+    /**
+     * Confirma el último evento de la sala recibido, para reenviar sólo lo posterior al reconectar.
+     * @param sessionId Sala indicada en el prefijo, o null para la última elegida
+     * @param message Mensaje "ACK:numeroDeEvento"
+     */
+    private void handleAck(String sessionId, String message) {
+        GameRoom room = roomFor(sessionId);
+        if (room != null) {
+            try {
+                room.acknowledge(clientId, Long.parseLong(message.substring("ACK:".length()).trim()));
+            } catch (NumberFormatException e) {
+                sendErrorMessage("Confirmación no válida");
+            }
+        }
+    }
+    
+    /**
+     * Pide las celdas del tablero que cambiaron desde el último evento aplicado,
+     * o el tablero completo sin número de evento.
+     * @param sessionId Sala indicada en el prefijo, o null para la última elegida
+     * @param message Mensaje "SYNC" o "SYNC:ultimoEvento"
+     */
+    private void handleSync(String sessionId, String message) {
+        GameRoom room = roomFor(sessionId);
+        if (room == null) {
+            sendErrorMessage("No estás en ninguna partida");
+            return;
+        }
+        long lastAck = -1;
+        if (message.startsWith("SYNC:")) {
+            try {
+                lastAck = Long.parseLong(message.substring("SYNC:".length()).trim());
+            } catch (NumberFormatException e) {
+                lastAck = -1;
+            }
+        }
+        room.sync(clientId, lastAck);
+    }
+    
+    /**
+     * Adopta la identidad de una sesión anterior al reanudar una partida.
+     * @param sessionId ID de jugador original
+     * @param token Token de sesión con el que podrá volver a reconectar
+     */
+    void adoptSession(String sessionId, String token) {
+        this.clientId = sessionId;
+        this.sessionToken = token;
+        if (player != null) {
+            player.setId(sessionId);
+        }
+    }
+    
     /**
      * Maneja movimiento del jugador.
+     * @param sessionId Sala indicada en el prefijo, o null para la última elegida
      * @param message Mensaje con el movimiento
      */
-    private void handleMove(String message) {
-        if (currentRoomId != null) {
-            GameRoom room = server.getGameRoom(currentRoomId);
-            if (room != null) {
-                // Extraer datos del movimiento
-                String[] parts = message.split(":");
-                if (parts.length >= 2) {
-                    String moveData = parts[1];
-                    room.processMove(clientId, moveData);
-                }
+    private void handleMove(String sessionId, String message) {
+        GameRoom room = roomFor(sessionId);
+        if (room != null) {
+            // Extraer datos del movimiento (pueden contener ':')
+            String moveData = message.substring(message.indexOf(':') + 1);
+            if (!moveData.isEmpty()) {
+                room.processMove(clientId, moveData);
             }
         } else {
             sendErrorMessage("No estás en ninguna sala de juego");
         }
     }
     
+    /**
+     * Obtiene la sala a la que va un comando.
+     * @param sessionId Sala del prefijo o null para la última elegida
+     * @return Sala o null si la conexión no juega en ella
+     */
+    private GameRoom roomFor(String sessionId) {
+        String roomId = sessionId != null ? sessionId : currentRoomId;
+        return roomId != null && roomIds.contains(roomId) ? server.getGameRoom(roomId) : null;
+    }
+    
+    /**
+     * Envía una página de la clasificación.
+     * Respuesta: "LEADERBOARD:version:pagina:total:pos,nombre,victorias,derrotas,empates;..."
+     * @param message Mensaje "LEADERBOARD" o "LEADERBOARD:pagina"
+     */
+    private void handleLeaderboard(String message) {
+        int page = 0;
+        int separator = message.indexOf(':');
+        if (separator >= 0) {
+            try {
+                page = Integer.parseInt(message.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                sendErrorMessage("Página de clasificación no válida");
+                return;
+            }
+        }
+        sendMessage("LEADERBOARD:" + server.getLeaderboard().getPage(page));
+    }
+    
+    /**
+     * Maneja los comandos de torneo: "TOURNAMENT_CREATE:formato[:opciones]",
+     * "TOURNAMENT_JOIN:id" y "TOURNAMENT_START:id" (sólo el organizador).
+     * @param message Mensaje del comando
+     */
+    private void handleTournament(String message) {
+        TournamentManager tournaments = server.getTournaments();
+        String[] parts = message.split(":");
+        if (tournaments == null || parts.length < 2) {
+            sendErrorMessage("Comando de torneo no válido");
+            return;
+        }
+        String argument = parts[1].trim();
+        switch (parts[0]) {
+            case "TOURNAMENT_CREATE":
+                String tournamentId = tournaments.create(this, argument,
+                                                         RoomOptions.parse(parts.length >= 3 ? parts[2] : null));
+                if (tournamentId != null) {
+                    sendMessage("TOURNAMENT_CREATED:" + tournamentId);
+                } else {
+                    sendErrorMessage("Formato de torneo no válido: " + argument);
+                }
+                break;
+            case "TOURNAMENT_JOIN":
+                int entrants = tournaments.join(this, argument);
+                if (entrants > 0) {
+                    sendMessage("TOURNAMENT_JOINED:" + argument + ":" + entrants);
+                } else {
+                    sendErrorMessage("No te puedes inscribir en " + argument);
+                }
+                break;
+            case "TOURNAMENT_START":
+                String error = tournaments.start(this, argument);
+                if (error != null) {
+                    sendErrorMessage(error);
+                }
+                break;
+            default:
+                sendErrorMessage("Comando de torneo no válido");
+        }
+    }
+    
+    /**
+     * Envía la posición del jugador en la clasificación.
+     * Respuesta: "RANK:posicion:total" (posición 0 si aún no ha terminado ninguna partida)
+     */
+    private void handleRank() {
+        Leaderboard leaderboard = server.getLeaderboard();
+        sendMessage("RANK:" + leaderboard.rankOf(player.getName()) + ":" + leaderboard.size());
+    }
+    
+    /**
+     * Empieza a observar una sala como espectador, opcionalmente con retardo.
+     * Respuesta: "SPECTATE_OK:sala:retardo" seguido de los eventos públicos de la partida.
+     * @param message Mensaje "SPECTATE:sala" o "SPECTATE:sala:segundosDeRetardo"
+     */
+    private void handleSpectate(String message) {
+        String[] parts = message.split(":");
+        int delaySeconds = 0;
+        if (parts.length >= 3) {
+            try {
+                delaySeconds = Integer.parseInt(parts[2].trim());
+            } catch (NumberFormatException e) {
+                sendErrorMessage("Retardo no válido");
+                return;
+            }
+        }
+        delaySeconds = Math.max(0, Math.min(delaySeconds, GameConstants.SPECTATOR_MAX_DELAY_SECONDS));
+        String roomId = parts[1].trim();
+        if (!server.spectateRoom(this, roomId, delaySeconds)) {
+            sendErrorMessage("No se puede observar la sala " + roomId);
+        }
+    }
+    
     /**
      * Maneja desconexión del cliente.
      */
     private void handleDisconnect() {
+        leaving = true;
         disconnect();
     }
     
@@ -188,9 +450,37 @@ public class ClientHandler implements Runnable {
      * @param message Mensaje a enviar
      */
     public void sendMessage(String message) {
-        if (writer != null && isConnected) {
-            writer.println(message);
-            LOGGER.fine("Mensaje enviado a " + clientId + ": " + message);
+        synchronized (outputLock) {
+            if (writer != null && isConnected) {
+                writer.println(message);
+                ServerLog.log(ServerLog.Event.MESSAGE_SENT, clientId, message);
+            }
+        }
+    }
+    
+    /**
+     * Envía un evento de una sala. En una conexión multiplexada lleva delante el ID de la sala.
+     * @param roomId ID de la sala
+     * @param message Mensaje a enviar
+     */
+    public void sendRoomMessage(String roomId, String message) {
+        sendMessage(multiplexed ? roomId + SESSION_SEPARATOR + message : message);
+    }
+    
+    /**
+     * Envía una línea ya codificada (con su fin de línea), compartida con otros clientes.
+     * @param data Bytes de la línea
+     */
+    public void sendEncoded(byte[] data) {
+        synchronized (outputLock) {
+            if (output != null && isConnected) {
+                try {
+                    output.write(data);
+                    output.flush();
+                } catch (IOException e) {
+                    LOGGER.fine("No se pudo escribir al cliente " + clientId + ": " + e.getMessage());
+                }
+            }
         }
     }
     
@@ -223,7 +513,7 @@ public class ClientHandler implements Runnable {
                 LOGGER.log(Level.WARNING, "Error cerrando conexión con " + clientId, e);
             }
             
-            LOGGER.info("Cliente desconectado: " + clientId);
+            ServerLog.log(ServerLog.Event.CLIENT_DISCONNECTED, clientId);
         }
     }
     
@@ -241,12 +531,55 @@ public class ClientHandler implements Runnable {
         return isConnected;
     }
     
+    public String getSessionToken() {
+        return sessionToken;
+    }
+    
+    /**
+     * Indica si el cliente se desconectó a propósito (DISCONNECT) y no debe
+     * conservar su puesto en la partida.
+     * @return true si pidió desconectarse
+     */
+    public boolean isLeaving() {
+        return leaving;
+    }
+    
     public String getCurrentRoomId() {
         return currentRoomId;
     }
     
     public void setCurrentRoomId(String roomId) {
         this.currentRoomId = roomId;
+        if (roomId != null) {
+            roomIds.add(roomId);
+        }
+    }
+    
+    /**
+     * Registra que la conexión ya no juega en una sala.
+     * @param roomId ID de la sala
+     */
+    public void leaveRoom(String roomId) {
+        roomIds.remove(roomId);
+        if (roomId.equals(currentRoomId)) {
+            currentRoomId = null;
+        }
+    }
+    
+    public Set<String> getRoomIds() {
+        return roomIds;
+    }
+    
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+    
+    public String getSpectatingRoomId() {
+        return spectatingRoomId;
+    }
+    
+    public void setSpectatingRoomId(String roomId) {
+        this.spectatingRoomId = roomId;
     }
     
     /**
@@ -0,0 +1,146 @@
+package com.juegos.servidor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Planificador compartido de los relojes de todas las salas.
+ *
+ * Un único hilo revisa cada cierto tiempo una cola ordenada con el vencimiento
+ * de cada reloj en marcha. En cada pasada saca de una vez todos los vencidos y
+ * después avisa a sus salas, fuera del bloqueo de la cola. Cada sala tiene como
+ * mucho un vencimiento: al cambiar de turno el nuevo sustituye al anterior y al
+ * terminar la partida se quita, así que la cola no crece con vencimientos viejos.
+ * Si aun así llega uno de un turno pasado, la sala lo ignora
+ * ({@link GameRoom#onClockExpired(long)}).
+ */
+public class ClockScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(ClockScheduler.class.getName());
+
+    /**
+     * Vencimiento de un turno de una sala.
+     */
+    private static final class Deadline implements Comparable<Deadline> {
+        final long at;        // Instante de System.nanoTime()
+        final GameRoom room;
+        final long turn;
+        final long order;     // Desempate entre vencimientos del mismo instante
+
+        Deadline(long at, GameRoom room, long turn, long order) {
+            this.at = at;
+            this.room = room;
+            this.turn = turn;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            int byTime = Long.signum(at - other.at);  // Resta: nanoTime puede desbordar
+            return byTime != 0 ? byTime : Long.compare(order, other.order);
+        }
+    }
+
+    private final long tickMillis;
+    private final TreeSet<Deadline> deadlines;
+    private final Map<GameRoom, Deadline> byRoom;   // Vencimiento vigente de cada sala
+    private long scheduled;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Constructor del planificador.
+     * @param tickMillis Periodo de revisión de los vencimientos
+     */
+    public ClockScheduler(long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.deadlines = new TreeSet<>();
+        this.byRoom = new HashMap<>();
+    }
+
+    /**
+     * Arranca el hilo del planificador.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chess-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el planificador y descarta los vencimientos pendientes.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        deadlines.clear();
+        byRoom.clear();
+    }
+
+    /**
+     * Programa el vencimiento del turno de una sala, sustituyendo al que tuviera.
+     * @param room Sala
+     * @param at Instante de System.nanoTime() en que vence
+     * @param turn Número de turno del reloj de la sala
+     */
+    public synchronized void schedule(GameRoom room, long at, long turn) {
+        Deadline deadline = new Deadline(at, room, turn, scheduled++);
+        Deadline previous = byRoom.put(room, deadline);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+        deadlines.add(deadline);
+    }
+
+    /**
+     * Quita el vencimiento pendiente de una sala, si tiene alguno.
+     * @param room Sala
+     */
+    public synchronized void cancel(GameRoom room) {
+        Deadline previous = byRoom.remove(room);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+    }
+
+    /**
+     * Saca todos los vencimientos cumplidos y avisa a sus salas.
+     */
+    private void tick() {
+        List<Deadline> due = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            while (!deadlines.isEmpty() && deadlines.first().at - now <= 0) {
+                Deadline deadline = deadlines.pollFirst();
+                byRoom.remove(deadline.room);
+                due.add(deadline);
+            }
+        }
+        for (Deadline deadline : due) {
+            try {
+                deadline.room.onClockExpired(deadline.turn);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Error al vencer el reloj de " + deadline.room.getRoomId(), e);
+            }
+        }
+    }
+
+    public synchronized int getPending() {
+        return deadlines.size();
+    }
+}
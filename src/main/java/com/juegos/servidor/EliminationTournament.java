@@ -0,0 +1,115 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Torneo por eliminación directa.
+ *
+ * El cuadro se completa hasta la siguiente potencia de dos con exenciones para
+ * las mejores cabezas de serie, colocadas para que no se crucen hasta el final.
+ * Cada partida conoce su sitio en el cuadro, así que en cuanto terminan las dos
+ * partidas de una rama su ganador pasa a la siguiente ronda sin esperar al
+ * resto. Un empate lo gana la mejor cabeza de serie.
+ */
+public class EliminationTournament extends Tournament {
+
+    private Match[][] bracket;  // Ronda → partidas en orden del cuadro
+    private int rounds;
+
+    EliminationTournament(String id, String organizerId, RoomOptions options) {
+        super(id, organizerId, options);
+    }
+
+    @Override
+    protected List<Match> firstRound() {
+        int count = entrants.size();
+        int size = Math.max(2, Integer.highestOneBit(Math.max(1, count - 1)) << 1);
+        rounds = Integer.numberOfTrailingZeros(size);
+        bracket = new Match[rounds][];
+        for (int round = 0; round < rounds; round++) {
+            bracket[round] = new Match[size >> (round + 1)];
+            for (int index = 0; index < bracket[round].length; index++) {
+                bracket[round][index] = new Match(round, index);
+            }
+        }
+
+        int[] bySeed = new int[count];
+        for (int i = 0; i < count; i++) {
+            bySeed[entrants.get(i).getSeed()] = i;
+        }
+        int[] order = seedOrder(size);
+        List<Match> ready = new ArrayList<>();
+        for (int index = 0; index < size / 2; index++) {
+            Match match = bracket[0][index];
+            match.first = bySeed[order[2 * index]];
+            match.second = order[2 * index + 1] < count ? bySeed[order[2 * index + 1]] : BYE;
+            schedule(match, ready);
+        }
+        return ready;
+    }
+
+    /**
+     * Orden de las cabezas de serie en el cuadro: la 1 y la 2 en mitades
+     * distintas, la 1 a 4 en cuartos distintos, etc. En cada partida la mejor
+     * cabeza de serie va primero.
+     */
+    private static int[] seedOrder(int size) {
+        int[] order = {0, 1};
+        while (order.length < size) {
+            int length = order.length * 2;
+            int[] next = new int[length];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = length - 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    @Override
+    protected List<Match> advance(Match match) {
+        int winner = match.getWinner();
+        if (winner == BYE) {
+            winner = getEntrant(match.first).getSeed() < getEntrant(match.second).getSeed() ? match.first : match.second;
+        }
+        int round = match.getRound();
+        if (round == rounds - 1) {
+            conclude(winner);
+            return Collections.emptyList();
+        }
+
+        Match next = bracket[round + 1][match.getIndex() / 2];
+        Match sibling = bracket[round][match.getIndex() ^ 1];
+        if (match.getIndex() % 2 == 0) {
+            next.first = winner;
+        } else {
+            next.second = winner;
+        }
+        if (!sibling.isFinished()) {
+            return Collections.emptyList();
+        }
+        if (getEntrant(next.second).getSeed() < getEntrant(next.first).getSeed()) {
+            int swap = next.first;
+            next.first = next.second;
+            next.second = swap;
+        }
+        List<Match> ready = new ArrayList<>(1);
+        schedule(next, ready);
+        return ready;
+    }
+
+    @Override
+    public int getRounds() {
+        return rounds;
+    }
+
+    @Override
+    public String getFormat() {
+        return GameConstants.TOURNAMENT_ELIMINATION;
+    }
+}
@@ -0,0 +1,119 @@
+package com.juegos.servidor;
+
+import com.juegos.battleship.FleetLayout;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Pool acotado de disposiciones de flota generadas de antemano para las salas contra la IA.
+ * Un hilo productor en segundo plano rellena el pool cuando baja del nivel mínimo,
+ * de modo que crear una sala nunca tenga que colocar barcos en el hilo que la crea.
+ */
+public class FleetLayoutPool {
+
+    private static final Logger LOGGER = Logger.getLogger(FleetLayoutPool.class.getName());
+
+    private final ArrayBlockingQueue<FleetLayout> layouts;
+    private final int lowWaterMark;
+    private final SplittableRandom random;  // Sólo lo usa el hilo productor
+    private final AtomicLong served;
+    private final AtomicLong misses;
+
+    private volatile boolean running;
+    private volatile Thread producer;
+
+    /**
+     * Constructor del pool.
+     * @param capacity Número máximo de disposiciones preparadas
+     * @param lowWaterMark Nivel a partir del cual el productor vuelve a rellenar
+     * @param random Generador de números aleatorios propio del pool
+     */
+    public FleetLayoutPool(int capacity, int lowWaterMark, SplittableRandom random) {
+        this.layouts = new ArrayBlockingQueue<>(capacity);
+        this.lowWaterMark = Math.min(lowWaterMark, capacity - 1);
+        this.random = random;
+        this.served = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Arranca el hilo productor, que llena el pool por completo.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        producer = new Thread(this::produce, "fleet-layout-pool");
+        producer.setDaemon(true);
+        producer.setPriority(Thread.MIN_PRIORITY);
+        producer.start();
+    }
+
+    /**
+     * Detiene el hilo productor.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+            producer = null;
+        }
+    }
+
+    /**
+     * Bucle del productor: rellena hasta la capacidad y espera a que el pool
+     * baje del nivel mínimo.
+     */
+    private void produce() {
+        while (running) {
+            while (running && layouts.remainingCapacity() > 0) {
+                layouts.offer(FleetLayout.generate(random));
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Toma una disposición preparada sin bloquear.
+     * @return Disposición lista para usar o null si el pool está vacío
+     */
+    public FleetLayout take() {
+        FleetLayout layout = layouts.poll();
+
+        if (layouts.size() <= lowWaterMark) {
+            Thread current = producer;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+
+        if (layout == null) {
+            misses.incrementAndGet();
+            LOGGER.fine("Pool de disposiciones vacío");
+        } else {
+            served.incrementAndGet();
+        }
+        return layout;
+    }
+
+    public int getAvailable() {
+        return layouts.size();
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,493 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Diario de eventos de las salas, sólo de escritura al final.
+ * Los eventos se codifican en registros binarios compactos y se encolan sin bloquear;
+ * un hilo escritor los vuelca por lotes en ficheros de segmento mapeados en memoria
+ * y fuerza cada lote a disco de una vez (group commit).
+ *
+ * Cada registro lleva dos números: la secuencia global, que asigna el hilo escritor
+ * al escribirlo (así crece siempre en el orden del fichero), y la secuencia de la
+ * sala, que asigna la sala al generar el evento y con la que la recuperación sabe
+ * qué eventos ya estaban en su instantánea.
+ *
+ * Formato de un segmento (big-endian):
+ * <pre>
+ *   cabecera: int MAGIC, int VERSION, long número de segmento, long primera secuencia
+ *   registro: byte tipo, byte longitud del payload, int sala, int secuencia de la sala,
+ *             long secuencia, long marca de tiempo (ms), payload
+ * </pre>
+ * Un tipo 0 marca el final de los datos escritos. Cada segmento tiene al lado un
+ * fichero de índice con los números de sala que aparecen en él.
+ *
+ * Si la cola está llena el evento se descarta, pero no en silencio: el hilo
+ * escritor añade a continuación un evento {@link #EVENT_EVENTS_LOST} de la sala,
+ * para que la recuperación no la reconstruya con jugadas de menos, y avisa para
+ * que se escriba cuanto antes una instantánea completa.
+ */
+public class GameJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(GameJournal.class.getName());
+
+    public static final int MAGIC = 0x42534A4C; // "BSJL"
+    public static final int VERSION = 3;
+    public static final int SEGMENT_HEADER_SIZE = 24;
+    public static final int RECORD_HEADER_SIZE = 26;
+    static final int SEQUENCE_OFFSET = 10;             // Posición de la secuencia global en un registro
+
+    // Tipos de evento
+    public static final byte EVENT_ROOM_CREATED = 1;   // payload: long semilla, byte modo (0 humano, 1 IA), opciones UTF-8
+    public static final byte EVENT_PLAYER_JOINED = 2;  // payload: byte plaza, byte longitud del token, token, ID UTF-8
+    public static final byte EVENT_PLACE = 3;          // payload: plaza, barco, fila, columna, horizontal
+    public static final byte EVENT_SHOOT = 4;          // payload: plaza, fila, columna, resultado, barco hundido
+    public static final byte EVENT_TURN_CHANGED = 5;   // payload: plaza
+    public static final byte EVENT_GAME_ENDED = 6;     // payload: resultado, plaza ganadora
+    public static final byte EVENT_EVENTS_LOST = 7;    // payload: int eventos descartados
+
+    // Resultados de disparo
+    public static final byte SHOT_MISS = 0;
+    public static final byte SHOT_HIT = 1;
+    public static final byte SHOT_SUNK = 2;
+
+    // Resultados de partida
+    public static final byte GAME_WIN = 0;
+    public static final byte GAME_ABANDONED = 1;
+    public static final byte GAME_DRAW = 2;
+    public static final byte GAME_TIMEOUT = 3;
+
+    private static final int MAX_BATCH = 1024;
+    private static final byte[] STOP = new byte[0];    // Marca que detiene al hilo escritor
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ArrayBlockingQueue<byte[]> queue;
+    private final AtomicLong sequence;                 // Última secuencia asignada (sólo la cambia el hilo escritor)
+    private final AtomicLong dropped;
+    private final Map<Integer, long[]> lostEvents;     // sala → {eventos descartados, última secuencia de la sala}
+    private final Map<Integer, Set<Long>> roomIndex;   // sala → segmentos en los que aparece
+
+    private volatile boolean running;
+    private volatile Runnable onEventsLost;
+    private Thread writer;
+
+    // Estado del segmento actual (sólo lo usa el hilo escritor)
+    private long segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private final Set<Integer> segmentRooms;
+
+    /**
+     * Constructor del diario.
+     * @param directory Directorio de los segmentos
+     * @param segmentSize Tamaño de cada segmento en bytes
+     * @param queueCapacity Eventos que pueden esperar a ser escritos
+     */
+    public GameJournal(Path directory, int segmentSize, int queueCapacity) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sequence = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.lostEvents = new ConcurrentHashMap<>();
+        this.roomIndex = new ConcurrentHashMap<>();
+        this.segmentRooms = new TreeSet<>();
+    }
+
+    /**
+     * Abre el diario: carga los índices existentes, continúa la secuencia del último
+     * segmento y arranca el hilo escritor en un segmento nuevo.
+     * @throws IOException Si no se puede preparar el directorio
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+
+        List<Path> segments = listSegments(directory);
+        for (Path file : segments) {
+            long number = segmentNumberOf(file);
+            for (int room : readIndex(indexFileFor(file))) {
+                indexRoom(room, number);
+            }
+            segmentNumber = Math.max(segmentNumber, number);
+        }
+        if (!segments.isEmpty()) {
+            sequence.set(JournalReader.lastSequence(segments.get(segments.size() - 1)));
+        }
+
+        openSegment(segmentNumber + 1);
+        running = true;
+        writer = new Thread(this::writeLoop, "game-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Detiene el hilo escritor tras volcar los eventos pendientes. No se interrumpe
+     * al hilo, porque una interrupción cerraría el canal del segmento a mitad de una
+     * escritura: se le encola una marca de parada detrás de los eventos.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                if (queue.offer(STOP, 5, TimeUnit.SECONDS)) {
+                    writer.join(5000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Añade un evento al diario sin bloquear. La secuencia global la asigna el hilo
+     * escritor. Si la cola está llena el evento se descarta y la sala queda
+     * pendiente de marcar con {@link #EVENT_EVENTS_LOST}.
+     * @param type Tipo de evento
+     * @param room Número de sala
+     * @param roomSequence Secuencia del evento dentro de su sala (la asigna la sala, en orden)
+     * @param payload Datos del evento (máximo 255 bytes)
+     * @return true si el evento quedó en cola, false si se descartó
+     */
+    public boolean append(byte type, int room, long roomSequence, byte... payload) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.put(type)
+              .put((byte) payload.length)
+              .putInt(room)
+              .putInt((int) roomSequence)
+              .putLong(0)
+              .putLong(System.currentTimeMillis())
+              .put(payload);
+
+        if (!queue.offer(record.array())) {
+            lostEvents.compute(room, (r, lost) -> lost == null ? new long[] {1, roomSequence}
+                : new long[] {lost[0] + 1, Math.max(lost[1], roomSequence)});
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                LOGGER.warning("Cola del diario llena, eventos descartados: " + dropped.get());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Bucle del hilo escritor: agrupa los eventos pendientes, les asigna la secuencia,
+     * los copia al segmento mapeado y fuerza el lote completo a disco. Termina al
+     * recibir la marca de parada de {@link #stop()} y vaciar la cola.
+     */
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    byte[] first = stopping ? queue.poll() : queue.take();
+                    if (first == null) {
+                        break;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+
+                for (byte[] record : batch) {
+                    if (record == STOP) {
+                        stopping = true;
+                    } else {
+                        writeRecord(record);
+                    }
+                }
+                boolean lost = writeLostMarkers();
+                segment.force();
+                batch.clear();
+
+                Runnable listener = onEventsLost;
+                if (lost && listener != null) {
+                    listener.run();
+                }
+
+            } catch (InterruptedException e) {
+                // Nadie interrumpe a este hilo; stop() usa la marca de parada
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error escribiendo el diario de partidas", e);
+                batch.clear();
+            }
+        }
+
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error cerrando el segmento del diario", e);
+        }
+    }
+
+    private void writeRecord(byte[] record) throws IOException {
+        if (segment.remaining() < record.length + 1) {
+            rollSegment();
+        }
+        ByteBuffer.wrap(record).putLong(SEQUENCE_OFFSET, sequence.incrementAndGet());
+        segment.put(record);
+        segmentRooms.add(ByteBuffer.wrap(record, 2, 4).getInt());
+    }
+
+    /**
+     * Escribe un evento {@link #EVENT_EVENTS_LOST} por cada sala que ha perdido
+     * eventos desde el último lote. Lo escribe el propio hilo escritor, así que
+     * no depende de que haya sitio en la cola.
+     * @return true si alguna sala perdió eventos
+     */
+    private boolean writeLostMarkers() throws IOException {
+        boolean any = false;
+        for (Integer room : lostEvents.keySet()) {
+            long[] lost = lostEvents.remove(room);
+            if (lost == null) {
+                continue;
+            }
+            // Con la secuencia de sala del último evento perdido: si una instantánea
+            // ya lo incluye, la recuperación no necesita descartar la sala
+            writeRecord(ByteBuffer.allocate(RECORD_HEADER_SIZE + 4)
+                                  .put(EVENT_EVENTS_LOST)
+                                  .put((byte) 4)
+                                  .putInt(room)
+                                  .putInt((int) lost[1])
+                                  .putLong(0)
+                                  .putLong(System.currentTimeMillis())
+                                  .putInt((int) lost[0])
+                                  .array());
+            any = true;
+        }
+        return any;
+    }
+
+    private void openSegment(long number) throws IOException {
+        segmentNumber = number;
+        Path file = segmentFile(directory, number);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(MAGIC).putInt(VERSION).putLong(number).putLong(sequence.get() + 1);
+        segmentRooms.clear();
+    }
+
+    private void rollSegment() throws IOException {
+        closeSegment();
+        openSegment(segmentNumber + 1);
+    }
+
+    /**
+     * Cierra el segmento actual y escribe su índice de salas.
+     */
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        segment.force();
+        channel.close();
+        channel = null;
+
+        ByteBuffer index = ByteBuffer.allocate(segmentRooms.size() * 4);
+        for (int room : segmentRooms) {
+            index.putInt(room);
+            indexRoom(room, segmentNumber);
+        }
+        Files.write(indexFileFor(segmentFile(directory, segmentNumber)), index.array());
+    }
+
+    private void indexRoom(int room, long number) {
+        roomIndex.computeIfAbsent(room, r -> Collections.synchronizedSet(new TreeSet<Long>())).add(number);
+    }
+
+    /**
+     * Obtiene los segmentos cerrados en los que aparece una sala.
+     * Los eventos del segmento en curso se indexan al cerrarlo.
+     * @param room Número de sala
+     * @return Números de segmento en orden
+     */
+    public List<Long> getSegmentsForRoom(int room) {
+        Set<Long> segments = roomIndex.get(room);
+        if (segments == null) {
+            return Collections.emptyList();
+        }
+        synchronized (segments) {
+            return new ArrayList<>(segments);
+        }
+    }
+
+    // Utilidades de nombres de fichero
+
+    /**
+     * Obtiene la ruta de un segmento.
+     * @param directory Directorio del diario
+     * @param number Número de segmento
+     * @return Ruta del fichero de segmento
+     */
+    public static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("journal-%010d.seg", number));
+    }
+
+    static Path indexFileFor(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - 4) + ".idx");
+    }
+
+    static long segmentNumberOf(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - 4));
+    }
+
+    /**
+     * Lista los segmentos de un directorio en orden.
+     * @param directory Directorio del diario
+     * @return Rutas de los segmentos ordenadas por número
+     * @throws IOException Si no se puede leer el directorio
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "journal-*.seg")) {
+            for (Path file : stream) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static int[] readIndex(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return new int[0];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        int[] rooms = new int[buffer.remaining() / 4];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = buffer.getInt();
+        }
+        return rooms;
+    }
+
+    // Codificación de eventos
+
+    /**
+     * Codifica la entrada de un jugador. El token de sesión es el secreto con el
+     * que el jugador podrá volver a su plaza tras reiniciar el servidor; el ID
+     * del jugador es público y no sirve para reanudar.
+     * @param slot Plaza del jugador
+     * @param sessionToken Token de sesión o null si no tiene (la IA)
+     * @param playerId ID del jugador
+     * @return Payload del evento {@link #EVENT_PLAYER_JOINED}
+     */
+    public static byte[] encodePlayerJoined(int slot, String sessionToken, String playerId) {
+        byte[] token = sessionToken != null ? sessionToken.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] id = playerId.getBytes(StandardCharsets.UTF_8);
+        int tokenLength = Math.min(token.length, 64);
+        int idLength = Math.min(id.length, 200);
+        return ByteBuffer.allocate(2 + tokenLength + idLength)
+                         .put((byte) slot)
+                         .put((byte) tokenLength)
+                         .put(token, 0, tokenLength)
+                         .put(id, 0, idLength)
+                         .array();
+    }
+
+    // Codificación de resultados
+
+    /**
+     * Codifica el resultado de un disparo.
+     * @param result "HIT", "MISS" o "SUNK:NombreBarco"
+     * @return Código del resultado
+     */
+    public static byte encodeShotResult(String result) {
+        if (result == null || "MISS".equals(result)) {
+            return SHOT_MISS;
+        }
+        return result.startsWith("SUNK") ? SHOT_SUNK : SHOT_HIT;
+    }
+
+    /**
+     * Obtiene el índice en la flota estándar del barco hundido en un resultado.
+     * @param result Resultado del disparo
+     * @return Índice del barco o -1 si no hubo hundimiento
+     */
+    public static byte sunkShipIndex(String result) {
+        if (result != null && result.startsWith("SUNK:")) {
+            String name = result.substring(5);
+            for (int i = 0; i < GameConstants.SHIP_NAMES.length; i++) {
+                if (GameConstants.SHIP_NAMES[i].equals(name)) {
+                    return (byte) i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Codifica el resultado de una partida.
+     * @param result Resultado tal como lo emite GameRoom.endGame
+     * @return Código del resultado
+     */
+    public static byte encodeGameResult(String result) {
+        if (result.startsWith(GameConstants.RESULT_WIN)) {
+            return GAME_WIN;
+        } else if (result.startsWith(GameConstants.RESULT_DRAW)) {
+            return GAME_DRAW;
+        } else if (result.startsWith("TIMEOUT")) {
+            return GAME_TIMEOUT;
+        }
+        return GAME_ABANDONED;
+    }
+
+    public long getLastSequence() {
+        return sequence.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Configura el aviso de que alguna sala ha perdido eventos. Se llama desde el
+     * hilo escritor tras dejar constancia en el diario, así que no debe bloquear.
+     * @param listener Acción a ejecutar o null para ninguna
+     */
+    public void setOnEventsLost(Runnable listener) {
+        this.onEventsLost = listener;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
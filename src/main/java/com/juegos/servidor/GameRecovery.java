@@ -0,0 +1,338 @@
+package com.juegos.servidor;
+
+import com.juegos.battleship.FleetLayout;
+import com.juegos.common.GameConstants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+/**
+ * Recuperación de las salas en curso tras una caída del servidor.
+ * El servidor escribe periódicamente una instantánea compacta de todas las salas
+ * activas; al arrancar se lee la última instantánea y se aplica la cola del
+ * {@link GameJournal} posterior a ella. El tiempo de recuperación queda acotado
+ * por el tamaño de la instantánea más los eventos de un intervalo. Una sala cuyo
+ * diario perdió eventos después de la instantánea no se puede reanudar.
+ *
+ * La secuencia global del diario sólo decide desde dónde leer; si un evento ya
+ * está en la instantánea de su sala se decide con la secuencia de la sala, porque
+ * un evento encolado antes de la instantánea puede escribirse después.
+ *
+ * Formato de la instantánea (big-endian):
+ * <pre>
+ *   int MAGIC ("BSSN"), short VERSION, long secuencia del diario al empezar,
+ *   int mayor número de sala, int número de salas, salas (ver RoomSnapshot)
+ * </pre>
+ */
+public class GameRecovery {
+
+    private static final Logger LOGGER = Logger.getLogger(GameRecovery.class.getName());
+
+    public static final int MAGIC = 0x4253534E; // "BSSN"
+    public static final short VERSION = 3;
+    public static final String SNAPSHOT_FILE = "rooms.snap";
+
+    private final Path directory;
+    private int maxRoomNumber;          // Mayor número de sala visto en la última recuperación
+    private long lastRecoveryNanos;
+
+    /**
+     * Constructor.
+     * @param directory Directorio de las instantáneas
+     */
+    public GameRecovery(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Escribe una instantánea nueva y sustituye la anterior de forma atómica.
+     * @param rooms Estado de las salas activas
+     * @param journalSequence Secuencia del diario leída antes de capturar las salas
+     * @param maxRoomNumber Mayor número de sala asignado hasta ahora
+     * @return Número de salas escritas
+     * @throws IOException Si no se puede escribir la instantánea
+     */
+    public int writeSnapshot(Collection<RoomSnapshot> rooms, long journalSequence, int maxRoomNumber)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(journalSequence);
+            out.writeInt(maxRoomNumber);
+            out.writeInt(rooms.size());
+            for (RoomSnapshot room : rooms) {
+                room.writeTo(out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rooms.size();
+    }
+
+    /**
+     * Reconstruye el estado de las salas en curso.
+     * @param journalDirectory Directorio del diario o null para usar sólo la instantánea
+     * @return Salas que se pueden reanudar, por número de sala
+     * @throws IOException Si la instantánea o el diario no se pueden leer
+     */
+    public Map<Integer, RoomSnapshot> recover(Path journalDirectory) throws IOException {
+        long start = System.nanoTime();
+        Map<Integer, RoomSnapshot> rooms = new HashMap<>();
+
+        long from = readSnapshot(rooms);
+        long snapshotNanos = System.nanoTime() - start;
+
+        int replayed = journalDirectory != null ? replayJournal(journalDirectory, from, rooms) : 0;
+        rooms.values().removeIf(room -> !room.isResumable());
+
+        lastRecoveryNanos = System.nanoTime() - start;
+        LOGGER.info("Recuperadas " + rooms.size() + " salas en " + lastRecoveryNanos / 1_000_000 + " ms" +
+                    " (instantánea " + snapshotNanos / 1_000_000 + " ms, " + replayed +
+                    " eventos del diario desde la secuencia " + from + ")");
+        return rooms;
+    }
+
+    /**
+     * Lee la última instantánea.
+     * @param rooms Mapa en el que cargar las salas
+     * @return Secuencia del diario a partir de la que hay que aplicar eventos
+     */
+    private long readSnapshot(Map<Integer, RoomSnapshot> rooms) throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        maxRoomNumber = 0;
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Instantánea de salas no válida: " + file);
+            }
+            long journalSequence = in.readLong();
+            maxRoomNumber = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                RoomSnapshot room = RoomSnapshot.readFrom(in);
+                rooms.put(room.getRoomNumber(), room);
+            }
+            return journalSequence;
+        }
+    }
+
+    /**
+     * Aplica los eventos del diario posteriores a la instantánea.
+     * Los segmentos que terminan antes de esa secuencia no se leen.
+     * @return Número de eventos aplicados
+     */
+    private int replayJournal(Path journalDirectory, long from, Map<Integer, RoomSnapshot> rooms)
+            throws IOException {
+        List<Path> segments = GameJournal.listSegments(journalDirectory);
+        int[] applied = new int[1];
+
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && JournalReader.firstSequence(segments.get(i + 1)) <= from + 1) {
+                continue;
+            }
+            if (JournalReader.version(segments.get(i)) != GameJournal.VERSION) {
+                LOGGER.warning("Segmento de diario de otra versión, no se aplica: " + segments.get(i));
+                continue;
+            }
+            JournalReader.forEach(segments.get(i),
+                                  (type, room, roomSequence, sequence, timestamp, data, offset, length) -> {
+                if (sequence > from && apply(rooms, type, room, roomSequence, data, offset, length)) {
+                    applied[0]++;
+                }
+            });
+        }
+        return applied[0];
+    }
+
+    /**
+     * Aplica un evento del diario al estado de su sala, si no estaba ya en ella.
+     * @param roomSequence Secuencia del evento dentro de su sala
+     * @return true si el evento cambió el estado
+     */
+    private boolean apply(Map<Integer, RoomSnapshot> rooms, byte type, int roomNumber, long roomSequence,
+                          ByteBuffer data, int offset, int length) {
+        RoomSnapshot room = rooms.get(roomNumber);
+
+        if (type == GameJournal.EVENT_ROOM_CREATED) {
+            maxRoomNumber = Math.max(maxRoomNumber, roomNumber);
+            if (room != null || length < 9) {
+                return false;
+            }
+            room = new RoomSnapshot(roomNumber, data.get(offset + 8) == 1,
+                                    utf8(data, offset + 9, length - 9), data.getLong(offset));
+            room.setLastSequence(roomSequence);
+            rooms.put(roomNumber, room);
+            return true;
+        }
+
+        if (room == null || roomSequence <= room.getLastSequence()) {
+            return false;
+        }
+
+        switch (type) {
+            case GameJournal.EVENT_PLAYER_JOINED:
+                int tokenLength = data.get(offset + 1) & 0xFF;
+                room.setPlayerId(data.get(offset), utf8(data, offset + 2 + tokenLength, length - 2 - tokenLength));
+                room.setSessionToken(data.get(offset), tokenLength > 0 ? utf8(data, offset + 2, tokenLength) : null);
+                break;
+            case GameJournal.EVENT_PLACE:
+                room.placeShip(data.get(offset), data.get(offset + 1), data.get(offset + 2),
+                               data.get(offset + 3), data.get(offset + 4) != 0);
+                break;
+            case GameJournal.EVENT_SHOOT:
+                room.addShot(data.get(offset), data.get(offset + 1), data.get(offset + 2));
+                break;
+            case GameJournal.EVENT_GAME_ENDED:
+                rooms.remove(roomNumber);
+                return true;
+            case GameJournal.EVENT_EVENTS_LOST:
+                LOGGER.warning("La sala " + roomNumber + " perdió " + data.getInt(offset) +
+                               " eventos del diario; no se puede reanudar");
+                rooms.remove(roomNumber);
+                return true;
+            default:
+                break;
+        }
+        room.setLastSequence(roomSequence);
+        return true;
+    }
+
+    private static String utf8(ByteBuffer data, int offset, int length) {
+        byte[] bytes = new byte[Math.max(0, length)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getMaxRoomNumber() {
+        return maxRoomNumber;
+    }
+
+    public long getLastRecoveryNanos() {
+        return lastRecoveryNanos;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Medición del tiempo de recuperación con salas sintéticas a mitad de partida.
+     * Uso: GameRecovery [salas]
+     * @param args Argumentos de línea de comandos
+     * @throws IOException Si no se puede escribir la instantánea temporal
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<RoomSnapshot> rooms = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rooms.add(syntheticRoom(i, random));
+        }
+
+        Path directory = Files.createTempDirectory("battleship-recovery");
+        GameRecovery recovery = new GameRecovery(directory);
+
+        long start = System.nanoTime();
+        recovery.writeSnapshot(rooms, 0, count);
+        long written = System.nanoTime();
+        Map<Integer, RoomSnapshot> recovered = recovery.recover(null);
+        long read = System.nanoTime();
+        for (RoomSnapshot room : recovered.values()) {
+            GameRoom.restore(room, null);
+        }
+        long restored = System.nanoTime();
+
+        System.out.println("Salas: " + count + " (" + Files.size(directory.resolve(SNAPSHOT_FILE)) + " bytes)");
+        System.out.println("Escritura de la instantánea: " + (written - start) / 1_000_000 + " ms");
+        System.out.println("Recuperación:                " + (read - written) / 1_000_000 + " ms");
+        System.out.println("Reconstrucción de todas:     " + (restored - read) / 1_000_000 + " ms");
+
+        Files.delete(directory.resolve(SNAPSHOT_FILE));
+        Files.delete(directory);
+    }
+
+    /**
+     * Genera una sala contra la IA a mitad de partida, con disparos válidos
+     * y turnos que sólo cambian con un fallo.
+     */
+    private static RoomSnapshot syntheticRoom(int number, SplittableRandom random) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        RoomSnapshot room = new RoomSnapshot(number, true, "", random.nextLong());
+        room.setPlayerId(0, "CLIENT_" + number);
+        room.setPlayerId(1, "AI_" + number);
+
+        boolean[][] occupied = new boolean[2][size * size];
+        int[][] order = new int[2][size * size];
+        for (int slot = 0; slot < 2; slot++) {
+            FleetLayout layout = FleetLayout.generate(random);
+            for (int ship = 0; ship < layout.getShipCount(); ship++) {
+                room.placeShip(slot, ship, layout.getRow(ship), layout.getCol(ship), layout.isHorizontal(ship));
+                for (int i = 0; i < GameConstants.SHIP_SIZES[ship]; i++) {
+                    occupied[slot][layout.isHorizontal(ship)
+                        ? layout.getRow(ship) * size + layout.getCol(ship) + i
+                        : (layout.getRow(ship) + i) * size + layout.getCol(ship)] = true;
+                }
+            }
+            for (int cell = 0; cell < order[slot].length; cell++) {
+                int other = random.nextInt(cell + 1);
+                order[slot][cell] = order[slot][other];
+                order[slot][other] = cell;
+            }
+        }
+
+        int cellsToSink = 0;
+        for (int shipSize : GameConstants.SHIP_SIZES) {
+            cellsToSink += shipSize;
+        }
+
+        int[] fired = new int[2];
+        int[] hits = new int[2];
+        int shooter = 0;
+        for (int shot = random.nextInt(60); shot > 0; shot--) {
+            int cell = order[shooter][fired[shooter]++];
+            room.addShot(shooter, cell / size, cell % size);
+            if (occupied[1 - shooter][cell]) {
+                if (++hits[shooter] == cellsToSink - 1) {
+                    break;
+                }
+            } else {
+                shooter = 1 - shooter;
+            }
+        }
+        return room;
+    }
+}
@@ -1,10 +1,32 @@
 package com.juegos.servidor;
 
+import com.juegos.battleship.AttackStrategies;
+import com.juegos.battleship.BattleshipAI;
+import com.juegos.battleship.Board;
+import com.juegos.battleship.FleetLayout;
+import com.juegos.battleship.FreeForAllGame;
+import com.juegos.battleship.MegaBattleshipGame;
+import com.juegos.battleship.SparseBoard;
+import com.juegos.battleship.GameRecord;
 import com.juegos.common.GameConstants;
 import com.juegos.battleship.BattleshipGame;
+import com.juegos.battleship.Ship;
+import com.juegos.common.Player;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -16,11 +38,18 @@ import java.util.logging.Logger;
 public class GameRoom {
     
     private static final Logger LOGGER = Logger.getLogger(GameRoom.class.getName());
+    private static final String PLACE_FLEET_AUTO = "PLACE_FLEET:AUTO";
     
     private final String roomId;
+    private final int roomNumber;      // Parte numérica del ID, usada en el diario
     private final String gameType;
     private final String mode;
+    private final RoomOptions options;
+    private final long seed;           // Semilla de la partida, registrada para reproducirla
     private final List<ClientHandler> players;
+    private final List<String> reservedPlayerIds;  // Jugadores de una sala recuperada que aún no volvieron
+    private final Set<String> detachedPlayerIds;   // Jugadores sin conexión dentro del plazo de reconexión
+    private final Map<String, String> sessionTokens; // ID del jugador → token con el que puede reanudar
     private final int maxPlayers;
     
     private Object gameInstance;    // Instancia del juego específico
@@ -29,6 +58,27 @@ public class GameRoom {
     private boolean gameStarted;
     private boolean gameFinished;
     
+    // Oponente IA (sólo en modo VS_AI)
+    private BattleshipAI ai;
+    private Player aiPlayer;
+    private ExecutorService aiExecutor;  // Capacidad ociosa para el cálculo especulativo de la IA
+    private FleetLayoutPool layoutPool;  // Disposiciones de flota preparadas para la IA
+    private GameJournal journal;         // Diario de eventos (null = desactivado)
+    private long lastSequence;           // Secuencia de sala del último evento enviado al diario
+    private Consumer<GameRoom> onFinished;  // Se avisa al terminar la partida (archivo, estadísticas)
+    private String result;               // Resultado final de la partida
+    private ClientHandler abandonedBy;   // Jugador que dejó la partida en curso
+    private volatile SpectatorFeed spectatorFeed; // Retransmisión a espectadores (null = sin espectadores)
+    private ClockScheduler clockScheduler; // Planificador compartido de los relojes
+    private ChessClock clock;            // Reloj de la partida (null = sin límite de tiempo)
+    
+    // Eventos difundidos a los jugadores, numerados para reenviar sólo lo perdido al reconectar
+    private final String[] history;              // Últimos eventos, por secuencia módulo el tamaño
+    private long eventSequence;                  // Número del último evento difundido
+    private final Map<String, Long> acknowledged; // Último evento confirmado por cada jugador
+    private final Map<String, String> fleetMessages; // FLEET_PLACED de cada jugador, que no pasa por el historial
+    private final long[][] cellVersions;         // Último evento que cambió cada celda, por tablero
+    
     /**
      * Constructor de la sala de juego.
      * @param roomId ID único de la sala
@@ -36,11 +86,46 @@ public class GameRoom {
      * @param mode Modo de juego (VS_HUMAN, VS_AI)
      */
     public GameRoom(String roomId, String gameType, String mode) {
+        this(roomId, gameType, mode, RoomOptions.NONE);
+    }
+    
+    /**
+     * Constructor de la sala de juego con opciones.
+     * @param roomId ID único de la sala
+     * @param gameType Tipo de juego (BATTLESHIP)
+     * @param mode Modo de juego (VS_HUMAN, VS_AI)
+     * @param options Opciones de la sala (estrategia de la IA, etc.)
+     */
+    public GameRoom(String roomId, String gameType, String mode, RoomOptions options) {
+        this(roomId, gameType, mode, options,
+             options.getLong(RoomOptions.SEED, ThreadLocalRandom.current().nextLong()));
+    }
+    
+    /**
+     * Constructor de la sala de juego con opciones y semilla.
+     * @param roomId ID único de la sala
+     * @param gameType Tipo de juego (BATTLESHIP)
+     * @param mode Modo de juego (VS_HUMAN, VS_AI)
+     * @param options Opciones de la sala (estrategia de la IA, etc.)
+     * @param seed Semilla de la partida
+     */
+    public GameRoom(String roomId, String gameType, String mode, RoomOptions options, long seed) {
         this.roomId = roomId;
+        this.roomNumber = parseRoomNumber(roomId);
         this.gameType = gameType;
         this.mode = mode;
+        this.options = options;
+        this.seed = seed;
         this.players = new ArrayList<>();
-        this.maxPlayers = GameConstants.MODE_VS_AI.equals(mode) ? 1 : 2;
+        this.reservedPlayerIds = new ArrayList<>();
+        this.detachedPlayerIds = new HashSet<>();
+        this.sessionTokens = new HashMap<>();
+        this.history = new String[GameConstants.ROOM_HISTORY_SIZE];
+        this.acknowledged = new HashMap<>();
+        this.fleetMessages = new HashMap<>();
+        this.cellVersions = new long[2][GameConstants.BATTLESHIP_BOARD_SIZE * GameConstants.BATTLESHIP_BOARD_SIZE];
+        this.maxPlayers = GameConstants.MODE_VS_AI.equals(mode) ? 1 :
+                          GameConstants.MODE_FFA.equals(mode) ? ffaPlayers(options) : 2;
         this.gameState = GameConstants.STATE_WAITING;
         this.gameStarted = false;
         this.gameFinished = false;
@@ -51,12 +136,16 @@ public class GameRoom {
      * @param player Manejador del cliente
      * @return true si se agregó exitosamente
      */
-    public boolean addPlayer(ClientHandler player) {
+    public synchronized boolean addPlayer(ClientHandler player) {
         if (players.size() < maxPlayers && !hasPlayer(player.getClientId())) {
             players.add(player);
             player.setCurrentRoomId(roomId);
             
-            LOGGER.info("Jugador agregado a sala " + roomId + ": " + player.getClientId());
+            sessionTokens.put(player.getClientId(), player.getSessionToken());
+            journal(GameJournal.EVENT_PLAYER_JOINED,
+                    GameJournal.encodePlayerJoined(players.size() - 1, player.getSessionToken(), player.getClientId()));
+            
+            ServerLog.log(ServerLog.Event.PLAYER_ADDED, roomId, player.getClientId());
             
             // Si es el primer jugador, asignarle el turno
             if (players.size() == 1) {
@@ -73,7 +162,7 @@ public class GameRoom {
      * @param playerId ID del jugador
      * @return true si se removió exitosamente
      */
-    public boolean removePlayer(String playerId) {
+    public synchronized boolean removePlayer(String playerId) {
         ClientHandler toRemove = null;
         for (ClientHandler player : players) {
             if (player.getClientId().equals(playerId)) {
@@ -84,12 +173,22 @@ public class GameRoom {
         
         if (toRemove != null) {
             players.remove(toRemove);
-            toRemove.setCurrentRoomId(null);
+            detachedPlayerIds.remove(playerId);
+            acknowledged.remove(playerId);
+            fleetMessages.remove(playerId);
+            toRemove.leaveRoom(roomId);
             
-            LOGGER.info("Jugador removido de sala " + roomId + ": " + playerId);
+            ServerLog.log(ServerLog.Event.PLAYER_REMOVED, roomId, playerId);
+            
+            // En FFA quien se va queda eliminado y la partida sigue mientras queden dos
+            if (gameStarted && !gameFinished && gameInstance instanceof FreeForAllGame) {
+                eliminatePlayer((FreeForAllGame) gameInstance, playerId);
+                return true;
+            }
             
             // Si el juego estaba en progreso, terminarlo
             if (gameStarted && !gameFinished) {
+                abandonedBy = toRemove;
                 endGame("ABANDONED");
             }
             
@@ -98,6 +197,36 @@ public class GameRoom {
         return false;
     }
     
+    /**
+     * Elimina de una partida FFA a un jugador que deja la sala o agota su tiempo.
+     * @param ffa Partida en curso
+     * @param playerId ID del jugador
+     */
+    private void eliminatePlayer(FreeForAllGame ffa, String playerId) {
+        boolean wasSetup = ffa.isSetupPhase();
+        if (!ffa.eliminatePlayer(playerId)) {
+            return;
+        }
+        broadcastToAll("PLAYER_ELIMINATED:" + playerId);
+        String winner = ffa.checkGameEnd();
+        if (winner != null) {
+            endGame(winner);
+        } else if (ffa.isBattlePhase() && (wasSetup || !ffa.getCurrentPlayer().getId().equals(currentPlayerId))) {
+            startBattleTurn();
+        }
+    }
+    
+    /**
+     * Indica si la partida está en la fase de colocación de flotas.
+     * @return true si se están colocando las flotas
+     */
+    private boolean isSetupPhase() {
+        if (gameInstance instanceof FreeForAllGame) {
+            return ((FreeForAllGame) gameInstance).isSetupPhase();
+        }
+        return gameInstance instanceof BattleshipGame && ((BattleshipGame) gameInstance).isSetupPhase();
+    }
+    
     /**
      * Verifica si un jugador está en la sala.
      * @param playerId ID del jugador
@@ -112,7 +241,7 @@ public class GameRoom {
      * @return true si hay espacio
      */
     public boolean hasSpace() {
-        return players.size() < maxPlayers;
+        return players.size() + reservedPlayerIds.size() < maxPlayers;
     }
     
     /**
@@ -133,11 +262,22 @@ public class GameRoom {
     
     /**
      * Inicializa el juego según el tipo.
+     * El juego sólo se crea cuando la sala está completa.
      */
-    public void initializeGame() {
+    public synchronized void initializeGame() {
+        if (gameStarted || !isFull()) {
+            return;
+        }
+        
         switch (gameType) {
             case GameConstants.GAME_BATTLESHIP:
-                gameInstance = new BattleshipGame();
+                gameInstance = GameConstants.MODE_FFA.equals(mode) ? createFreeForAllGame() : createBattleshipGame();
+                break;
+            case GameConstants.GAME_MEGA_BATTLESHIP:
+                gameInstance = createMegaGame();
+                if (gameInstance == null) {
+                    return;
+                }
                 break;
             default:
                 LOGGER.warning("Tipo de juego no reconocido: " + gameType);
@@ -146,11 +286,242 @@ public class GameRoom {
         
         gameState = GameConstants.STATE_PLAYING;
         gameStarted = true;
+        clock = createClock();
         
-        LOGGER.info("Juego inicializado en sala " + roomId + ": " + gameType);
+        ServerLog.log(ServerLog.Event.GAME_INITIALIZED, roomId, gameType, seed);
         
         // Notificar a todos los jugadores
         broadcastToAll("GAME_INITIALIZED:" + gameType);
+        publishStart();
+        if (gameInstance instanceof MegaBattleshipGame) {
+            startMegaGame((MegaBattleshipGame) gameInstance);
+        } else if (gameInstance instanceof FreeForAllGame) {
+            // Orden de turnos de la partida
+            StringBuilder order = new StringBuilder("PLAYERS:");
+            for (int i = 0; i < players.size(); i++) {
+                if (i > 0) {
+                    order.append(',');
+                }
+                order.append(players.get(i).getClientId());
+            }
+            broadcastToAll(order.toString());
+        }
+    }
+    
+    /**
+     * Número de jugadores de una sala FFA, dentro de los límites del modo.
+     * @param options Opciones de la sala
+     * @return Jugadores de la sala
+     */
+    static int ffaPlayers(RoomOptions options) {
+        int count = options.getInt(RoomOptions.PLAYERS, GameConstants.FFA_DEFAULT_PLAYERS);
+        return Math.max(GameConstants.FFA_MIN_PLAYERS, Math.min(GameConstants.FFA_MAX_PLAYERS, count));
+    }
+    
+    /**
+     * Crea la partida todos contra todos con los jugadores de la sala, en orden de llegada.
+     * @return Partida en fase de configuración
+     */
+    private FreeForAllGame createFreeForAllGame() {
+        Player[] order = new Player[players.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = players.get(i).getPlayer();
+        }
+        return new FreeForAllGame(seed, order);
+    }
+    
+    /**
+     * Crea la partida de Batalla Naval a gran escala con el tamaño y la flota
+     * de las opciones. Si no son válidos se avisa a los jugadores y no se crea.
+     * @return Partida creada o null
+     */
+    private MegaBattleshipGame createMegaGame() {
+        int size = options.getInt(RoomOptions.BOARD, GameConstants.MEGA_BOARD_DEFAULT_SIZE);
+        int ships = options.getInt(RoomOptions.SHIPS, MegaBattleshipGame.defaultShips(size));
+        try {
+            MegaBattleshipGame mega = new MegaBattleshipGame(seed, size, ships);
+            mega.setPlayers(players.get(0).getPlayer(), players.get(1).getPlayer());
+            return mega;
+        } catch (IllegalArgumentException e) {
+            broadcastToAll("ERROR:" + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Envía a cada jugador su flota y da el primer turno de una partida a gran escala.
+     * @param mega Partida recién creada
+     */
+    private void startMegaGame(MegaBattleshipGame mega) {
+        for (ClientHandler player : players) {
+            SparseBoard board = mega.getPlayerBoard(player.getClientId());
+            sendFleet(player.getClientId(), "FLEET_PLACED:" + mega.getBoardSize() + ":" + board.encodeFleet());
+        }
+        currentPlayerId = mega.getCurrentPlayer().getId();
+        broadcastToAll("TURN_CHANGED:" + currentPlayerId);
+        runClock();
+    }
+    
+    /**
+     * Crea el reloj de ajedrez si la sala tiene la opción CLOCK. El reloj no
+     * corre hasta que empieza la batalla; la colocación de flotas no cuenta.
+     * @return Reloj de la partida o null si no tiene límite de tiempo
+     */
+    private ChessClock createClock() {
+        int seconds = Math.min(options.getInt(RoomOptions.CLOCK, 0), GameConstants.CLOCK_MAX_SECONDS);
+        if (seconds <= 0 || clockScheduler == null) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>();
+        if (gameInstance instanceof BattleshipGame) {
+            ids.add(((BattleshipGame) gameInstance).getPlayer1().getId());
+            ids.add(((BattleshipGame) gameInstance).getPlayer2().getId());
+        } else {
+            for (ClientHandler player : players) {
+                ids.add(player.getClientId());
+            }
+        }
+        int increment = Math.max(0, options.getInt(RoomOptions.INCREMENT, 0));
+        return new ChessClock(ids, TimeUnit.SECONDS.toNanos(seconds), TimeUnit.SECONDS.toNanos(increment));
+    }
+    
+    /**
+     * Pone en marcha el reloj del jugador con el turno, programa su vencimiento
+     * en el planificador compartido y envía las reservas a la sala.
+     */
+    private void runClock() {
+        if (clock == null || gameFinished) {
+            return;
+        }
+        long now = System.nanoTime();
+        clockScheduler.schedule(this, clock.switchTo(currentPlayerId, now), clock.getTurn());
+        broadcastToAll("CLOCK:" + clock.encode(now));
+    }
+    
+    /**
+     * Recibe del planificador el vencimiento de un turno. Si el turno ya cambió
+     * o la partida terminó no hace nada.
+     * @param turn Número de turno del reloj cuando se programó el vencimiento
+     */
+    public synchronized void onClockExpired(long turn) {
+        if (clock == null || gameFinished || turn != clock.getTurn()) {
+            return;
+        }
+        String playerId = clock.getRunning();
+        long left = clock.remainingNanos(playerId, System.nanoTime());
+        if (left > 0) {
+            clockScheduler.schedule(this, System.nanoTime() + left, turn);
+            return;
+        }
+        timeOut(playerId);
+    }
+    
+    /**
+     * Aplica la regla de la sala a un jugador que agotó su tiempo: en FFA queda
+     * eliminado; con TIMEOUT=AUTO el servidor dispara por él a una celda al azar
+     * (en la Batalla Naval clásica sin Salvo); si no, pierde la partida.
+     * @param playerId ID del jugador sin tiempo
+     */
+    private void timeOut(String playerId) {
+        broadcastToAll("TIME_OUT:" + playerId);
+        publishToSpectators("TIME_OUT:" + playerId);
+        
+        if (gameInstance instanceof FreeForAllGame) {
+            eliminatePlayer((FreeForAllGame) gameInstance, playerId);
+            return;
+        }
+        
+        if (gameInstance instanceof BattleshipGame) {
+            BattleshipGame battleship = (BattleshipGame) gameInstance;
+            boolean first = battleship.getPlayer1().getId().equals(playerId);
+            if (GameConstants.CLOCK_TIMEOUT_AUTO.equalsIgnoreCase(options.get(RoomOptions.TIMEOUT, GameConstants.CLOCK_TIMEOUT_LOSE)) &&
+                !battleship.isSalvo()) {
+                int cell = randomUnshotCell(first ? battleship.getOpponentBoard() : battleship.getPlayerBoard(),
+                                            battleship.splitRandom());
+                if (cell >= 0) {
+                    int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+                    processMove(playerId, "SHOOT:" + cell / size + ":" + cell % size);
+                    return;
+                }
+            }
+            endGame(GameConstants.RESULT_WIN + ":" + (first ? battleship.getPlayer2() : battleship.getPlayer1()).getId());
+        } else if (gameInstance instanceof MegaBattleshipGame) {
+            MegaBattleshipGame mega = (MegaBattleshipGame) gameInstance;
+            boolean first = mega.getPlayer1().getId().equals(playerId);
+            endGame(GameConstants.RESULT_WIN + ":" + (first ? mega.getPlayer2() : mega.getPlayer1()).getId());
+        }
+    }
+    
+    /**
+     * Elige al azar una celda de un tablero que aún no recibió disparos.
+     * @param board Tablero objetivo
+     * @param random Generador sacado del de la partida, para que una sala con semilla se repita
+     * @return Índice de celda o -1 si no queda ninguna
+     */
+    private static int randomUnshotCell(Board board, SplittableRandom random) {
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        int unshot = board.getUnshotCount();
+        if (unshot == 0) {
+            return -1;
+        }
+        int pick = random.nextInt(unshot);
+        for (int cell = 0; cell < size * size; cell++) {
+            char value = board.getCell(cell / size, cell % size);
+            if (value != GameConstants.BATTLESHIP_HIT && value != GameConstants.BATTLESHIP_MISS && pick-- == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Crea la partida de Batalla Naval con los jugadores de la sala.
+     * En modo VS_AI crea también la IA con la estrategia indicada en las opciones.
+     * @return Partida configurada
+     */
+    private BattleshipGame createBattleshipGame() {
+        BattleshipGame battleship = new BattleshipGame(seed);
+        Player human = players.get(0).getPlayer();
+        
+        if (GameConstants.MODE_VS_AI.equals(mode)) {
+            aiPlayer = Player.createAI();
+            battleship.setPlayers(human, aiPlayer);
+            
+            // La IA coloca sus barcos en el tablero del segundo jugador, con una
+            // disposición del pool si hay alguna preparada
+            FleetLayout layout = layoutPool != null ? layoutPool.take() : null;
+            ai = new BattleshipAI(battleship.getOpponentBoard(), battleship.getPlayerBoard(), layout,
+                                  battleship.splitRandom());
+            ai.setAttackStrategy(AttackStrategies.create(options.get(RoomOptions.AI_STRATEGY, null)));
+            if (!Boolean.parseBoolean(options.get(RoomOptions.PRIORS, "true"))) {
+                ai.setPlacementPriors(null);
+            }
+            ai.setSpeculationExecutor(aiExecutor);
+            journalAI(battleship);
+        } else {
+            battleship.setPlayers(human, players.get(1).getPlayer());
+            battleship.setSalvo(isSalvo());
+        }
+        
+        return battleship;
+    }
+    
+    /**
+     * Registra en el diario la entrada de la IA y su flota, que no pasan por processMove.
+     * @param battleship Partida recién creada
+     */
+    private void journalAI(BattleshipGame battleship) {
+        if (journal == null) {
+            return;
+        }
+        
+        journal(GameJournal.EVENT_PLAYER_JOINED, GameJournal.encodePlayerJoined(1, null, aiPlayer.getId()));
+        
+        Ship[] ships = battleship.getOpponentBoard().getShips();
+        for (int i = 0; i < ships.length; i++) {
+            journal(GameJournal.EVENT_PLACE, (byte) 1, (byte) i, (byte) ships[i].getStartRow(),
+                    (byte) ships[i].getStartCol(), (byte) (ships[i].isHorizontal() ? 1 : 0));
+        }
     }
     
     /**
@@ -158,13 +529,16 @@ public class GameRoom {
      * @param playerId ID del jugador
      * @param moveData Datos del movimiento
      */
-    public void processMove(String playerId, String moveData) {
+    public synchronized void processMove(String playerId, String moveData) {
+        ServerLog.log(ServerLog.Event.MOVE_RECEIVED, roomId, playerId, moveData);
         if (!gameStarted || gameFinished) {
             sendToPlayer(playerId, "ERROR:El juego no está activo");
             return;
         }
         
-        if (!currentPlayerId.equals(playerId)) {
+        // La flota se coloca sin esperar turno; los disparos sí van por turnos
+        boolean setupMove = moveData.startsWith("PLACE") && isSetupPhase();
+        if (!setupMove && !currentPlayerId.equals(playerId)) {
             sendToPlayer(playerId, "ERROR:No es tu turno");
             return;
         }
@@ -176,21 +550,74 @@ public class GameRoom {
             switch (gameType) {
                     
                 case GameConstants.GAME_BATTLESHIP:
+                    if (gameInstance instanceof FreeForAllGame) {
+                        FreeForAllGame ffa = (FreeForAllGame) gameInstance;
+                        if (PLACE_FLEET_AUTO.equals(moveData)) {
+                            moveData = "PLACE_FLEET:" + autoLayout(ffa::splitRandom).encode();
+                        }
+                        validMove = ffa.makeMove(playerId, moveData);
+                        if (validMove) {
+                            result = ffa.checkGameEnd();
+                            if (moveData.startsWith("SHOOT:")) {
+                                moveData = moveData + ":" + ffa.getLastShotResult().replace(':', '=');
+                            }
+                        }
+                        break;
+                    }
                     BattleshipGame battleship = (BattleshipGame) gameInstance;
+                    if (PLACE_FLEET_AUTO.equals(moveData)) {
+                        moveData = "PLACE_FLEET:" + autoLayout(battleship::splitRandom).encode();
+                    }
                     validMove = battleship.makeMove(playerId, moveData);
                     if (validMove) {
+                        journalMove(playerId, moveData, battleship);
                         result = battleship.checkGameEnd();
+                        if (ai != null && moveData.startsWith("SHOOT")) {
+                            ai.processOpponentShot(battleship.getLastShotRow(), battleship.getLastShotCol(),
+                                                   battleship.getLastShotResult());
+                        }
+                    }
+                    break;
+                    
+                case GameConstants.GAME_MEGA_BATTLESHIP:
+                    MegaBattleshipGame mega = (MegaBattleshipGame) gameInstance;
+                    validMove = mega.makeMove(playerId, moveData);
+                    if (validMove) {
+                        result = mega.checkGameEnd();
+                        // El resultado va en el mismo mensaje: en un tablero grande el
+                        // cliente no puede deducirlo de una vista completa
+                        moveData = moveData + ":" + mega.getLastShotResult().replace(':', '=');
                     }
                     break;
             }
             
             if (validMove) {
-                // Notificar el movimiento a todos los jugadores
-                broadcastToAll("MOVE_MADE:" + playerId + ":" + moveData);
+                // Notificar el movimiento a todos los jugadores; la flota completa
+                // sólo la recibe su dueño
+                if (moveData.startsWith("PLACE_FLEET:")) {
+                    broadcastToAll("MOVE_MADE:" + playerId + ":PLACE_FLEET");
+                    sendFleet(playerId, "FLEET_PLACED:" + moveData.substring("PLACE_FLEET:".length()));
+                } else if (moveData.startsWith("SALVO:")) {
+                    broadcastToAll("MOVE_MADE:" + playerId + ":SALVO:" + encodeSalvo((BattleshipGame) gameInstance));
+                } else {
+                    broadcastToAll("MOVE_MADE:" + playerId + ":" + moveData);
+                }
+                markChangedCells(playerId, moveData);
+                publishMove(playerId, moveData);
+                if (gameInstance instanceof FreeForAllGame && ((FreeForAllGame) gameInstance).getLastEliminated() != null) {
+                    broadcastToAll("PLAYER_ELIMINATED:" + ((FreeForAllGame) gameInstance).getLastEliminated());
+                }
+                
+                // En modo vs IA, la IA responde mientras sea su turno
+                if (result == null && ai != null) {
+                    result = playAITurns();
+                }
                 
                 // Verificar si el juego terminó
                 if (result != null) {
                     endGame(result);
+                } else if (setupMove) {
+                    startBattleTurn();
                 } else {
                     // Cambiar turno
                     switchTurn();
@@ -205,6 +632,79 @@ public class GameRoom {
         }
     }
     
+    /**
+     * Juega los disparos de la IA mientras le corresponda el turno. Al devolver
+     * el turno al humano, la IA empieza a calcular su siguiente respuesta.
+     * @return Resultado del juego si terminó, o null si continúa
+     */
+    private String playAITurns() {
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        
+        while (battleship.isBattlePhase() && battleship.getCurrentPlayer() == aiPlayer) {
+            String[] coords = ai.getBestAttack().split(",");
+            int row = Integer.parseInt(coords[0]);
+            int col = Integer.parseInt(coords[1]);
+            String aiMove = "SHOOT:" + row + ":" + col;
+            
+            if (!battleship.makeMove(aiPlayer.getId(), aiMove)) {
+                LOGGER.warning("Movimiento inválido de la IA en sala " + roomId + ": " + aiMove);
+                break;
+            }
+            
+            ai.processAttackResult(row, col, battleship.getLastShotResult());
+            journalMove(aiPlayer.getId(), aiMove, battleship);
+            broadcastToAll("MOVE_MADE:" + aiPlayer.getId() + ":" + aiMove);
+            markChangedCells(aiPlayer.getId(), aiMove);
+            publishMove(aiPlayer.getId(), aiMove);
+        }
+        
+        String result = battleship.checkGameEnd();
+        if (result == null && battleship.isBattlePhase()) {
+            // Mientras el humano piensa, la IA calcula su siguiente respuesta
+            ai.speculate();
+        }
+        return result;
+    }
+    
+    /**
+     * Obtiene una disposición de flota para PLACE_FLEET:AUTO, en partidas de dos
+     * jugadores o FFA: del pool de disposiciones preparadas si la sala lo usa, o
+     * generada con la semilla de la partida.
+     * @param random Da un generador dividido del de la partida; sólo se pide si
+     *               no se toma la disposición del pool
+     * @return Disposición válida de la flota
+     */
+    private FleetLayout autoLayout(Supplier<SplittableRandom> random) {
+        FleetLayout layout = layoutPool != null ? layoutPool.take() : null;
+        return layout != null ? layout : FleetLayout.generate(random.get());
+    }
+    
+    /**
+     * Da el primer turno de disparo cuando la última flota colocada inicia la batalla.
+     * Contra la IA el turno ya es siempre del humano.
+     */
+    private void startBattleTurn() {
+        if (gameInstance instanceof FreeForAllGame) {
+            FreeForAllGame ffa = (FreeForAllGame) gameInstance;
+            if (ffa.isBattlePhase()) {
+                currentPlayerId = ffa.getCurrentPlayer().getId();
+                broadcastToAll("TURN_CHANGED:" + currentPlayerId);
+                runClock();
+            }
+            return;
+        }
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        if (battleship.isBattlePhase() && !GameConstants.MODE_VS_AI.equals(mode)) {
+            currentPlayerId = battleship.getCurrentPlayer().getId();
+            journal(GameJournal.EVENT_TURN_CHANGED, (byte) slotOf(currentPlayerId));
+            broadcastToAll("TURN_CHANGED:" + currentPlayerId);
+            publishToSpectators("TURN_CHANGED:" + currentPlayerId);
+        }
+        if (battleship.isBattlePhase()) {
+            runClock();
+        }
+    }
+    
     /**
      * Cambia el turno al siguiente jugador.
      */
@@ -212,18 +712,30 @@ public class GameRoom {
         if (GameConstants.MODE_VS_AI.equals(mode)) {
             // En modo vs IA, el turno siempre vuelve al jugador humano
             // (la IA responderá automáticamente)
+            runClock();
             return;
         }
         
-        // En modo vs humano, alternar entre jugadores
-        for (ClientHandler player : players) {
-            if (!player.getClientId().equals(currentPlayerId)) {
-                currentPlayerId = player.getClientId();
-                break;
+        // En modo vs humano, el turno es el de la partida (quien acierta vuelve a disparar)
+        if (gameInstance instanceof BattleshipGame) {
+            currentPlayerId = ((BattleshipGame) gameInstance).getCurrentPlayer().getId();
+        } else if (gameInstance instanceof MegaBattleshipGame) {
+            currentPlayerId = ((MegaBattleshipGame) gameInstance).getCurrentPlayer().getId();
+        } else if (gameInstance instanceof FreeForAllGame) {
+            currentPlayerId = ((FreeForAllGame) gameInstance).getCurrentPlayer().getId();
+        } else {
+            for (ClientHandler player : players) {
+                if (!player.getClientId().equals(currentPlayerId)) {
+                    currentPlayerId = player.getClientId();
+                    break;
+                }
             }
         }
         
+        journal(GameJournal.EVENT_TURN_CHANGED, (byte) slotOf(currentPlayerId));
         broadcastToAll("TURN_CHANGED:" + currentPlayerId);
+        publishToSpectators("TURN_CHANGED:" + currentPlayerId);
+        runClock();
     }
     
     /**
@@ -233,31 +745,691 @@ public class GameRoom {
     private void endGame(String result) {
         gameFinished = true;
         gameState = GameConstants.STATE_FINISHED;
+        this.result = result;
+        if (clock != null) {
+            clock.stop(System.nanoTime());
+            clockScheduler.cancel(this);
+        }
+        
+        String winnerId = result.startsWith(GameConstants.RESULT_WIN + ":") ? result.substring(4) : null;
+        journal(GameJournal.EVENT_GAME_ENDED, GameJournal.encodeGameResult(result),
+                (byte) (winnerId != null ? slotOf(winnerId) : -1));
         
         broadcastToAll("GAME_ENDED:" + result);
+        publishToSpectators("GAME_ENDED:" + result);
+        
+        ServerLog.log(ServerLog.Event.GAME_ENDED, roomId, result);
+        
+        if (onFinished != null) {
+            onFinished.accept(this);
+        }
+    }
+    
+    /**
+     * Obtiene el registro compacto de la partida para archivarla.
+     * @return Registro de la partida o null si no llegó a la fase de batalla
+     */
+    public synchronized GameRecord toRecord() {
+        if (!(gameInstance instanceof BattleshipGame)) {
+            return null;
+        }
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        if (!battleship.getPlayerBoard().isSetupComplete() || !battleship.getOpponentBoard().isSetupComplete()) {
+            return null;
+        }
         
-        LOGGER.info("Juego terminado en sala " + roomId + " con resultado: " + result);
+        String opponent = null;
+        if (ai != null) {
+            opponent = ai.getAttackStrategy() != null ? ai.getAttackStrategy().getName() : AttackStrategies.CLASSIC;
+        }
+        return GameRecord.of(battleship, opponent, result != null && !result.startsWith(GameConstants.RESULT_WIN));
     }
     
     /**
-     * Envía un mensaje a todos los jugadores en la sala.
+     * Anota en qué evento cambiaron las celdas afectadas por un movimiento válido,
+     * para que {@link #sync(String, long)} envíe sólo esas celdas.
+     * @param playerId ID del jugador que movió
+     * @param moveData Datos del movimiento
+     */
+    private void markChangedCells(String playerId, String moveData) {
+        if (!(gameInstance instanceof BattleshipGame)) {
+            return;
+        }
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        int slot = slotOf(playerId);
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        if (moveData.startsWith("PLACE")) {
+            Ship[] ships = (slot == 0 ? battleship.getPlayerBoard() : battleship.getOpponentBoard()).getShips();
+            int first = moveData.startsWith("PLACE_FLEET:") ? 0 : Integer.parseInt(moveData.split(":")[1]);
+            int last = moveData.startsWith("PLACE_FLEET:") ? ships.length - 1 : first;
+            for (int index = first; index <= last && index < ships.length; index++) {
+                Ship ship = ships[index];
+                for (int i = 0; ship.isPlaced() && i < ship.getSize(); i++) {
+                    int row = ship.getStartRow() + (ship.isHorizontal() ? 0 : i);
+                    int col = ship.getStartCol() + (ship.isHorizontal() ? i : 0);
+                    cellVersions[slot][row * size + col] = eventSequence;
+                }
+            }
+        } else if (moveData.startsWith("SHOOT:")) {
+            cellVersions[1 - slot][battleship.getLastShotRow() * size + battleship.getLastShotCol()] = eventSequence;
+        } else if (moveData.startsWith("SALVO:")) {
+            for (int cell : battleship.getLastSalvoCells()) {
+                cellVersions[1 - slot][cell] = eventSequence;
+            }
+        }
+    }
+    
+    /**
+     * Codifica la última andanada con el resultado de cada disparo:
+     * "fila,columna,HIT;fila,columna,SUNK=nombre;...".
+     * @param battleship Partida en la que se disparó
+     * @return Andanada codificada
+     */
+    private static String encodeSalvo(BattleshipGame battleship) {
+        int[] cells = battleship.getLastSalvoCells();
+        String[] results = battleship.getLastSalvoResults();
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        StringBuilder text = new StringBuilder(cells.length * 12);
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                text.append(';');
+            }
+            text.append(cells[i] / size).append(',').append(cells[i] % size).append(',')
+                .append(results[i].replace(':', '='));
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Indica si la sala se juega con la regla Salvo (sólo en VS_HUMAN).
+     * @return true si cada turno es una andanada
+     */
+    private boolean isSalvo() {
+        return GameConstants.MODE_VS_HUMAN.equals(mode) &&
+               GameConstants.RULES_SALVO.equalsIgnoreCase(options.get(RoomOptions.RULES, GameConstants.RULES_CLASSIC));
+    }
+    
+    /**
+     * Publica a los espectadores la parte pública de un movimiento válido:
+     * el disparo con su resultado, o qué barco se colocó pero no dónde.
+     * @param playerId ID del jugador que movió
+     * @param moveData Datos del movimiento
+     */
+    private void publishMove(String playerId, String moveData) {
+        if (spectatorFeed == null || !(gameInstance instanceof BattleshipGame)) {
+            return;
+        }
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        if (moveData.startsWith("SHOOT:")) {
+            publishToSpectators("SHOT:" + playerId + ":" + battleship.getLastShotRow() + ":" +
+                                battleship.getLastShotCol() + ":" + battleship.getLastShotResult());
+        } else if (moveData.startsWith("SALVO:")) {
+            publishToSpectators("SALVO:" + playerId + ":" + encodeSalvo(battleship));
+        } else if (moveData.startsWith("PLACE_FLEET:")) {
+            publishToSpectators("PLACED:" + playerId + ":FLEET");
+        } else if (moveData.startsWith("PLACE:")) {
+            publishToSpectators("PLACED:" + playerId + ":" + moveData.split(":")[1]);
+        }
+    }
+    
+    /**
+     * Publica a los espectadores el comienzo de la partida con sus dos jugadores.
+     */
+    private void publishStart() {
+        if (spectatorFeed != null && gameInstance instanceof BattleshipGame) {
+            BattleshipGame battleship = (BattleshipGame) gameInstance;
+            publishToSpectators("GAME_STARTED:" + roomId + ":" + gameType + ":" + mode + ":" +
+                                battleship.getPlayer1().getId() + ":" + battleship.getPlayer2().getId());
+        }
+    }
+    
+    private void publishToSpectators(String message) {
+        if (spectatorFeed != null) {
+            spectatorFeed.publish(message);
+        }
+    }
+    
+    /**
+     * Configura la retransmisión a espectadores. En una sala recuperada se
+     * publican de nuevo los disparos ya jugados (sin el barco hundido, que no se guarda).
+     * @param feed Retransmisión de la sala
+     */
+    public synchronized void setSpectatorFeed(SpectatorFeed feed) {
+        this.spectatorFeed = feed;
+        if (!gameStarted || !(gameInstance instanceof BattleshipGame)) {
+            return;
+        }
+        publishStart();
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        for (int i = 0; i < battleship.getShotCount(); i++) {
+            int cell = battleship.getShot(i) & 0x7F;
+            boolean second = (battleship.getShot(i) & 0x80) != 0;
+            Player shooter = second ? battleship.getPlayer2() : battleship.getPlayer1();
+            Board target = second ? battleship.getPlayerBoard() : battleship.getOpponentBoard();
+            boolean hit = target.getCell(cell / size, cell % size) == GameConstants.BATTLESHIP_HIT;
+            publishToSpectators("SHOT:" + shooter.getId() + ":" + cell / size + ":" + cell % size + ":" +
+                                (hit ? "HIT" : "MISS"));
+        }
+        publishToSpectators("TURN_CHANGED:" + currentPlayerId);
+    }
+    
+    /**
+     * Añade un espectador a la sala.
+     * @param client Manejador del cliente
+     * @param delayMillis Retardo de la retransmisión
+     * @return true si se le empezó a retransmitir la sala
+     */
+    public boolean addSpectator(ClientHandler client, long delayMillis) {
+        SpectatorFeed feed = spectatorFeed;
+        return feed != null && !hasPlayer(client.getClientId()) && feed.add(client, delayMillis);
+    }
+    
+    public void removeSpectator(String clientId) {
+        SpectatorFeed feed = spectatorFeed;
+        if (feed != null) {
+            feed.remove(clientId);
+        }
+    }
+    
+    /**
+     * Termina la retransmisión de la sala al eliminarla.
+     */
+    public void closeSpectators() {
+        SpectatorFeed feed = spectatorFeed;
+        if (feed != null) {
+            feed.close();
+        }
+    }
+    
+    public int getSpectatorCount() {
+        SpectatorFeed feed = spectatorFeed;
+        return feed != null ? feed.getSpectatorCount() : 0;
+    }
+    
+    /**
+     * Sincroniza el tablero de un jugador a partir del último evento que confirmó.
+     * Si el evento es de esta partida recibe sólo las celdas que cambiaron desde
+     * entonces ("DELTA:desde:hasta:turno:celdas", con celdas "O|E,fila,columna,valor;..."
+     * para el tablero propio y la vista del enemigo); si no (al entrar, o para
+     * resincronizar con -1), recibe los dos tableros completos
+     * ("SNAPSHOT:evento:turno:propio:enemigo"). La vista del enemigo sólo muestra
+     * disparos, nunca sus barcos.
+     * @param playerId ID del jugador
+     * @param lastAck Último evento aplicado por el cliente, o -1 para pedir el estado completo
+     */
+    public synchronized void sync(String playerId, long lastAck) {
+        int slot = slotOf(playerId);
+        if (slot < 0 || !(gameInstance instanceof BattleshipGame)) {
+            sendToPlayer(playerId, "ERROR:No hay tablero que sincronizar");
+            return;
+        }
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        Board own = slot == 0 ? battleship.getPlayerBoard() : battleship.getOpponentBoard();
+        Board enemy = slot == 0 ? battleship.getOpponentBoard() : battleship.getPlayerBoard();
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        
+        StringBuilder message = new StringBuilder(64);
+        if (lastAck < 0 || lastAck > eventSequence) {
+            message.append("SNAPSHOT:").append(eventSequence).append(':').append(currentPlayerId).append(':');
+            for (int cell = 0; cell < size * size; cell++) {
+                message.append(own.getCell(cell / size, cell % size));
+            }
+            message.append(':');
+            for (int cell = 0; cell < size * size; cell++) {
+                message.append(enemyView(enemy.getCell(cell / size, cell % size)));
+            }
+        } else {
+            message.append("DELTA:").append(lastAck).append(':').append(eventSequence).append(':')
+                   .append(currentPlayerId).append(':');
+            int start = message.length();
+            for (int cell = 0; cell < size * size; cell++) {
+                if (cellVersions[slot][cell] > lastAck) {
+                    appendCell(message, start, 'O', cell, own.getCell(cell / size, cell % size));
+                }
+            }
+            for (int cell = 0; cell < size * size; cell++) {
+                char value = enemyView(enemy.getCell(cell / size, cell % size));
+                // Las colocaciones del rival también cambian su tablero, pero no se ven
+                if (cellVersions[1 - slot][cell] > lastAck && value != GameConstants.BATTLESHIP_WATER) {
+                    appendCell(message, start, 'E', cell, value);
+                }
+            }
+        }
+        acknowledged.put(playerId, Math.min(Math.max(lastAck, 0), eventSequence));
+        sendToPlayer(playerId, message.toString());
+    }
+    
+    private static char enemyView(char cell) {
+        return cell == GameConstants.BATTLESHIP_SHIP ? GameConstants.BATTLESHIP_WATER : cell;
+    }
+    
+    private static void appendCell(StringBuilder message, int start, char board, int cell, char value) {
+        if (message.length() > start) {
+            message.append(';');
+        }
+        int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+        message.append(board).append(',').append(cell / size).append(',').append(cell % size).append(',').append(value);
+    }
+    
+    /**
+     * Registra un movimiento válido de Batalla Naval en el diario.
+     * @param playerId ID del jugador que movió
+     * @param moveData Datos del movimiento
+     * @param battleship Partida en la que se aplicó
+     */
+    private void journalMove(String playerId, String moveData, BattleshipGame battleship) {
+        if (journal == null) {
+            return;
+        }
+        
+        byte slot = (byte) slotOf(playerId);
+        String[] parts = moveData.split(":");
+        if ("PLACE_FLEET".equals(parts[0])) {
+            Ship[] ships = (slot == 0 ? battleship.getPlayerBoard() : battleship.getOpponentBoard()).getShips();
+            for (int i = 0; i < ships.length; i++) {
+                journal(GameJournal.EVENT_PLACE, slot, (byte) i, (byte) ships[i].getStartRow(),
+                        (byte) ships[i].getStartCol(), (byte) (ships[i].isHorizontal() ? 1 : 0));
+            }
+        } else if ("PLACE".equals(parts[0]) && parts.length >= 5) {
+            journal(GameJournal.EVENT_PLACE, slot, (byte) Integer.parseInt(parts[1]),
+                    (byte) Integer.parseInt(parts[2]), (byte) Integer.parseInt(parts[3]),
+                    (byte) (Boolean.parseBoolean(parts[4]) ? 1 : 0));
+        } else if ("SHOOT".equals(parts[0])) {
+            String shot = battleship.getLastShotResult();
+            journal(GameJournal.EVENT_SHOOT, slot, (byte) battleship.getLastShotRow(),
+                    (byte) battleship.getLastShotCol(), GameJournal.encodeShotResult(shot),
+                    GameJournal.sunkShipIndex(shot));
+        } else if ("SALVO".equals(parts[0])) {
+            int[] cells = battleship.getLastSalvoCells();
+            String[] results = battleship.getLastSalvoResults();
+            int size = GameConstants.BATTLESHIP_BOARD_SIZE;
+            for (int i = 0; i < cells.length; i++) {
+                journal(GameJournal.EVENT_SHOOT, slot, (byte) (cells[i] / size), (byte) (cells[i] % size),
+                        GameJournal.encodeShotResult(results[i]), GameJournal.sunkShipIndex(results[i]));
+            }
+        }
+    }
+    
+    /**
+     * Añade un evento de esta sala al diario, sin bloquear, con la siguiente
+     * secuencia de la sala. Si el diario lo descarta, él mismo marca la sala como
+     * incompleta (ver {@link GameJournal#append}).
+     * @param type Tipo de evento
+     * @param payload Datos del evento
+     */
+    private void journal(byte type, byte... payload) {
+        if (journal != null) {
+            journal.append(type, roomNumber, ++lastSequence, payload);
+        }
+    }
+    
+    /**
+     * Obtiene la plaza de un jugador en la sala (0 = primero; la IA ocupa la plaza 1).
+     * Con la partida creada la plaza es la del jugador en la partida, que no cambia
+     * aunque los jugadores vuelvan a la sala en otro orden tras una recuperación.
+     * @param playerId ID del jugador
+     * @return Plaza del jugador o -1 si no está en la sala
+     */
+    private int slotOf(String playerId) {
+        if (gameInstance instanceof BattleshipGame) {
+            BattleshipGame battleship = (BattleshipGame) gameInstance;
+            if (battleship.getPlayer1().getId().equals(playerId)) {
+                return 0;
+            }
+            return battleship.getPlayer2().getId().equals(playerId) ? 1 : -1;
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getClientId().equals(playerId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Obtiene la parte numérica de un ID de sala ("ROOM_12" → 12).
+     * @param roomId ID de la sala
+     * @return Número de sala
+     */
+    static int parseRoomNumber(String roomId) {
+        try {
+            return Integer.parseInt(roomId.substring(roomId.lastIndexOf('_') + 1));
+        } catch (NumberFormatException e) {
+            return roomId.hashCode() & Integer.MAX_VALUE;
+        }
+    }
+    
+    /**
+     * Captura el estado de la sala para la recuperación tras una caída.
+     * @return Instantánea de la sala o null si no hay partida de Batalla Naval en curso
+     */
+    public synchronized RoomSnapshot snapshot() {
+        if (gameFinished || !(gameInstance instanceof BattleshipGame)) {
+            return null;
+        }
+        
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        RoomSnapshot snapshot = new RoomSnapshot(roomNumber, GameConstants.MODE_VS_AI.equals(mode),
+                                                 options.toString(), seed);
+        snapshot.setPlayerId(0, battleship.getPlayer1().getId());
+        snapshot.setPlayerId(1, battleship.getPlayer2().getId());
+        snapshot.setSessionToken(0, sessionTokens.get(battleship.getPlayer1().getId()));
+        snapshot.setSessionToken(1, sessionTokens.get(battleship.getPlayer2().getId()));
+        snapshot.captureFleet(0, battleship.getPlayerBoard());
+        snapshot.captureFleet(1, battleship.getOpponentBoard());
+        for (int i = 0; i < battleship.getShotCount(); i++) {
+            snapshot.addShot(battleship.getShot(i));
+        }
+        snapshot.setLastSequence(lastSequence);
+        return snapshot;
+    }
+    
+    /**
+     * Reconstruye una sala a partir de su instantánea. La partida se rehace con la
+     * misma semilla, las mismas flotas y los disparos en el mismo orden; una partida
+     * que seguía en la configuración se reanuda en ella con los barcos ya colocados.
+     * Los jugadores humanos quedan reservados hasta que vuelvan con
+     * {@link #resumePlayer(ClientHandler)}.
+     * @param snapshot Estado recuperado de la sala
+     * @param aiExecutor Ejecutor para el cálculo especulativo de la IA (puede ser null)
+     * @return Sala restaurada
+     */
+    public static GameRoom restore(RoomSnapshot snapshot, ExecutorService aiExecutor) {
+        String mode = snapshot.isVsAI() ? GameConstants.MODE_VS_AI : GameConstants.MODE_VS_HUMAN;
+        GameRoom room = new GameRoom(snapshot.getRoomId(), GameConstants.GAME_BATTLESHIP, mode,
+                                     RoomOptions.parse(snapshot.getOptions()), snapshot.getSeed());
+        room.aiExecutor = aiExecutor;
+        room.lastSequence = snapshot.getLastSequence();
+        room.restoreBattleship(snapshot);
+        return room;
+    }
+    
+    private void restoreBattleship(RoomSnapshot snapshot) {
+        BattleshipGame battleship = new BattleshipGame(seed);
+        Player first = new Player(snapshot.getPlayerId(0), snapshot.getPlayerId(0));
+        Player second;
+        reservedPlayerIds.add(first.getId());
+        sessionTokens.put(first.getId(), snapshot.getSessionToken(0));
+        
+        if (GameConstants.MODE_VS_AI.equals(mode)) {
+            aiPlayer = Player.createAI();
+            aiPlayer.setId(snapshot.getPlayerId(1) != null ? snapshot.getPlayerId(1) : aiPlayer.getId());
+            second = aiPlayer;
+        } else {
+            second = new Player(snapshot.getPlayerId(1), snapshot.getPlayerId(1));
+            reservedPlayerIds.add(second.getId());
+            sessionTokens.put(second.getId(), snapshot.getSessionToken(1));
+            battleship.setSalvo(isSalvo());
+        }
+        battleship.setPlayers(first, second);
+        
+        restoreFleet(snapshot, 0, battleship.getPlayerBoard());
+        if (aiPlayer != null) {
+            // Mismo orden de división del generador que en createBattleshipGame
+            ai = new BattleshipAI(battleship.getOpponentBoard(), battleship.getPlayerBoard(),
+                                  snapshot.getFleetLayout(1), battleship.splitRandom());
+            ai.setAttackStrategy(AttackStrategies.create(options.get(RoomOptions.AI_STRATEGY, null)));
+            if (!Boolean.parseBoolean(options.get(RoomOptions.PRIORS, "true"))) {
+                ai.setPlacementPriors(null);
+            }
+        } else {
+            restoreFleet(snapshot, 1, battleship.getOpponentBoard());
+        }
+        if (snapshot.isBattlePhase()) {
+            battleship.startBattlePhase();
+        }
+        
+        // En la fase de configuración no hay disparos que repetir
+        if (battleship.isSalvo()) {
+            restoreSalvos(snapshot, battleship, first, second);
+        }
+        for (int i = 0; !battleship.isSalvo() && i < snapshot.getShotCount(); i++) {
+            int row = snapshot.getShotRow(i);
+            int col = snapshot.getShotCol(i);
+            Player shooter = snapshot.getShotSlot(i) == 0 ? first : second;
+            if (!battleship.makeMove(shooter.getId(), "SHOOT:" + row + ":" + col)) {
+                LOGGER.warning("Disparo no reproducible al restaurar la sala " + roomId + ": " + row + "," + col);
+                continue;
+            }
+            if (ai != null && shooter == aiPlayer) {
+                ai.processAttackResult(row, col, battleship.getLastShotResult());
+            }
+        }
+        if (ai != null) {
+            ai.setSpeculationExecutor(aiExecutor);
+        }
+        
+        gameInstance = battleship;
+        gameStarted = true;
+        gameState = GameConstants.STATE_PLAYING;
+        // Los aciertos repiten turno, así que tras repetir los disparos la partida
+        // ya sabe a quién le toca, también si la caída llegó antes de que la IA respondiera
+        currentPlayerId = battleship.getCurrentPlayer().getId();
+    }
+    
+    /**
+     * Repite los disparos de una partida Salvo agrupando los disparos seguidos
+     * de un mismo jugador en una andanada.
+     */
+    private void restoreSalvos(RoomSnapshot snapshot, BattleshipGame battleship, Player first, Player second) {
+        int start = 0;
+        while (start < snapshot.getShotCount()) {
+            int slot = snapshot.getShotSlot(start);
+            StringBuilder move = new StringBuilder("SALVO:");
+            int end = start;
+            while (end < snapshot.getShotCount() && snapshot.getShotSlot(end) == slot) {
+                if (end > start) {
+                    move.append(';');
+                }
+                move.append(snapshot.getShotRow(end)).append(',').append(snapshot.getShotCol(end));
+                end++;
+            }
+            if (!battleship.makeMove((slot == 0 ? first : second).getId(), move.toString())) {
+                LOGGER.warning("Andanada no reproducible al restaurar la sala " + roomId + ": " + move);
+            }
+            start = end;
+        }
+    }
+    
+    private static void restoreFleet(RoomSnapshot snapshot, int slot, Board board) {
+        for (int ship = 0; ship < RoomSnapshot.SHIPS; ship++) {
+            if (snapshot.isPlaced(slot, ship)) {
+                board.placeShip(ship, snapshot.getShipRow(slot, ship), snapshot.getShipCol(slot, ship),
+                                snapshot.isShipHorizontal(slot, ship));
+            }
+        }
+    }
+    
+    /**
+     * Reincorpora a un jugador reservado de una sala recuperada y le reenvía
+     * su flota y los disparos de la partida para que pueda redibujarla.
+     * @param player Manejador del cliente, ya con el ID de sesión original
+     * @return true si el jugador estaba reservado en la sala
+     */
+    public synchronized boolean resumePlayer(ClientHandler player) {
+        String playerId = player.getClientId();
+        if (!reservedPlayerIds.remove(playerId)) {
+            return false;
+        }
+        players.add(player);
+        player.setCurrentRoomId(roomId);
+        
+        player.sendRoomMessage(roomId, "GAME_RESUMED:" + roomId + ":" + gameType + ":" + mode + ":" + eventSequence);
+        sendFullState(player);
+        
+        ServerLog.log(ServerLog.Event.PLAYER_RESUMED, playerId, roomId);
+        resumeAITurns(playerId);
+        return true;
+    }
+    
+    /**
+     * Si la sala se recuperó con el turno en manos de la IA (la caída llegó entre
+     * el disparo del humano y la respuesta), la IA juega ahora sus disparos.
+     * @param humanId ID del jugador humano que acaba de volver
+     */
+    private void resumeAITurns(String humanId) {
+        if (ai == null || !aiPlayer.getId().equals(currentPlayerId)) {
+            return;
+        }
+        String result = playAITurns();
+        currentPlayerId = humanId;
+        if (result != null) {
+            endGame(result);
+        } else {
+            broadcastToAll("TURN_CHANGED:" + currentPlayerId);
+            switchTurn();
+        }
+    }
+    
+    /**
+     * Envía a un jugador su flota, todos los disparos y el turno, para que redibuje la partida.
+     * @param player Manejador del cliente
+     */
+    private void sendFullState(ClientHandler player) {
+        String playerId = player.getClientId();
+        BattleshipGame battleship = (BattleshipGame) gameInstance;
+        Ship[] ships = (slotOf(playerId) == 0 ? battleship.getPlayerBoard() : battleship.getOpponentBoard()).getShips();
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i].isPlaced()) {
+                player.sendRoomMessage(roomId, "MOVE_MADE:" + playerId + ":PLACE:" + i + ":" + ships[i].getStartRow() + ":" +
+                                   ships[i].getStartCol() + ":" + ships[i].isHorizontal());
+            }
+        }
+        for (int i = 0; i < battleship.getShotCount(); i++) {
+            int cell = battleship.getShot(i) & 0x7F;
+            Player shooter = (battleship.getShot(i) & 0x80) != 0 ? battleship.getPlayer2() : battleship.getPlayer1();
+            player.sendRoomMessage(roomId, "MOVE_MADE:" + shooter.getId() + ":SHOOT:" +
+                               cell / GameConstants.BATTLESHIP_BOARD_SIZE + ":" +
+                               cell % GameConstants.BATTLESHIP_BOARD_SIZE);
+        }
+        player.sendRoomMessage(roomId, "TURN_CHANGED:" + currentPlayerId);
+    }
+    
+    /**
+     * Deja a un jugador sin conexión en la sala, con su puesto guardado, en lugar
+     * de terminar la partida. Sólo se aplica a partidas en curso.
+     * @param playerId ID del jugador
+     * @return true si el jugador queda a la espera de reconectar
+     */
+    public synchronized boolean detachPlayer(String playerId) {
+        if (!gameStarted || gameFinished || !hasPlayer(playerId) || !detachedPlayerIds.add(playerId)) {
+            return false;
+        }
+        ServerLog.log(ServerLog.Event.PLAYER_DETACHED, roomId, playerId);
+        broadcastToAll("PLAYER_DISCONNECTED:" + playerId);
+        publishToSpectators("PLAYER_DISCONNECTED:" + playerId);
+        return true;
+    }
+    
+    /**
+     * Reincorpora a un jugador que perdió la conexión. Primero recibe otra vez su
+     * flota, que sólo se le envió a él. Si los eventos posteriores al último que
+     * confirmó siguen en el historial, sólo se le reenvían esos; si no, recibe el
+     * estado completo.
+     * @param player Manejador de la nueva conexión, ya con el ID de sesión original
+     * @param lastAck Último evento recibido según el cliente, o -1 para usar el último confirmado con ACK
+     * @return true si el jugador estaba esperando reconectar
+     */
+    public synchronized boolean reattachPlayer(ClientHandler player, long lastAck) {
+        String playerId = player.getClientId();
+        if (!detachedPlayerIds.remove(playerId)) {
+            return false;
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getClientId().equals(playerId)) {
+                players.set(i, player);
+            }
+        }
+        player.setCurrentRoomId(roomId);
+        
+        Long confirmed = acknowledged.get(playerId);
+        long from = lastAck >= 0 ? lastAck : (confirmed != null ? confirmed : -1);
+        player.sendRoomMessage(roomId, "GAME_RESUMED:" + roomId + ":" + gameType + ":" + mode + ":" + eventSequence);
+        String fleet = fleetMessages.get(playerId);
+        if (fleet != null) {
+            player.sendRoomMessage(roomId, fleet);
+        }
+        if (from >= 0 && from <= eventSequence && eventSequence - from <= history.length) {
+            for (long sequence = from + 1; sequence <= eventSequence; sequence++) {
+                player.sendRoomMessage(roomId, history[(int) (sequence % history.length)]);
+            }
+        } else if (gameInstance instanceof BattleshipGame) {
+            sendFullState(player);
+        } else {
+            player.sendRoomMessage(roomId, "TURN_CHANGED:" + currentPlayerId);
+        }
+        
+        ServerLog.log(ServerLog.Event.PLAYER_RESUMED, playerId, roomId);
+        broadcastToAll("PLAYER_RECONNECTED:" + playerId);
+        publishToSpectators("PLAYER_RECONNECTED:" + playerId);
+        return true;
+    }
+    
+    /**
+     * Registra el último evento de la sala que ha recibido un jugador.
+     * @param playerId ID del jugador
+     * @param sequence Número del evento
+     */
+    public synchronized void acknowledge(String playerId, long sequence) {
+        if (hasPlayer(playerId)) {
+            acknowledged.put(playerId, Math.min(sequence, eventSequence));
+        }
+    }
+    
+    public synchronized boolean isDetached(String playerId) {
+        return detachedPlayerIds.contains(playerId);
+    }
+    
+    public synchronized long getEventSequence() {
+        return eventSequence;
+    }
+    
+    /**
+     * Da por abandonada la partida si algún jugador de la sala recuperada no volvió a tiempo.
+     */
+    public synchronized void expireReservations() {
+        if (!reservedPlayerIds.isEmpty() && gameStarted && !gameFinished) {
+            reservedPlayerIds.clear();
+            endGame(GameConstants.RESULT_ABANDONED);
+        }
+    }
+    
+    /**
+     * Envía un mensaje a todos los jugadores en la sala. Cada mensaje es un
+     * evento numerado de la sala y se guarda en el historial para reenviarlo
+     * a quien reconecte.
      * @param message Mensaje a enviar
      */
-    public void broadcastToAll(String message) {
+    public synchronized void broadcastToAll(String message) {
+        eventSequence++;
+        history[(int) (eventSequence % history.length)] = message;
         for (ClientHandler player : players) {
-            player.sendMessage(message);
+            if (!detachedPlayerIds.contains(player.getClientId())) {
+                player.sendRoomMessage(roomId, message);
+            }
         }
     }
     
+    /**
+     * Envía a un jugador su flota y la guarda para reenviársela si reconecta.
+     * @param playerId ID del jugador
+     * @param message Mensaje FLEET_PLACED
+     */
+    private void sendFleet(String playerId, String message) {
+        fleetMessages.put(playerId, message);
+        sendToPlayer(playerId, message);
+    }
+    
     /**
      * Envía un mensaje a un jugador específico.
      * @param playerId ID del jugador
      * @param message Mensaje a enviar
      */
-    public void sendToPlayer(String playerId, String message) {
+    public synchronized void sendToPlayer(String playerId, String message) {
         for (ClientHandler player : players) {
-            if (player.getClientId().equals(playerId)) {
-                player.sendMessage(message);
+            if (player.getClientId().equals(playerId) && !detachedPlayerIds.contains(playerId)) {
+                player.sendRoomMessage(roomId, message);
                 break;
             }
         }
@@ -277,6 +1449,89 @@ public class GameRoom {
         return mode;
     }
     
+    public RoomOptions getOptions() {
+        return options;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public int getRoomNumber() {
+        return roomNumber;
+    }
+    
+    /**
+     * Conecta la sala al diario de eventos y registra su creación.
+     * @param journal Diario del servidor o null para no registrar eventos
+     */
+    public synchronized void attachJournal(GameJournal journal) {
+        this.journal = journal;
+        byte[] optionBytes = options.toString().getBytes(StandardCharsets.UTF_8);
+        journal(GameJournal.EVENT_ROOM_CREATED, ByteBuffer.allocate(9 + Math.min(optionBytes.length, 200))
+                .putLong(seed)
+                .put((byte) (GameConstants.MODE_VS_AI.equals(mode) ? 1 : 0))
+                .put(optionBytes, 0, Math.min(optionBytes.length, 200))
+                .array());
+    }
+    
+    /**
+     * Conecta una sala restaurada al diario sin registrar de nuevo su creación.
+     * @param journal Diario del servidor o null
+     */
+    public synchronized void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Configura el aviso de fin de partida.
+     * @param onFinished Receptor de la sala terminada (se llama con la sala bloqueada)
+     */
+    public void setOnFinished(Consumer<GameRoom> onFinished) {
+        this.onFinished = onFinished;
+    }
+    
+    public String getResult() {
+        return result;
+    }
+    
+    /**
+     * Obtiene el jugador cuya salida terminó la partida.
+     * @return Manejador del jugador o null si la partida no se abandonó
+     */
+    public ClientHandler getAbandonedBy() {
+        return abandonedBy;
+    }
+    
+    public BattleshipAI getAI() {
+        return ai;
+    }
+    
+    /**
+     * Configura el planificador de los relojes. Sin él la sala no tiene límite de tiempo.
+     * @param clockScheduler Planificador compartido por todas las salas
+     */
+    public void setClockScheduler(ClockScheduler clockScheduler) {
+        this.clockScheduler = clockScheduler;
+    }
+    
+    /**
+     * Configura el ejecutor que usará la IA para calcular jugadas durante el turno del oponente.
+     * @param aiExecutor Ejecutor compartido o null para desactivar el cálculo especulativo
+     */
+    public void setAIExecutor(ExecutorService aiExecutor) {
+        this.aiExecutor = aiExecutor;
+    }
+    
+    /**
+     * Configura el pool de disposiciones de flota para la IA.
+     * Las salas reproducibles no usan el pool, porque su flota debe salir de la semilla.
+     * @param layoutPool Pool compartido o null para colocar la flota al crear la IA
+     */
+    public void setLayoutPool(FleetLayoutPool layoutPool) {
+        this.layoutPool = layoutPool;
+    }
+    
     public List<ClientHandler> getPlayers() {
         return new ArrayList<>(players);
     }
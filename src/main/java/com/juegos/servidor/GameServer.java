@@ -1,13 +1,31 @@
 package com.juegos.servidor;
 
+import com.juegos.battleship.GameArchive;
+import com.juegos.battleship.GameRecord;
+import com.juegos.battleship.OpeningBook;
+import com.juegos.battleship.PlacementPriors;
 import com.juegos.common.GameConstants;
+import com.juegos.common.Player;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -23,12 +41,46 @@ public class GameServer {
     
     private ServerSocket serverSocket;
     private ExecutorService threadPool;
+    private ExecutorService aiExecutor;     // Hilos de baja prioridad para el cálculo especulativo de la IA
+    private FleetLayoutPool layoutPool;     // Flotas preparadas para las salas contra la IA
+    private GameJournal journal;            // Diario de eventos de las salas
+    private GameRecovery recovery;          // Instantáneas para recuperar las salas tras una caída
+    private ScheduledExecutorService maintenance; // Tareas periódicas (instantáneas, plazos, archivo)
+    private final AtomicBoolean snapshotRequested; // Instantánea fuera de plazo pendiente
+    private ExecutorService spectatorFanout;      // Reparto de eventos a las colas de los espectadores
+    private ClockScheduler clockScheduler;        // Relojes de las partidas con límite de tiempo
+    private Matchmaker matchmaker;                // Emparejamiento por puntuación de las salas VS_HUMAN
+    private TournamentManager tournaments;        // Torneos en inscripción o en juego
+    private ScheduledExecutorService spectatorDelivery; // Escritura a los espectadores
+    private GameArchive archive;            // Archivo comprimido de partidas terminadas
+    private PlayerStatsStore statsStore;    // Estadísticas persistentes de los jugadores
+    private final Leaderboard leaderboard;  // Clasificación de jugadores
+    private final Map<String, Double> ratings;  // Nombre del jugador → puntuación Elo
+    private final Object ratingLock = new Object();  // Serializa las actualizaciones de ratings
+    private final Map<String, DetachedSession> detachedSessions;  // Token de sesión → jugador sin conexión
+    
+    /**
+     * Jugador que perdió la conexión durante sus partidas y puede reconectar con su token.
+     */
+    private static final class DetachedSession {
+        final String playerId;
+        final List<String> roomIds;
+        ScheduledFuture<?> expiry;
+        
+        DetachedSession(String playerId, List<String> roomIds) {
+            this.playerId = playerId;
+            this.roomIds = roomIds;
+        }
+    }
+    private final SplittableRandom seedSource; // Origen de las semillas de las salas
+    private final boolean seeded;           // true si el servidor arrancó con semilla fija
     private boolean isRunning;
     private final int port;
     
     // Gestión de clientes y salas
     private final ConcurrentHashMap<String, ClientHandler> clients;
     private final ConcurrentHashMap<String, GameRoom> gameRooms;
+    private final ConcurrentHashMap<String, RoomSnapshot> recoveredSessions; // Token de sesión → sala recuperada pendiente
     private int nextRoomId;
     
     /**
@@ -46,8 +98,20 @@ public class GameServer {
         this.port = port;
         this.clients = new ConcurrentHashMap<>();
         this.gameRooms = new ConcurrentHashMap<>();
+        this.recoveredSessions = new ConcurrentHashMap<>();
+        this.detachedSessions = new ConcurrentHashMap<>();
+        this.ratings = new ConcurrentHashMap<>();
+        this.snapshotRequested = new AtomicBoolean();
+        this.leaderboard = new Leaderboard(GameConstants.LEADERBOARD_PAGE_SIZE,
+                                           GameConstants.LEADERBOARD_CACHED_RANKS,
+                                           GameConstants.LEADERBOARD_REFRESH_MILLIS);
         this.nextRoomId = 1;
         this.isRunning = false;
+        
+        // Con la propiedad battleship.seed todas las salas son reproducibles
+        Long seed = Long.getLong("battleship.seed");
+        this.seeded = seed != null;
+        this.seedSource = seeded ? new SplittableRandom(seed) : new SplittableRandom();
     }
     
     /**
@@ -57,8 +121,43 @@ public class GameServer {
         try {
             serverSocket = new ServerSocket(port);
             threadPool = Executors.newCachedThreadPool();
+            aiExecutor = createAIExecutor();
+            spectatorFanout = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "spectator-fanout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            spectatorDelivery = Executors.newScheduledThreadPool(GameConstants.SPECTATOR_DELIVERY_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "spectator-delivery");
+                thread.setDaemon(true);
+                return thread;
+            });
+            layoutPool = new FleetLayoutPool(
+                Integer.getInteger("battleship.fleetPool.capacity", GameConstants.FLEET_POOL_CAPACITY),
+                Integer.getInteger("battleship.fleetPool.lowWater", GameConstants.FLEET_POOL_LOW_WATER),
+                splitSeedSource());
+            layoutPool.start();
+            clockScheduler = new ClockScheduler(GameConstants.CLOCK_TICK_MILLIS);
+            clockScheduler.start();
+            matchmaker = new Matchmaker(Long.getLong("battleship.match.tickMillis", GameConstants.MATCH_TICK_MILLIS),
+                                        GameConstants.MATCH_INITIAL_BAND, GameConstants.MATCH_BAND_GROWTH,
+                                        GameConstants.MATCH_MAX_BAND, this::startMatch);
+            matchmaker.start();
+            tournaments = new TournamentManager(this);
+            maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "server-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            startJournal();
+            recoverRooms();
+            openArchive();
+            startStatsStore();
             isRunning = true;
             
+            loadOpeningBook();
+            loadPlacementPriors();
+            
             LOGGER.info("Servidor iniciado en puerto " + port);
             System.out.println("🟢 Servidor de Juegos iniciado en puerto " + port);
             System.out.println("📡 Esperando conexiones de clientes...");
@@ -74,7 +173,7 @@ public class GameServer {
                     // Ejecutar en el pool de hilos
                     threadPool.execute(clientHandler);
                     
-                    LOGGER.info("Nueva conexión aceptada desde: " + clientSocket.getInetAddress());
+                    ServerLog.log(ServerLog.Event.CONNECTION_ACCEPTED, clientSocket.getInetAddress());
                     
                 } catch (IOException e) {
                     if (isRunning) {
@@ -89,6 +188,420 @@ public class GameServer {
         }
     }
     
+    /**
+     * Crea el pool de hilos de baja prioridad que usa la IA para calcular
+     * jugadas durante el turno del oponente, aprovechando la CPU ociosa.
+     * @return Ejecutor para la IA
+     */
+    private ExecutorService createAIExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ai-speculation");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    /**
+     * Obtiene un generador independiente del origen de semillas del servidor.
+     * @return Generador dividido
+     */
+    private synchronized SplittableRandom splitSeedSource() {
+        return seedSource.split();
+    }
+    
+    /**
+     * Obtiene la semilla de una nueva sala: la indicada en sus opciones o la
+     * siguiente del origen de semillas del servidor.
+     * @param options Opciones de la sala
+     * @return Semilla de la sala
+     */
+    private synchronized long nextRoomSeed(RoomOptions options) {
+        long next = seedSource.nextLong();
+        return options.getLong(RoomOptions.SEED, next);
+    }
+    
+    /**
+     * Abre el diario de eventos de las salas.
+     * El directorio puede cambiarse con la propiedad de sistema "battleship.journal.dir".
+     */
+    private void startJournal() {
+        Path journalDir = Paths.get(System.getProperty("battleship.journal.dir", GameConstants.JOURNAL_DIR));
+        journal = new GameJournal(journalDir, GameConstants.JOURNAL_SEGMENT_SIZE,
+                                  GameConstants.JOURNAL_QUEUE_CAPACITY);
+        try {
+            journal.start();
+            LOGGER.info("Diario de partidas en " + journalDir + " (secuencia " + journal.getLastSequence() + ")");
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo abrir el diario de partidas en " + journalDir, e);
+            journal = null;
+        }
+    }
+    
+    /**
+     * Recupera las salas que estaban en curso cuando el servidor se detuvo y programa
+     * las instantáneas periódicas. Las salas recuperadas no se reconstruyen hasta que
+     * vuelve alguno de sus jugadores (RESUME), así que el arranque sólo lee la
+     * instantánea y la cola del diario.
+     * El directorio puede cambiarse con la propiedad de sistema "battleship.snapshot.dir".
+     */
+    private void recoverRooms() {
+        recovery = new GameRecovery(Paths.get(System.getProperty("battleship.snapshot.dir", GameConstants.SNAPSHOT_DIR)));
+        try {
+            Map<Integer, RoomSnapshot> recovered = recovery.recover(journal != null ? journal.getDirectory() : null);
+            for (RoomSnapshot snapshot : recovered.values()) {
+                // Sólo el token secreto permite volver; el ID del jugador lo han visto los demás
+                for (int slot = 0; slot < (snapshot.isVsAI() ? 1 : 2); slot++) {
+                    if (snapshot.getSessionToken(slot) != null) {
+                        recoveredSessions.put(snapshot.getSessionToken(slot), snapshot);
+                    }
+                }
+            }
+            synchronized (this) {
+                nextRoomId = Math.max(nextRoomId, recovery.getMaxRoomNumber() + 1);
+            }
+            
+            // La instantánea nueva ya incluye lo aplicado del diario
+            writeSnapshot();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "No se pudieron recuperar las salas en curso", e);
+        }
+        
+        maintenance.scheduleWithFixedDelay(this::writeSnapshot, GameConstants.SNAPSHOT_INTERVAL_SECONDS,
+                                           GameConstants.SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        if (journal != null) {
+            // Una sala que perdió eventos sólo vuelve a ser recuperable con una instantánea nueva
+            journal.setOnEventsLost(this::requestSnapshot);
+        }
+        if (!recoveredSessions.isEmpty()) {
+            maintenance.schedule(this::expireRecoveredSessions, GameConstants.RESUME_WINDOW_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * Abre el archivo de partidas terminadas y programa su volcado periódico,
+     * para que una caída no pierda más de un intervalo de partidas.
+     * La ruta puede cambiarse con la propiedad de sistema "battleship.archive".
+     */
+    private void openArchive() {
+        Path archiveFile = Paths.get(System.getProperty("battleship.archive", GameConstants.ARCHIVE_FILE));
+        try {
+            archive = GameArchive.open(archiveFile);
+            maintenance.scheduleWithFixedDelay(this::flushArchive, GameConstants.SNAPSHOT_INTERVAL_SECONDS,
+                                               GameConstants.SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo abrir el archivo de partidas " + archiveFile, e);
+        }
+    }
+    
+    private void flushArchive() {
+        try {
+            archive.flush();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error volcando el archivo de partidas", e);
+        }
+    }
+    
+    /**
+     * Abre el almacén de estadísticas de jugadores.
+     * El directorio puede cambiarse con la propiedad de sistema "battleship.stats.dir".
+     */
+    private void startStatsStore() {
+        Path statsDir = Paths.get(System.getProperty("battleship.stats.dir", GameConstants.STATS_DIR));
+        statsStore = new PlayerStatsStore(statsDir, GameConstants.STATS_CHECKPOINT_BYTES);
+        try {
+            statsStore.start();
+            statsStore.getAll().forEach(leaderboard::update);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "No se pudo abrir el almacén de estadísticas en " + statsDir, e);
+            statsStore = null;
+        }
+    }
+    
+    /**
+     * Carga en un jugador las estadísticas guardadas con su nombre y su puntuación.
+     * La puntuación sólo se conserva mientras el servidor está en marcha.
+     * @param player Jugador recién identificado
+     */
+    public void loadPlayerStats(Player player) {
+        if (statsStore != null) {
+            statsStore.get(player.getName()).applyTo(player);
+        }
+        player.setRating(ratings.getOrDefault(player.getName(), GameConstants.RATING_INITIAL));
+    }
+    
+    /**
+     * Suma el resultado de una sala terminada a las estadísticas de sus jugadores.
+     * Quien abandona una partida en curso la pierde; sólo la gana el rival humano
+     * que se quedó (contra la IA nadie la gana). Un resultado desconocido no cuenta.
+     * @param room Sala terminada
+     */
+    private void recordPlayerStats(GameRoom room) {
+        if (statsStore == null || room.getResult() == null) {
+            return;
+        }
+        
+        String result = room.getResult();
+        if (result.startsWith(GameConstants.RESULT_DRAW)) {
+            for (ClientHandler player : room.getPlayers()) {
+                recordResult(player.getPlayer().getName(), 0, 0, 1);
+            }
+        } else if (result.startsWith(GameConstants.RESULT_WIN + ":")) {
+            String winnerId = result.substring(4);
+            for (ClientHandler player : room.getPlayers()) {
+                boolean won = winnerId.equals(player.getClientId());
+                recordResult(player.getPlayer().getName(), won ? 1 : 0, won ? 0 : 1, 0);
+            }
+        } else if (result.startsWith(GameConstants.RESULT_ABANDONED)) {
+            if (room.getAbandonedBy() != null) {
+                recordResult(room.getAbandonedBy().getPlayer().getName(), 0, 1, 0);
+            }
+            // Los que siguen en la sala se quedaron: el rival no volvió o se fue
+            if (GameConstants.MODE_VS_HUMAN.equals(room.getMode())) {
+                for (ClientHandler player : room.getPlayers()) {
+                    recordResult(player.getPlayer().getName(), 1, 0, 0);
+                }
+            }
+        }
+    }
+    
+    private void recordResult(String name, int wins, int losses, int draws) {
+        leaderboard.update(name, statsStore.record(name, wins, losses, draws));
+    }
+    
+    /**
+     * Actualiza la puntuación Elo de los dos jugadores de una sala VS_HUMAN
+     * terminada. Quien abandona pierde contra el que se queda. Las salas terminan
+     * en hilos distintos y un jugador puede tener varias partidas a la vez, así
+     * que la lectura y la escritura de las dos puntuaciones van bajo un mismo bloqueo
+     * y parten de las del mapa, no de las copias de cada sesión.
+     * @param room Sala terminada
+     */
+    private void updateRatings(GameRoom room) {
+        String result = room.getResult();
+        if (result == null || !GameConstants.MODE_VS_HUMAN.equals(room.getMode())) {
+            return;
+        }
+        List<ClientHandler> players = room.getPlayers();
+        double score;
+        if (room.getAbandonedBy() != null) {
+            players.add(room.getAbandonedBy());
+            score = 1;
+        } else if (result.startsWith(GameConstants.RESULT_DRAW)) {
+            score = 0.5;
+        } else if (result.startsWith(GameConstants.RESULT_WIN + ":")) {
+            score = players.isEmpty() || !result.substring(4).equals(players.get(0).getClientId()) ? 0 : 1;
+        } else {
+            return;
+        }
+        if (players.size() != 2) {
+            return;
+        }
+        
+        Player first = players.get(0).getPlayer();
+        Player second = players.get(1).getPlayer();
+        
+        synchronized (ratingLock) {
+            first.setRating(ratings.getOrDefault(first.getName(), GameConstants.RATING_INITIAL));
+            second.setRating(ratings.getOrDefault(second.getName(), GameConstants.RATING_INITIAL));
+            double delta = GameConstants.RATING_K_FACTOR * (score - first.expectedScore(second.getRating()));
+            first.setRating(first.getRating() + delta);
+            second.setRating(second.getRating() - delta);
+            ratings.put(first.getName(), first.getRating());
+            ratings.put(second.getName(), second.getRating());
+        }
+    }
+    
+    /**
+     * Recibe las salas cuya partida ha terminado. El registro se captura aquí y se
+     * archiva en el hilo de mantenimiento, fuera del bloqueo de la sala.
+     * @param room Sala terminada
+     */
+    private void onRoomFinished(GameRoom room) {
+        recordPlayerStats(room);
+        updateRatings(room);
+        if (tournaments != null) {
+            tournaments.onRoomFinished(room);
+        }
+        
+        GameRecord record = room.toRecord();
+        if (record == null || archive == null) {
+            return;
+        }
+        maintenance.execute(() -> {
+            try {
+                archive.append(record);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error archivando la partida de " + room.getRoomId(), e);
+            }
+        });
+    }
+    
+    /**
+     * Pide una instantánea fuera de plazo. Las peticiones que llegan mientras
+     * otra espera turno se agrupan en una sola.
+     */
+    private void requestSnapshot() {
+        if (snapshotRequested.compareAndSet(false, true)) {
+            try {
+                maintenance.execute(() -> {
+                    snapshotRequested.set(false);
+                    writeSnapshot();
+                });
+            } catch (RejectedExecutionException e) {
+                snapshotRequested.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Escribe una instantánea de las salas en curso, incluidas las recuperadas
+     * a las que todavía no ha vuelto nadie.
+     */
+    private void writeSnapshot() {
+        try {
+            long journalSequence = journal != null ? journal.getLastSequence() : 0;
+            Map<Integer, RoomSnapshot> snapshots = new HashMap<>();
+            for (GameRoom room : gameRooms.values()) {
+                RoomSnapshot snapshot = room.snapshot();
+                if (snapshot != null) {
+                    snapshots.put(snapshot.getRoomNumber(), snapshot);
+                }
+            }
+            for (RoomSnapshot pending : recoveredSessions.values()) {
+                snapshots.putIfAbsent(pending.getRoomNumber(), pending);
+            }
+            
+            int maxRoomNumber;
+            synchronized (this) {
+                maxRoomNumber = nextRoomId - 1;
+            }
+            recovery.writeSnapshot(snapshots.values(), journalSequence, maxRoomNumber);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error escribiendo la instantánea de salas", e);
+        }
+    }
+    
+    /**
+     * Reincorpora a un cliente a su partida con el token de sesión recibido en
+     * CONNECT_OK, tanto si perdió la conexión como si se reinició el servidor (la
+     * sala se reconstruye al volver el primero de sus jugadores). El ID del
+     * jugador es público y nunca basta para ocupar su plaza.
+     * @param client Manejador del cliente que pide reanudar
+     * @param sessionId Token de sesión del jugador
+     * @param lastAck Último evento de la sala recibido por el cliente, o -1 si no lo sabe
+     * @return true si se reanudó la partida
+     */
+    public synchronized boolean resumeSession(ClientHandler client, String sessionId, long lastAck) {
+        DetachedSession detached = detachedSessions.remove(sessionId);
+        if (detached != null) {
+            detached.expiry.cancel(false);
+            clients.remove(client.getClientId());
+            client.adoptSession(detached.playerId, sessionId);
+            clients.put(detached.playerId, client);
+            boolean resumed = false;
+            for (String roomId : detached.roomIds) {
+                GameRoom room = gameRooms.get(roomId);
+                // El último evento recibido sólo tiene sentido con una sola partida
+                if (room != null && room.reattachPlayer(client, detached.roomIds.size() == 1 ? lastAck : -1)) {
+                    resumed = true;
+                }
+            }
+            return resumed;
+        }
+        
+        RoomSnapshot snapshot = recoveredSessions.get(sessionId);
+        if (snapshot == null) {
+            return false;
+        }
+        int slot = snapshot.slotForToken(sessionId);
+        String playerId = slot >= 0 ? snapshot.getPlayerId(slot) : null;
+        if (playerId == null || clients.containsKey(playerId)) {
+            return false;
+        }
+        recoveredSessions.remove(sessionId);
+        
+        GameRoom room = gameRooms.get(snapshot.getRoomId());
+        if (room == null) {
+            room = GameRoom.restore(snapshot, aiExecutor);
+            room.setJournal(journal);
+            room.setOnFinished(this::onRoomFinished);
+            room.setSpectatorFeed(new SpectatorFeed(room.getRoomId(), spectatorFanout, spectatorDelivery));
+            gameRooms.put(room.getRoomId(), room);
+        }
+        
+        clients.remove(client.getClientId());
+        client.adoptSession(playerId, sessionId);
+        clients.put(playerId, client);
+        return room.resumePlayer(client);
+    }
+    
+    /**
+     * Descarta las salas recuperadas a las que no volvieron sus jugadores a tiempo.
+     */
+    private void expireRecoveredSessions() {
+        int expired = recoveredSessions.size();
+        recoveredSessions.clear();
+        for (GameRoom room : gameRooms.values()) {
+            room.expireReservations();
+        }
+        LOGGER.info("Plazo de reanudación terminado, sesiones descartadas: " + expired);
+    }
+    
+    /**
+     * Mapea en memoria el libro de aperturas de la IA si está disponible.
+     * La ruta puede cambiarse con la propiedad de sistema "battleship.openingBook".
+     */
+    private void loadOpeningBook() {
+        Path bookFile = Paths.get(System.getProperty("battleship.openingBook", GameConstants.OPENING_BOOK_FILE));
+        if (!Files.exists(bookFile)) {
+            LOGGER.info("Libro de aperturas no encontrado: " + bookFile);
+            return;
+        }
+        
+        try {
+            OpeningBook.loadShared(bookFile);
+            LOGGER.info("Libro de aperturas cargado: " + bookFile + " (" +
+                       OpeningBook.getShared().getPlies() + " jugadas)");
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "No se pudo cargar el libro de aperturas " + bookFile, e);
+        }
+    }
+    
+    /**
+     * Mapea en memoria los priors de colocación humana de la IA y comprueba
+     * periódicamente si el fichero ha cambiado para recargarlo sin reiniciar.
+     * La ruta puede cambiarse con la propiedad de sistema "battleship.priors".
+     */
+    private void loadPlacementPriors() {
+        Path priorsFile = Paths.get(System.getProperty("battleship.priors", GameConstants.PRIORS_FILE));
+        try {
+            if (PlacementPriors.loadShared(priorsFile)) {
+                LOGGER.info("Priors de colocación cargados: " + priorsFile + " (" +
+                           PlacementPriors.getShared().getGames() + " partidas)");
+            } else {
+                LOGGER.info("Priors de colocación no encontrados: " + priorsFile);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "No se pudieron cargar los priors de colocación " + priorsFile, e);
+        }
+        
+        maintenance.scheduleWithFixedDelay(this::reloadPlacementPriors, GameConstants.PRIORS_RELOAD_SECONDS,
+                                           GameConstants.PRIORS_RELOAD_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    private void reloadPlacementPriors() {
+        try {
+            if (PlacementPriors.reloadShared()) {
+                LOGGER.info("Priors de colocación recargados (" + PlacementPriors.getShared().getGames() +
+                           " partidas)");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "No se pudieron recargar los priors de colocación", e);
+        }
+    }
+    
     /**
      * Detiene el servidor.
      */
@@ -109,12 +622,49 @@ public class GameServer {
             if (threadPool != null) {
                 threadPool.shutdown();
             }
+            if (aiExecutor != null) {
+                aiExecutor.shutdownNow();
+            }
+            if (spectatorFanout != null) {
+                spectatorFanout.shutdownNow();
+                spectatorDelivery.shutdownNow();
+            }
+            if (layoutPool != null) {
+                layoutPool.stop();
+            }
+            if (clockScheduler != null) {
+                clockScheduler.stop();
+            }
+            if (matchmaker != null) {
+                matchmaker.stop();
+            }
+            if (tournaments != null) {
+                tournaments.stop();
+            }
+            if (maintenance != null) {
+                maintenance.shutdown();
+                try {
+                    maintenance.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (archive != null) {
+                archive.close();
+            }
+            if (statsStore != null) {
+                statsStore.stop();
+            }
+            if (journal != null) {
+                journal.stop();
+            }
             
             // Cerrar el socket del servidor
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
             
+            ServerLog.flush(1000);
             LOGGER.info("Servidor detenido");
             System.out.println("🔴 Servidor detenido");
             
@@ -129,9 +679,7 @@ public class GameServer {
      */
     public void registerClient(ClientHandler client) {
         clients.put(client.getClientId(), client);
-        LOGGER.info("Cliente registrado: " + client.getClientId());
-        System.out.println("👤 Cliente conectado: " + client.getClientId() + 
-                          " (" + clients.size() + " clientes total)");
+        ServerLog.log(ServerLog.Event.CLIENT_REGISTERED, client.getClientId(), clients.size());
     }
     
     /**
@@ -141,12 +689,67 @@ public class GameServer {
     public void unregisterClient(String clientId) {
         ClientHandler client = clients.remove(clientId);
         if (client != null) {
-            // Remover de sala de juego si está en una
+            stopSpectating(client);
+            if (matchmaker != null) {
+                matchmaker.cancel(clientId);
+            }
+            
+            // Si se cortó la conexión en mitad de sus partidas, guardar su puesto;
+            // de las demás salas se le remueve
+            if (!client.isLeaving()) {
+                detachClient(client);
+            }
             removeClientFromRoom(clientId);
             
-            LOGGER.info("Cliente desregistrado: " + clientId);
-            System.out.println("👤 Cliente desconectado: " + clientId + 
-                              " (" + clients.size() + " clientes restantes)");
+            ServerLog.log(ServerLog.Event.CLIENT_UNREGISTERED, clientId, clients.size());
+        }
+    }
+    
+    /**
+     * Guarda el puesto de un cliente que perdió la conexión en las partidas que
+     * tenía en curso y programa el abandono si no reconecta dentro del plazo.
+     * @param client Manejador del cliente desconectado
+     * @return true si el cliente puede reconectar a alguna partida
+     */
+    private boolean detachClient(ClientHandler client) {
+        if (!isRunning || maintenance == null) {
+            return false;
+        }
+        List<String> detached = new ArrayList<>();
+        for (String roomId : client.getRoomIds()) {
+            GameRoom room = gameRooms.get(roomId);
+            if (room != null && room.detachPlayer(client.getClientId())) {
+                detached.add(roomId);
+            }
+        }
+        if (detached.isEmpty()) {
+            return false;
+        }
+        
+        String token = client.getSessionToken();
+        DetachedSession session = new DetachedSession(client.getClientId(), detached);
+        synchronized (this) {
+            detachedSessions.put(token, session);
+            session.expiry = maintenance.schedule(() -> expireDetachedSession(token, session),
+                                                  GameConstants.RECONNECT_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+        return true;
+    }
+    
+    /**
+     * Da por abandonada la partida de un cliente que no reconectó a tiempo.
+     */
+    private void expireDetachedSession(String token, DetachedSession session) {
+        synchronized (this) {
+            if (!detachedSessions.remove(token, session)) {
+                return;
+            }
+        }
+        for (String roomId : session.roomIds) {
+            GameRoom room = gameRooms.get(roomId);
+            if (room != null) {
+                removeFromRoom(room, session.playerId);
+            }
         }
     }
     
@@ -158,16 +761,41 @@ public class GameServer {
      * @return ID de la sala creada
      */
     public String createGameRoom(String clientId, String gameType, String mode) {
-        String roomId = "ROOM_" + nextRoomId++;
+        return createGameRoom(clientId, gameType, mode, RoomOptions.NONE);
+    }
+    
+    /**
+     * Crea una nueva sala de juego con opciones para un jugador.
+     * @param clientId ID del cliente
+     * @param gameType Tipo de juego
+     * @param mode Modo de juego
+     * @param options Opciones de la sala
+     * @return ID de la sala creada
+     */
+    public String createGameRoom(String clientId, String gameType, String mode, RoomOptions options) {
+        String roomId;
+        synchronized (this) {
+            roomId = "ROOM_" + nextRoomId++;
+        }
         
         ClientHandler client = clients.get(clientId);
         if (client != null) {
-            GameRoom room = new GameRoom(roomId, gameType, mode);
+            GameRoom room = new GameRoom(roomId, gameType, mode, options, nextRoomSeed(options));
+            room.setAIExecutor(aiExecutor);
+            room.setClockScheduler(clockScheduler);
+            if (!seeded && !options.has(RoomOptions.SEED)) {
+                room.setLayoutPool(layoutPool);
+            }
+            room.setOnFinished(this::onRoomFinished);
+            // El diario y la retransmisión sólo conocen la partida clásica de dos flotas
+            if (GameConstants.GAME_BATTLESHIP.equals(gameType) && !GameConstants.MODE_FFA.equals(mode)) {
+                room.attachJournal(journal);
+                room.setSpectatorFeed(new SpectatorFeed(roomId, spectatorFanout, spectatorDelivery));
+            }
             room.addPlayer(client);
             gameRooms.put(roomId, room);
             
-            LOGGER.info("Sala de juego creada: " + roomId + " (" + gameType + ", " + mode + ")");
-            System.out.println("🎮 Nueva sala: " + roomId + " - " + gameType + " (" + mode + ")");
+            ServerLog.log(ServerLog.Event.ROOM_CREATED, roomId, gameType, mode);
             
             return roomId;
         }
@@ -183,29 +811,143 @@ public class GameServer {
      * @return ID de la sala
      */
     public String findOrCreateRoom(String clientId, String gameType, String mode) {
+        return findOrCreateRoom(clientId, gameType, mode, RoomOptions.NONE);
+    }
+    
+    /**
+     * Busca una sala disponible con las mismas opciones o crea una nueva.
+     * @param clientId ID del cliente
+     * @param gameType Tipo de juego
+     * @param mode Modo de juego
+     * @param options Opciones de la sala
+     * @return ID de la sala
+     */
+    public String findOrCreateRoom(String clientId, String gameType, String mode, RoomOptions options) {
         // Si es modo vs IA, crear sala inmediatamente
         if (GameConstants.MODE_VS_AI.equals(mode)) {
-            return createGameRoom(clientId, gameType, mode);
+            return createGameRoom(clientId, gameType, mode, options);
         }
         
         // Buscar sala disponible para vs humano
         for (GameRoom room : gameRooms.values()) {
             if (room.getGameType().equals(gameType) && 
                 room.getMode().equals(mode) && 
+                room.getOptions().equals(options) && 
                 room.hasSpace() && 
                 !room.hasPlayer(clientId)) {
                 
                 ClientHandler client = clients.get(clientId);
                 if (client != null) {
                     room.addPlayer(client);
-                    LOGGER.info("Cliente " + clientId + " se unió a sala " + room.getRoomId());
+                    ServerLog.log(ServerLog.Event.ROOM_JOINED, clientId, room.getRoomId());
                     return room.getRoomId();
                 }
             }
         }
         
         // No hay salas disponibles, crear una nueva
-        return createGameRoom(clientId, gameType, mode);
+        return createGameRoom(clientId, gameType, mode, options);
+    }
+    
+    /**
+     * Indica si las salas de un modo se emparejan por puntuación en lugar de con
+     * el primero que espera: las VS_HUMAN de dos jugadores (las FFA no).
+     * @param mode Modo de juego
+     * @return true si se usa el emparejador
+     */
+    public boolean usesMatchmaking(String mode) {
+        return matchmaker != null && GameConstants.MODE_VS_HUMAN.equals(mode);
+    }
+    
+    /**
+     * Pone a un cliente a esperar un rival de puntuación parecida.
+     * @param client Manejador del cliente
+     * @param gameType Tipo de juego
+     * @param mode Modo de juego
+     * @param options Opciones de la sala
+     * @return false si el cliente ya estaba esperando
+     */
+    public boolean queueForMatch(ClientHandler client, String gameType, String mode, RoomOptions options) {
+        return matchmaker.enqueue(client.getClientId(), client.getPlayer().getRating(), gameType, mode, options);
+    }
+    
+    public boolean isWaitingForMatch(String clientId) {
+        return matchmaker != null && matchmaker.isWaiting(clientId);
+    }
+    
+    /**
+     * Saca a un cliente de la espera de rival.
+     * @param clientId ID del cliente
+     * @return true si estaba esperando
+     */
+    public boolean cancelMatch(String clientId) {
+        return matchmaker != null && matchmaker.cancel(clientId);
+    }
+    
+    /**
+     * Crea la sala de una pareja del emparejador y empieza la partida. Si uno de
+     * los dos se fue mientras tanto, el otro vuelve a la cola.
+     * @param first Espera del primer jugador
+     * @param second Espera del segundo jugador
+     */
+    private void startMatch(Matchmaker.Ticket first, Matchmaker.Ticket second) {
+        ClientHandler firstClient = clients.get(first.getClientId());
+        ClientHandler secondClient = clients.get(second.getClientId());
+        if (firstClient == null || secondClient == null) {
+            if (firstClient != null) {
+                matchmaker.requeue(first);
+            }
+            if (secondClient != null) {
+                matchmaker.requeue(second);
+            }
+            return;
+        }
+        
+        startRoom(firstClient, secondClient, first.getGameType(), first.getMode(), first.getOptions());
+    }
+    
+    /**
+     * Crea una sala para dos jugadores ya emparejados y empieza la partida.
+     * @param first Primer jugador
+     * @param second Segundo jugador
+     * @param gameType Tipo de juego
+     * @param mode Modo de juego
+     * @param options Opciones de la sala
+     * @return Sala creada o null si no se pudo crear
+     */
+    public GameRoom startRoom(ClientHandler first, ClientHandler second, String gameType, String mode,
+                              RoomOptions options) {
+        String roomId = createGameRoom(first.getClientId(), gameType, mode, options);
+        GameRoom room = roomId != null ? gameRooms.get(roomId) : null;
+        if (room == null || !room.addPlayer(second)) {
+            LOGGER.warning("No se pudo crear la sala de " + first.getClientId() + " y " + second.getClientId());
+            if (room != null) {
+                removeFromRoom(room, first.getClientId());
+            }
+            return null;
+        }
+        ServerLog.log(ServerLog.Event.ROOM_JOINED, second.getClientId(), roomId);
+        
+        String started = "GAME_STARTED:" + roomId + ":" + gameType + ":" + mode;
+        first.sendRoomMessage(roomId, started);
+        second.sendRoomMessage(roomId, started);
+        room.initializeGame();
+        room.broadcastToAll("GAME_READY");
+        return room;
+    }
+    
+    /**
+     * Saca a los jugadores de una sala terminada, que se elimina al quedar vacía.
+     * @param room Sala terminada
+     */
+    public void releaseRoom(GameRoom room) {
+        for (ClientHandler player : room.getPlayers()) {
+            removeFromRoom(room, player.getClientId());
+        }
+    }
+    
+    public TournamentManager getTournaments() {
+        return tournaments;
     }
     
     /**
@@ -218,20 +960,65 @@ public class GameServer {
     }
     
     /**
-     * Remueve un cliente de su sala actual.
+     * Remueve un cliente de sus salas, salvo de aquellas en las que espera reconectar.
+     * Un cliente multiplexado puede estar en varias salas.
      * @param clientId ID del cliente
      */
     public void removeClientFromRoom(String clientId) {
         for (GameRoom room : gameRooms.values()) {
-            if (room.hasPlayer(clientId)) {
-                room.removePlayer(clientId);
-                
-                // Si la sala queda vacía, eliminarla
-                if (room.isEmpty()) {
-                    gameRooms.remove(room.getRoomId());
-                    LOGGER.info("Sala eliminada: " + room.getRoomId());
-                }
-                break;
+            if (room.hasPlayer(clientId) && !room.isDetached(clientId)) {
+                removeFromRoom(room, clientId);
+            }
+        }
+    }
+    
+    /**
+     * Remueve un jugador de una sala y la elimina si queda vacía.
+     */
+    private void removeFromRoom(GameRoom room, String clientId) {
+        room.removePlayer(clientId);
+        
+        // Si la sala queda vacía, eliminarla
+        if (room.isEmpty()) {
+            gameRooms.remove(room.getRoomId());
+            room.closeSpectators();
+            ServerLog.log(ServerLog.Event.ROOM_REMOVED, room.getRoomId());
+        }
+    }
+    
+    /**
+     * Empieza a retransmitir una sala a un cliente. Deja de observar la sala anterior si la había.
+     * @param client Manejador del cliente
+     * @param roomId ID de la sala
+     * @param delaySeconds Retardo de la retransmisión
+     * @return true si la sala existe y admite al espectador
+     */
+    public boolean spectateRoom(ClientHandler client, String roomId, int delaySeconds) {
+        GameRoom room = gameRooms.get(roomId);
+        if (room == null) {
+            return false;
+        }
+        stopSpectating(client);
+        client.sendRoomMessage(roomId, "SPECTATE_OK:" + roomId + ":" + delaySeconds);
+        if (!room.addSpectator(client, TimeUnit.SECONDS.toMillis(delaySeconds))) {
+            client.sendRoomMessage(roomId, "SPECTATE_ENDED:" + roomId + ":REFUSED");
+            return true;
+        }
+        client.setSpectatingRoomId(roomId);
+        return true;
+    }
+    
+    /**
+     * Deja de retransmitir a un cliente la sala que observa.
+     * @param client Manejador del cliente
+     */
+    public void stopSpectating(ClientHandler client) {
+        String roomId = client.getSpectatingRoomId();
+        if (roomId != null) {
+            client.setSpectatingRoomId(null);
+            GameRoom room = gameRooms.get(roomId);
+            if (room != null) {
+                room.removeSpectator(client.getClientId());
             }
         }
     }
@@ -261,6 +1048,14 @@ public class GameServer {
         return gameRooms.size();
     }
     
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+    
+    public GameJournal getJournal() {
+        return journal;
+    }
+    
     /**
      * Verifica si el servidor está ejecutándose.
      * @return true si está ejecutándose
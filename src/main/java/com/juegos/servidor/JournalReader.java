@@ -0,0 +1,113 @@
+package com.juegos.servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lectura secuencial de los segmentos del {@link GameJournal}.
+ * Los segmentos se mapean en memoria y los registros se entregan al visitante
+ * sin copiar su payload.
+ */
+public final class JournalReader {
+
+    /**
+     * Recibe los registros de un segmento en el orden en que se escribieron.
+     */
+    public interface Visitor {
+
+        /**
+         * Procesa un registro.
+         * @param type Tipo de evento
+         * @param room Número de sala
+         * @param roomSequence Secuencia del evento dentro de su sala
+         * @param sequence Número de secuencia global
+         * @param timestamp Marca de tiempo en milisegundos
+         * @param data Buffer del segmento (no debe modificarse)
+         * @param offset Posición del payload en el buffer
+         * @param length Longitud del payload
+         */
+        void visit(byte type, int room, int roomSequence, long sequence, long timestamp, ByteBuffer data,
+                   int offset, int length);
+    }
+
+    private JournalReader() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Recorre todos los registros de un segmento.
+     * @param segmentFile Fichero de segmento
+     * @param visitor Visitante de los registros
+     * @return Número de registros leídos
+     * @throws IOException Si no se puede leer el segmento
+     */
+    public static int forEach(Path segmentFile, Visitor visitor) throws IOException {
+        ByteBuffer data = map(segmentFile);
+        if (data.limit() < GameJournal.SEGMENT_HEADER_SIZE || data.getInt(0) != GameJournal.MAGIC) {
+            throw new IOException("Segmento de diario no válido: " + segmentFile);
+        }
+
+        int count = 0;
+        int position = GameJournal.SEGMENT_HEADER_SIZE;
+        while (position + GameJournal.RECORD_HEADER_SIZE <= data.limit()) {
+            byte type = data.get(position);
+            if (type == 0) {
+                break;
+            }
+            int length = data.get(position + 1) & 0xFF;
+            int payload = position + GameJournal.RECORD_HEADER_SIZE;
+            if (payload + length > data.limit()) {
+                break; // Registro incompleto al final de un segmento interrumpido
+            }
+
+            visitor.visit(type, data.getInt(position + 2), data.getInt(position + 6),
+                          data.getLong(position + GameJournal.SEQUENCE_OFFSET), data.getLong(position + 18),
+                          data, payload, length);
+            count++;
+            position = payload + length;
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene la mayor secuencia registrada en un segmento.
+     * @param segmentFile Fichero de segmento
+     * @return Mayor número de secuencia, o la anterior a la primera si está vacío
+     * @throws IOException Si no se puede leer el segmento
+     */
+    public static long lastSequence(Path segmentFile) throws IOException {
+        final long[] last = {firstSequence(segmentFile) - 1};
+        forEach(segmentFile, (type, room, roomSequence, sequence, timestamp, data, offset, length) ->
+            last[0] = Math.max(last[0], sequence));
+        return last[0];
+    }
+
+    /**
+     * Obtiene la primera secuencia que puede contener un segmento, según su cabecera.
+     * @param segmentFile Fichero de segmento
+     * @return Primera secuencia del segmento
+     * @throws IOException Si no se puede leer el segmento
+     */
+    public static long firstSequence(Path segmentFile) throws IOException {
+        return map(segmentFile).getLong(16);
+    }
+
+    /**
+     * Obtiene la versión del formato con la que se escribió un segmento.
+     * @param segmentFile Fichero de segmento
+     * @return Versión de la cabecera
+     * @throws IOException Si no se puede leer el segmento
+     */
+    public static int version(Path segmentFile) throws IOException {
+        return map(segmentFile).getInt(4);
+    }
+
+    private static ByteBuffer map(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
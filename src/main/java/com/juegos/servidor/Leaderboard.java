@@ -0,0 +1,378 @@
+package com.juegos.servidor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clasificación de jugadores mantenida de forma incremental.
+ *
+ * Los jugadores se ordenan por victorias, después por porcentaje de victorias
+ * (como {@link com.juegos.common.Player#getWinPercentage()}) y por último por nombre.
+ * El índice es una skip list con el ancho de cada enlace, de modo que insertar,
+ * quitar, buscar la posición de un jugador o el jugador en una posición cuesta
+ * O(log n) y una página cuesta O(log n + tamaño de página).
+ *
+ * Las páginas se sirven desde una instantánea versionada de las primeras
+ * posiciones, que se reconstruye como mucho una vez por intervalo de refresco
+ * y sólo si la clasificación ha cambiado; consultar muchas veces la misma
+ * página no recalcula nada.
+ */
+public class Leaderboard {
+
+    private static final int MAX_LEVEL = 32;
+
+    private final int pageSize;
+    private final int cachedRanks;
+    private final long refreshMillis;
+
+    private final Map<String, Entry> entries;  // Entrada actual de cada jugador
+    private final Node head;
+    private final SplittableRandom random;
+    private int level;
+    private int size;
+    private volatile long version;             // Cambia con cada actualización
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Posición de un jugador en la clasificación. Es inmutable.
+     */
+    public static final class Entry {
+        private final String name;
+        private final int wins;
+        private final int losses;
+        private final int draws;
+
+        Entry(String name, PlayerStats stats) {
+            this.name = name;
+            this.wins = stats.getWins();
+            this.losses = stats.getLosses();
+            this.draws = stats.getDraws();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getTotalGames() {
+            return wins + losses + draws;
+        }
+
+        public double getWinPercentage() {
+            int total = getTotalGames();
+            return total == 0 ? 0.0 : (double) wins / total * 100.0;
+        }
+    }
+
+    /**
+     * Nodo de la skip list. span[i] es el número de posiciones que avanza el enlace next[i].
+     */
+    private static final class Node {
+        final Entry entry;
+        final Node[] next;
+        final int[] span;
+
+        Node(Entry entry, int levels) {
+            this.entry = entry;
+            this.next = new Node[levels];
+            this.span = new int[levels];
+        }
+    }
+
+    /**
+     * Primeras posiciones de la clasificación en una versión concreta.
+     */
+    private static final class Snapshot {
+        final long version;
+        final long createdAt;
+        final int total;
+        final Entry[] top;
+        final ConcurrentHashMap<Integer, String> pages = new ConcurrentHashMap<>();
+
+        Snapshot(long version, long createdAt, int total, Entry[] top) {
+            this.version = version;
+            this.createdAt = createdAt;
+            this.total = total;
+            this.top = top;
+        }
+    }
+
+    /**
+     * Constructor de la clasificación.
+     * @param pageSize Jugadores por página
+     * @param cachedRanks Posiciones incluidas en la instantánea
+     * @param refreshMillis Tiempo mínimo entre reconstrucciones de la instantánea
+     */
+    public Leaderboard(int pageSize, int cachedRanks, long refreshMillis) {
+        this.pageSize = pageSize;
+        this.cachedRanks = cachedRanks;
+        this.refreshMillis = refreshMillis;
+        this.entries = new HashMap<>();
+        this.head = new Node(null, MAX_LEVEL);
+        this.random = new SplittableRandom();
+        this.level = 1;
+        this.snapshot = new Snapshot(0, 0, 0, new Entry[0]);
+    }
+
+    /**
+     * Actualiza la posición de un jugador con sus estadísticas nuevas.
+     * @param name Nombre del jugador
+     * @param stats Estadísticas actuales
+     */
+    public synchronized void update(String name, PlayerStats stats) {
+        Entry old = entries.get(name);
+        if (old != null) {
+            if (old.wins == stats.getWins() && old.losses == stats.getLosses() && old.draws == stats.getDraws()) {
+                return;
+            }
+            delete(old);
+        }
+        Entry entry = new Entry(name, stats);
+        entries.put(name, entry);
+        insert(entry);
+        version++;
+    }
+
+    /**
+     * Obtiene la posición de un jugador.
+     * @param name Nombre del jugador
+     * @return Posición empezando en 1, o 0 si no está en la clasificación
+     */
+    public synchronized int rankOf(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return 0;
+        }
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i].entry, entry) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x.entry == entry) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Obtiene los jugadores de un tramo de la clasificación.
+     * @param offset Posiciones a saltar desde la primera
+     * @param count Número máximo de jugadores
+     * @return Entradas en orden
+     */
+    public synchronized Entry[] range(int offset, int count) {
+        int length = Math.max(0, Math.min(count, size - offset));
+        Entry[] result = new Entry[length];
+        Node x = length > 0 ? nodeAt(offset + 1) : null;
+        for (int i = 0; i < length; i++) {
+            result[i] = x.entry;
+            x = x.next[0];
+        }
+        return result;
+    }
+
+    /**
+     * Obtiene una página codificada para el protocolo:
+     * "version:pagina:total:pos,nombre,victorias,derrotas,empates;..."
+     * Las páginas dentro de la instantánea se codifican una sola vez por versión.
+     * @param page Número de página empezando en 0
+     * @return Página codificada
+     */
+    public String getPage(int page) {
+        page = Math.max(0, Math.min(page, Integer.MAX_VALUE / pageSize - 1));
+        Snapshot current = currentSnapshot();
+        int offset = page * pageSize;
+        if (offset < current.top.length
+                && (offset + pageSize <= current.top.length || current.top.length == current.total)) {
+            return current.pages.computeIfAbsent(page, p -> encode(current.version, p, current.total,
+                                                                   slice(current.top, offset), offset));
+        }
+
+        // Más allá de la instantánea: se consulta el índice directamente
+        long liveVersion;
+        int total;
+        Entry[] rows;
+        synchronized (this) {
+            liveVersion = version;
+            total = size;
+            rows = range(offset, pageSize);
+        }
+        return encode(liveVersion, page, total, rows, offset);
+    }
+
+    /**
+     * Devuelve la instantánea actual, reconstruyéndola si está desfasada y caducada.
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current.version == version || now - current.createdAt < refreshMillis) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current.version != version) {
+                current = new Snapshot(version, now, size, range(0, cachedRanks));
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Entry[] slice(Entry[] top, int offset) {
+        int length = Math.max(0, Math.min(pageSize, top.length - offset));
+        Entry[] page = new Entry[length];
+        System.arraycopy(top, Math.min(offset, top.length), page, 0, length);
+        return page;
+    }
+
+    private static String encode(long version, int page, int total, Entry[] entries, int offset) {
+        StringBuilder text = new StringBuilder(32 + entries.length * 24);
+        text.append(version).append(':').append(page).append(':').append(total).append(':');
+        for (int i = 0; i < entries.length; i++) {
+            if (i > 0) {
+                text.append(';');
+            }
+            Entry entry = entries[i];
+            text.append(offset + i + 1).append(',').append(entry.name).append(',')
+                .append(entry.wins).append(',').append(entry.losses).append(',').append(entry.draws);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Orden de la clasificación: más victorias, mayor porcentaje de victorias y nombre.
+     */
+    private static int compare(Entry a, Entry b) {
+        if (a.wins != b.wins) {
+            return a.wins > b.wins ? -1 : 1;
+        }
+        // Porcentajes comparados sin división: wa / ta frente a wb / tb
+        long left = (long) a.wins * b.getTotalGames();
+        long right = (long) b.wins * a.getTotalGames();
+        if (left != right) {
+            return left > right ? -1 : 1;
+        }
+        return a.name.compareTo(b.name);
+    }
+
+    private void insert(Entry entry) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i].entry, entry) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int levels = randomLevel();
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = levels;
+        }
+
+        Node node = new Node(entry, levels);
+        for (int i = 0; i < levels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = levels; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    private void delete(Entry entry) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i].entry, entry) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        Node node = x.next[0];
+        if (node == null || node.entry != entry) {
+            return;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    /**
+     * Busca el nodo de una posición (empezando en 1).
+     */
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private int randomLevel() {
+        int levels = 1;
+        while (levels < MAX_LEVEL && (random.nextInt() & 3) == 0) {
+            levels++;
+        }
+        return levels;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,297 @@
+package com.juegos.servidor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emparejamiento por puntuación de las salas VS_HUMAN.
+ *
+ * Los jugadores que esperan se guardan en una cola por tipo de juego, modo y
+ * opciones, ordenada por puntuación (un árbol), así que encolar, cancelar y
+ * buscar al rival más parecido cuestan O(log n). Al llegar un jugador se le
+ * empareja en el momento con su vecino más cercano si está dentro de la banda
+ * inicial; si no, espera. La banda admitida crece con el tiempo de espera, y un
+ * único hilo recorre cada cierto tiempo las colas en orden de puntuación y
+ * empareja de una vez a todos los vecinos que ya caben en la banda de alguno
+ * de los dos. Los emparejamientos se entregan fuera del bloqueo.
+ */
+public class Matchmaker {
+
+    private static final Logger LOGGER = Logger.getLogger(Matchmaker.class.getName());
+
+    /**
+     * Jugador en espera de rival.
+     */
+    public static final class Ticket implements Comparable<Ticket> {
+        private final String clientId;
+        private final double rating;
+        private final String gameType;
+        private final String mode;
+        private final RoomOptions options;
+        private final String queueKey;
+        private final long since;      // Instante de System.nanoTime() en que empezó a esperar
+        private final long sequence;   // Desempata por orden de llegada
+
+        private Ticket(String clientId, double rating, String gameType, String mode, RoomOptions options,
+                       long since, long sequence) {
+            this.clientId = clientId;
+            this.rating = rating;
+            this.gameType = gameType;
+            this.mode = mode;
+            this.options = options;
+            this.queueKey = gameType + ":" + mode + ":" + options;
+            this.since = since;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byRating = Double.compare(rating, other.rating);
+            return byRating != 0 ? byRating : Long.compare(sequence, other.sequence);
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        public String getGameType() {
+            return gameType;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public RoomOptions getOptions() {
+            return options;
+        }
+    }
+
+    private final long tickMillis;
+    private final double initialBand;
+    private final double bandGrowthPerSecond;
+    private final double maxBand;
+    private final BiConsumer<Ticket, Ticket> onMatch;
+    private final Map<String, TreeSet<Ticket>> queues;  // Tipo:modo:opciones → jugadores por puntuación
+    private final Map<String, Ticket> tickets;           // ID del cliente → su espera
+    private long nextSequence;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Constructor del emparejador.
+     * @param tickMillis Periodo de las pasadas de emparejamiento
+     * @param initialBand Diferencia de puntuación admitida al llegar
+     * @param bandGrowthPerSecond Lo que crece la banda por cada segundo de espera
+     * @param maxBand Banda máxima
+     * @param onMatch Recibe cada pareja, el de menor puntuación primero
+     */
+    public Matchmaker(long tickMillis, double initialBand, double bandGrowthPerSecond, double maxBand,
+                      BiConsumer<Ticket, Ticket> onMatch) {
+        this.tickMillis = tickMillis;
+        this.initialBand = initialBand;
+        this.bandGrowthPerSecond = bandGrowthPerSecond;
+        this.maxBand = maxBand;
+        this.onMatch = onMatch;
+        this.queues = new HashMap<>();
+        this.tickets = new HashMap<>();
+    }
+
+    /**
+     * Arranca el hilo del emparejador.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el emparejador y descarta las esperas.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        queues.clear();
+        tickets.clear();
+    }
+
+    /**
+     * Pone a un jugador a esperar rival. Si su vecino más cercano en la cola cabe
+     * en la banda se emparejan en el momento.
+     * @param clientId ID del cliente
+     * @param rating Puntuación del jugador
+     * @param gameType Tipo de juego
+     * @param mode Modo de juego
+     * @param options Opciones de la sala
+     * @return false si el cliente ya estaba esperando
+     */
+    public boolean enqueue(String clientId, double rating, String gameType, String mode, RoomOptions options) {
+        Ticket[] match;
+        synchronized (this) {
+            if (tickets.containsKey(clientId)) {
+                return false;
+            }
+            Ticket ticket = new Ticket(clientId, rating, gameType, mode, options, System.nanoTime(), nextSequence++);
+            match = pairOnArrival(ticket);
+        }
+        deliver(match);
+        return true;
+    }
+
+    /**
+     * Devuelve a la cola a un jugador cuyo rival desapareció antes de crear la sala,
+     * conservando su tiempo de espera.
+     * @param ticket Espera del jugador
+     */
+    public void requeue(Ticket ticket) {
+        Ticket[] match;
+        synchronized (this) {
+            if (tickets.containsKey(ticket.clientId)) {
+                return;
+            }
+            match = pairOnArrival(ticket);
+        }
+        deliver(match);
+    }
+
+    /**
+     * Busca rival entre los vecinos por puntuación o deja el ticket en la cola.
+     * @return Pareja encontrada o null
+     */
+    private Ticket[] pairOnArrival(Ticket ticket) {
+        TreeSet<Ticket> queue = queues.computeIfAbsent(ticket.queueKey, key -> new TreeSet<>());
+        long now = System.nanoTime();
+        Ticket below = queue.lower(ticket);
+        Ticket above = queue.higher(ticket);
+        Ticket best = null;
+        if (below != null && fits(below, ticket, now)) {
+            best = below;
+        }
+        if (above != null && fits(ticket, above, now) &&
+            (best == null || above.rating - ticket.rating < ticket.rating - best.rating)) {
+            best = above;
+        }
+        if (best == null) {
+            queue.add(ticket);
+            tickets.put(ticket.clientId, ticket);
+            return null;
+        }
+        remove(best);
+        return best == below ? new Ticket[] {below, ticket} : new Ticket[] {ticket, above};
+    }
+
+    /**
+     * Saca a un jugador de la cola.
+     * @param clientId ID del cliente
+     * @return true si estaba esperando
+     */
+    public synchronized boolean cancel(String clientId) {
+        Ticket ticket = tickets.get(clientId);
+        if (ticket == null) {
+            return false;
+        }
+        remove(ticket);
+        return true;
+    }
+
+    private void remove(Ticket ticket) {
+        tickets.remove(ticket.clientId);
+        TreeSet<Ticket> queue = queues.get(ticket.queueKey);
+        if (queue != null) {
+            queue.remove(ticket);
+            if (queue.isEmpty()) {
+                queues.remove(ticket.queueKey);
+            }
+        }
+    }
+
+    /**
+     * Recorre cada cola en orden de puntuación y empareja de una vez a todos los
+     * vecinos consecutivos que caben en la banda de alguno de los dos.
+     */
+    private void tick() {
+        List<Ticket[]> matches = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<TreeSet<Ticket>> queueIterator = queues.values().iterator();
+            while (queueIterator.hasNext()) {
+                TreeSet<Ticket> queue = queueIterator.next();
+                int first = matches.size();
+                Ticket previous = null;
+                for (Ticket ticket : queue) {
+                    if (previous != null && fits(previous, ticket, now)) {
+                        matches.add(new Ticket[] {previous, ticket});
+                        previous = null;
+                    } else {
+                        previous = ticket;
+                    }
+                }
+                for (Ticket[] match : matches.subList(first, matches.size())) {
+                    for (Ticket ticket : match) {
+                        queue.remove(ticket);
+                        tickets.remove(ticket.clientId);
+                    }
+                }
+                if (queue.isEmpty()) {
+                    queueIterator.remove();
+                }
+            }
+        }
+        for (Ticket[] match : matches) {
+            deliver(match);
+        }
+    }
+
+    /**
+     * Indica si dos jugadores, el primero con menor puntuación, caben en la banda de alguno de ellos.
+     */
+    private boolean fits(Ticket lower, Ticket upper, long now) {
+        return upper.rating - lower.rating <= Math.max(band(lower, now), band(upper, now));
+    }
+
+    private double band(Ticket ticket, long now) {
+        double waitedSeconds = (now - ticket.since) / (double) TimeUnit.SECONDS.toNanos(1);
+        return Math.min(maxBand, initialBand + bandGrowthPerSecond * Math.max(0, waitedSeconds));
+    }
+
+    private void deliver(Ticket[] match) {
+        if (match == null) {
+            return;
+        }
+        try {
+            onMatch.accept(match[0], match[1]);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error creando la sala de " + match[0].clientId + " y " + match[1].clientId, e);
+        }
+    }
+
+    public synchronized boolean isWaiting(String clientId) {
+        return tickets.containsKey(clientId);
+    }
+
+    public synchronized int getWaiting() {
+        return tickets.size();
+    }
+}
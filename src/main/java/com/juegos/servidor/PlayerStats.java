@@ -0,0 +1,77 @@
+package com.juegos.servidor;
+
+import com.juegos.common.Player;
+
+/**
+ * Estadísticas persistentes de un jugador. Es inmutable: cada actualización
+ * crea un valor nuevo, así que se puede leer sin bloqueo desde cualquier hilo.
+ */
+public final class PlayerStats {
+
+    public static final PlayerStats EMPTY = new PlayerStats(0, 0, 0);
+
+    private final int wins;
+    private final int losses;
+    private final int draws;
+
+    public PlayerStats(int wins, int losses, int draws) {
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+    }
+
+    /**
+     * Suma unas variaciones a las estadísticas.
+     * @param winsDelta Victorias a sumar
+     * @param lossesDelta Derrotas a sumar
+     * @param drawsDelta Empates a sumar
+     * @return Estadísticas resultantes
+     */
+    public PlayerStats add(int winsDelta, int lossesDelta, int drawsDelta) {
+        return new PlayerStats(wins + winsDelta, losses + lossesDelta, draws + drawsDelta);
+    }
+
+    /**
+     * Copia las estadísticas a un jugador conectado.
+     * @param player Jugador
+     */
+    public void applyTo(Player player) {
+        player.setGamesWon(wins);
+        player.setGamesLost(losses);
+        player.setGamesDrawn(draws);
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getTotalGames() {
+        return wins + losses + draws;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        PlayerStats other = (PlayerStats) obj;
+        return wins == other.wins && losses == other.losses && draws == other.draws;
+    }
+
+    @Override
+    public int hashCode() {
+        return (wins * 31 + losses) * 31 + draws;
+    }
+
+    @Override
+    public String toString() {
+        return wins + ":" + losses + ":" + draws;
+    }
+}
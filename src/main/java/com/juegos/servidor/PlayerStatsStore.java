@@ -0,0 +1,350 @@
+package com.juegos.servidor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Almacén persistente de estadísticas de jugadores, indexado por nombre.
+ *
+ * Las lecturas y actualizaciones trabajan sobre una caché en memoria; cada
+ * actualización marca al jugador como pendiente sin bloquear y un hilo escritor
+ * agrupa los jugadores pendientes en lotes que añade a un log y fuerza a disco de
+ * una vez (escritura diferida con group commit). Varias partidas de un jugador
+ * antes de escribirse se funden en una sola entrada con sus totales, así que no
+ * se pierde ningún cambio por mucho que se acumulen. Cuando el log crece se
+ * escribe un checkpoint con todas las estadísticas y el log se vacía. Tras una
+ * caída se carga el checkpoint y se aplican los lotes del log posteriores a él.
+ *
+ * Formato del log: lotes con long secuencia, int número de jugadores, int longitud,
+ * int CRC32 y, por jugador, UTF nombre e int victorias, derrotas, empates (totales).
+ * Formato del checkpoint: int MAGIC, short VERSION, long última secuencia aplicada,
+ * int número de jugadores y, por jugador, UTF nombre e int victorias, derrotas, empates.
+ */
+public class PlayerStatsStore {
+
+    private static final Logger LOGGER = Logger.getLogger(PlayerStatsStore.class.getName());
+
+    public static final int MAGIC = 0x42535053; // "BSPS"
+    public static final short VERSION = 2;
+    public static final String CHECKPOINT_FILE = "stats.ckpt";
+    public static final String LOG_FILE = "stats.log";
+
+    private static final int BATCH_HEADER_SIZE = 20;
+    private static final int MAX_BATCH = 1024;
+    private static final long POLL_MILLIS = 100;
+
+    private final Path directory;
+    private final long checkpointThreshold;           // Tamaño del log que provoca un checkpoint
+    private final ConcurrentHashMap<String, PlayerStats> cache;
+    private final Map<String, PlayerStats> durable;   // Estado ya escrito en disco (sólo el hilo escritor)
+    private final Set<String> dirty;                  // Jugadores con cambios sin escribir
+    private final LinkedBlockingQueue<String> queue;  // Los mismos jugadores, en orden de llegada
+
+    private volatile boolean running;
+    private Thread writer;
+    private FileChannel log;
+    private long logBytes;
+    private long lastBatch;                            // Secuencia del último lote escrito
+    private long checkpoints;
+
+    /**
+     * Constructor del almacén.
+     * @param directory Directorio del checkpoint y el log
+     * @param checkpointThreshold Tamaño del log en bytes a partir del cual se hace un checkpoint
+     */
+    public PlayerStatsStore(Path directory, long checkpointThreshold) {
+        this.directory = directory;
+        this.checkpointThreshold = checkpointThreshold;
+        this.cache = new ConcurrentHashMap<>();
+        this.durable = new HashMap<>();
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.queue = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Recupera el estado desde el checkpoint y el log y arranca el hilo escritor.
+     * @throws IOException Si no se pueden leer o preparar los ficheros
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        readCheckpoint();
+        int replayed = replayLog();
+        cache.putAll(durable);
+        LOGGER.info("Estadísticas de " + durable.size() + " jugadores recuperadas en " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms (" + replayed + " lotes del log)");
+
+        running = true;
+        writer = new Thread(this::writeLoop, "player-stats");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Detiene el hilo escritor tras escribir los cambios pendientes y un checkpoint final.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Obtiene las estadísticas de un jugador.
+     * @param name Nombre del jugador
+     * @return Estadísticas (vacías si no ha jugado nunca)
+     */
+    public PlayerStats get(String name) {
+        PlayerStats stats = cache.get(name);
+        return stats != null ? stats : PlayerStats.EMPTY;
+    }
+
+    /**
+     * Suma el resultado de una partida. Actualiza la caché al momento y marca al
+     * jugador para que sus totales se escriban en segundo plano; nunca bloquea.
+     * @param name Nombre del jugador
+     * @param wins Victorias a sumar
+     * @param losses Derrotas a sumar
+     * @param draws Empates a sumar
+     * @return Estadísticas actualizadas
+     */
+    public PlayerStats record(String name, int wins, int losses, int draws) {
+        PlayerStats updated = cache.merge(name, new PlayerStats(wins, losses, draws),
+                                          (old, delta) -> old.add(delta.getWins(), delta.getLosses(), delta.getDraws()));
+        // Después de la caché: si el escritor ya tomó al jugador, vuelve a marcarse
+        if (dirty.add(name)) {
+            queue.add(name);
+        }
+        return updated;
+    }
+
+    /**
+     * Obtiene una vista de solo lectura de todas las estadísticas en memoria.
+     * @return Mapa nombre → estadísticas
+     */
+    public Map<String, PlayerStats> getAll() {
+        return Collections.unmodifiableMap(cache);
+    }
+
+    /**
+     * Bucle del hilo escritor: toma los jugadores pendientes, añade sus totales
+     * al log en un lote con un único force y hace un checkpoint cuando el log crece.
+     */
+    private void writeLoop() {
+        List<String> names = new ArrayList<>(MAX_BATCH);
+        Map<String, PlayerStats> batch = new LinkedHashMap<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                // Sin interrupciones: cerrarían el FileChannel a mitad de escritura
+                String first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                names.add(first);
+                queue.drainTo(names, MAX_BATCH - names.size());
+                for (String name : names) {
+                    // Desmarcar antes de leer la caché para no perder un cambio concurrente
+                    dirty.remove(name);
+                    batch.put(name, cache.get(name));
+                }
+                names.clear();
+
+                writeBatch(batch);
+                durable.putAll(batch);
+                batch.clear();
+
+                if (logBytes >= checkpointThreshold) {
+                    checkpoint();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                // Los totales siguen en la caché: se vuelven a marcar para el siguiente lote
+                LOGGER.log(Level.SEVERE, "Error escribiendo las estadísticas de jugadores", e);
+                for (String name : batch.keySet()) {
+                    if (dirty.add(name)) {
+                        queue.add(name);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        try {
+            checkpoint();
+            log.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error en el checkpoint final de estadísticas", e);
+        }
+    }
+
+    private void writeBatch(Map<String, PlayerStats> batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Map.Entry<String, PlayerStats> entry : batch.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().getWins());
+            out.writeInt(entry.getValue().getLosses());
+            out.writeInt(entry.getValue().getDraws());
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer frame = ByteBuffer.allocate(BATCH_HEADER_SIZE + payload.length);
+        frame.putLong(++lastBatch).putInt(batch.size()).putInt(payload.length).putInt((int) crc.getValue())
+             .put(payload);
+        frame.flip();
+        while (frame.hasRemaining()) {
+            log.write(frame);
+        }
+        log.force(false);
+        logBytes += BATCH_HEADER_SIZE + payload.length;
+    }
+
+    /**
+     * Escribe todas las estadísticas ya persistidas en un checkpoint nuevo y vacía el log.
+     * Si la caída ocurre entre ambos pasos, los lotes del log ya incluidos se
+     * reconocen por su secuencia y no se aplican dos veces.
+     */
+    private void checkpoint() throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(lastBatch);
+            out.writeInt(durable.size());
+            for (Map.Entry<String, PlayerStats> entry : durable.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().getWins());
+                out.writeInt(entry.getValue().getLosses());
+                out.writeInt(entry.getValue().getDraws());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.truncate(0);
+        log.position(0);
+        logBytes = 0;
+        checkpoints++;
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Checkpoint de estadísticas no válido: " + file);
+            }
+            lastBatch = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                durable.put(in.readUTF(), new PlayerStats(in.readInt(), in.readInt(), in.readInt()));
+            }
+        }
+    }
+
+    /**
+     * Aplica los lotes del log posteriores al checkpoint y recorta un lote
+     * incompleto o dañado al final.
+     * @return Número de lotes aplicados
+     */
+    private int replayLog() throws IOException {
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer data = ByteBuffer.allocate((int) log.size());
+        while (data.hasRemaining() && log.read(data) >= 0) {
+            // Leer el log completo
+        }
+
+        int applied = 0;
+        int position = 0;
+        while (position + BATCH_HEADER_SIZE <= data.limit()) {
+            long sequence = data.getLong(position);
+            int count = data.getInt(position + 8);
+            int length = data.getInt(position + 12);
+            int checksum = data.getInt(position + 16);
+            if (length < 0 || position + BATCH_HEADER_SIZE + length > data.limit()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data.array(), position + BATCH_HEADER_SIZE, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            if (sequence > lastBatch) {
+                DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(data.array(), position + BATCH_HEADER_SIZE, length));
+                for (int i = 0; i < count; i++) {
+                    durable.put(in.readUTF(), new PlayerStats(in.readInt(), in.readInt(), in.readInt()));
+                }
+                lastBatch = sequence;
+                applied++;
+            }
+            position += BATCH_HEADER_SIZE + length;
+        }
+
+        log.truncate(position);
+        log.position(position);
+        logBytes = position;
+        return applied;
+    }
+
+    public int getPlayerCount() {
+        return cache.size();
+    }
+
+    public int getPending() {
+        return dirty.size();
+    }
+
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+}
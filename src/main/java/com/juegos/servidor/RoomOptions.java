@@ -0,0 +1,131 @@
+package com.juegos.servidor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Opciones de configuración de una sala, recibidas en GAME_SELECT como
+ * "GAME_SELECT:tipo:modo:CLAVE=valor,CLAVE=valor".
+ * Dos salas sólo se emparejan si tienen las mismas opciones.
+ */
+public final class RoomOptions {
+
+    // Claves reconocidas
+    public static final String AI_STRATEGY = "AI";  // Estrategia de ataque de la IA
+    public static final String SEED = "SEED";       // Semilla fija de la partida (reproducible)
+    public static final String PRIORS = "PRIORS";   // false = la IA busca sin priors de colocación humana
+    public static final String RULES = "RULES";     // Reglas de disparo (SALVO = una andanada por turno)
+    public static final String BOARD = "BOARD";     // Lado del tablero en MEGA_BATTLESHIP
+    public static final String SHIPS = "SHIPS";     // Barcos de cada flota en MEGA_BATTLESHIP
+    public static final String PLAYERS = "PLAYERS"; // Jugadores de una sala FFA
+    public static final String CLOCK = "CLOCK";     // Tiempo de cada jugador en segundos (reloj de ajedrez)
+    public static final String INCREMENT = "INCREMENT"; // Segundos que se suman al reloj tras cada jugada
+    public static final String TIMEOUT = "TIMEOUT"; // Qué pasa al agotar el tiempo: LOSE o AUTO
+
+    public static final RoomOptions NONE = new RoomOptions(Collections.<String, String>emptyMap());
+
+    private final Map<String, String> values;
+
+    private RoomOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Interpreta las opciones de una sala.
+     * @param text Texto con pares CLAVE=valor separados por comas (puede ser null)
+     * @return Opciones de la sala
+     */
+    public static RoomOptions parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+
+        Map<String, String> values = new TreeMap<>();
+        for (String pair : text.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(pair.substring(0, separator).trim().toUpperCase(),
+                           pair.substring(separator + 1).trim());
+            } else if (!pair.trim().isEmpty()) {
+                values.put(pair.trim().toUpperCase(), "true");
+            }
+        }
+        return new RoomOptions(Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * Obtiene el valor de una opción.
+     * @param key Clave de la opción
+     * @param defaultValue Valor por defecto
+     * @return Valor de la opción o el valor por defecto
+     */
+    public String get(String key, String defaultValue) {
+        String value = values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Obtiene el valor numérico de una opción.
+     * @param key Clave de la opción
+     * @param defaultValue Valor por defecto si no existe o no es un número
+     * @return Valor de la opción
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Obtiene el valor numérico largo de una opción.
+     * @param key Clave de la opción
+     * @param defaultValue Valor por defecto si no existe o no es un número
+     * @return Valor de la opción
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return values.equals(((RoomOptions) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
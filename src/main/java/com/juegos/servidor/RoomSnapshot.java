@@ -0,0 +1,318 @@
+package com.juegos.servidor;
+
+import com.juegos.battleship.Board;
+import com.juegos.battleship.FleetLayout;
+import com.juegos.battleship.Ship;
+import com.juegos.common.GameConstants;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Estado compacto de una sala de Batalla Naval en curso, suficiente para
+ * reconstruirla tras una caída del servidor: semilla, jugadores con su token
+ * de sesión, posición de cada barco y la lista ordenada de disparos.
+ *
+ * Los barcos se codifican en un byte (celda | 0x80 si es horizontal) y los
+ * disparos en otro (celda | 0x80 si disparó el segundo jugador), igual que
+ * en el registro de disparos de BattleshipGame.
+ */
+public final class RoomSnapshot {
+
+    static final int SHIPS = GameConstants.SHIP_SIZES.length;
+    static final byte UNPLACED = (byte) 0xFF;
+
+    private final int roomNumber;
+    private final boolean vsAI;
+    private final String options;
+    private final long seed;
+    private final String[] playerIds;
+    private final String[] sessionTokens;  // Secreto con el que cada jugador vuelve a su plaza
+    private final byte[] fleet;        // SHIPS bytes por plaza
+    private byte[] shots;
+    private int shotCount;
+    private long lastSequence;         // Secuencia de sala del último evento incluido en este estado
+
+    /**
+     * Constructor de una instantánea vacía.
+     * @param roomNumber Número de sala
+     * @param vsAI true si la sala es contra la IA
+     * @param options Opciones de la sala en formato CLAVE=valor
+     * @param seed Semilla de la partida
+     */
+    public RoomSnapshot(int roomNumber, boolean vsAI, String options, long seed) {
+        this.roomNumber = roomNumber;
+        this.vsAI = vsAI;
+        this.options = options;
+        this.seed = seed;
+        this.playerIds = new String[2];
+        this.sessionTokens = new String[2];
+        this.fleet = new byte[2 * SHIPS];
+        this.shots = new byte[16];
+        Arrays.fill(fleet, UNPLACED);
+    }
+
+    /**
+     * Registra el ID del jugador de una plaza.
+     * @param slot Plaza (0 o 1)
+     * @param playerId ID del jugador
+     */
+    public void setPlayerId(int slot, String playerId) {
+        if (slot == 0 || slot == 1) {
+            playerIds[slot] = playerId;
+        }
+    }
+
+    /**
+     * Registra el token de sesión del jugador de una plaza.
+     * @param slot Plaza (0 o 1)
+     * @param sessionToken Token de sesión o null si no tiene (la IA)
+     */
+    public void setSessionToken(int slot, String sessionToken) {
+        if (slot == 0 || slot == 1) {
+            sessionTokens[slot] = sessionToken;
+        }
+    }
+
+    /**
+     * Busca la plaza que corresponde a un token de sesión.
+     * @param sessionToken Token presentado por el cliente
+     * @return Plaza o -1 si el token no es de esta sala
+     */
+    public int slotForToken(String sessionToken) {
+        for (int slot = 0; slot < 2; slot++) {
+            if (sessionTokens[slot] != null && sessionTokens[slot].equals(sessionToken)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Registra la posición de un barco.
+     * @param slot Plaza del dueño del barco
+     * @param ship Índice del barco en la flota estándar
+     * @param row Fila inicial
+     * @param col Columna inicial
+     * @param horizontal Orientación
+     */
+    public void placeShip(int slot, int ship, int row, int col, boolean horizontal) {
+        if ((slot == 0 || slot == 1) && ship >= 0 && ship < SHIPS) {
+            fleet[slot * SHIPS + ship] =
+                (byte) ((row * GameConstants.BATTLESHIP_BOARD_SIZE + col) | (horizontal ? 0x80 : 0));
+        }
+    }
+
+    /**
+     * Copia las posiciones de los barcos ya colocados en un tablero.
+     * @param slot Plaza del dueño del tablero
+     * @param board Tablero
+     */
+    public void captureFleet(int slot, Board board) {
+        Ship[] ships = board.getShips();
+        for (int ship = 0; ship < ships.length && ship < SHIPS; ship++) {
+            if (ships[ship].isPlaced()) {
+                placeShip(slot, ship, ships[ship].getStartRow(), ships[ship].getStartCol(),
+                          ships[ship].isHorizontal());
+            }
+        }
+    }
+
+    /**
+     * Añade un disparo ya codificado.
+     * @param shot Celda | 0x80 si disparó el segundo jugador
+     */
+    public void addShot(byte shot) {
+        if (shotCount == shots.length) {
+            shots = Arrays.copyOf(shots, shotCount * 2);
+        }
+        shots[shotCount++] = shot;
+    }
+
+    /**
+     * Añade un disparo.
+     * @param slot Plaza del jugador que disparó
+     * @param row Fila
+     * @param col Columna
+     */
+    public void addShot(int slot, int row, int col) {
+        addShot((byte) ((row * GameConstants.BATTLESHIP_BOARD_SIZE + col) | (slot == 1 ? 0x80 : 0)));
+    }
+
+    /**
+     * Indica si la instantánea contiene una partida que se puede reanudar:
+     * contra la IA basta con el jugador humano, pero la flota de la IA tiene que
+     * estar completa (la coloca al crear la sala); contra humano hacen falta los dos.
+     * @return true si hay una partida que reanudar
+     */
+    public boolean isResumable() {
+        return playerIds[0] != null && (vsAI ? isFleetComplete(1) : playerIds[1] != null);
+    }
+
+    /**
+     * Indica si todos los barcos de una plaza están colocados.
+     * @param slot Plaza
+     * @return true si la flota está completa
+     */
+    public boolean isFleetComplete(int slot) {
+        for (int ship = 0; ship < SHIPS; ship++) {
+            if (!isPlaced(slot, ship)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si la partida ya estaba en la fase de batalla. La fase no se guarda:
+     * se deduce de las flotas, que el diario completa después de la instantánea,
+     * igual que BattleshipGame empieza la batalla al colocarse la última flota.
+     * @return true si las dos flotas están completas
+     */
+    public boolean isBattlePhase() {
+        return isFleetComplete(0) && isFleetComplete(1);
+    }
+
+    /**
+     * Obtiene la disposición de la flota de una plaza si está completa.
+     * @param slot Plaza
+     * @return Disposición o null si falta algún barco
+     */
+    public FleetLayout getFleetLayout(int slot) {
+        int[] rows = new int[SHIPS];
+        int[] cols = new int[SHIPS];
+        boolean[] horizontal = new boolean[SHIPS];
+        for (int ship = 0; ship < SHIPS; ship++) {
+            if (!isPlaced(slot, ship)) {
+                return null;
+            }
+            rows[ship] = getShipRow(slot, ship);
+            cols[ship] = getShipCol(slot, ship);
+            horizontal[ship] = isShipHorizontal(slot, ship);
+        }
+        return FleetLayout.of(rows, cols, horizontal);
+    }
+
+    public boolean isPlaced(int slot, int ship) {
+        return fleet[slot * SHIPS + ship] != UNPLACED;
+    }
+
+    public int getShipRow(int slot, int ship) {
+        return (fleet[slot * SHIPS + ship] & 0x7F) / GameConstants.BATTLESHIP_BOARD_SIZE;
+    }
+
+    public int getShipCol(int slot, int ship) {
+        return (fleet[slot * SHIPS + ship] & 0x7F) % GameConstants.BATTLESHIP_BOARD_SIZE;
+    }
+
+    public boolean isShipHorizontal(int slot, int ship) {
+        return (fleet[slot * SHIPS + ship] & 0x80) != 0;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    public int getShotSlot(int index) {
+        return (shots[index] & 0x80) != 0 ? 1 : 0;
+    }
+
+    public int getShotRow(int index) {
+        return (shots[index] & 0x7F) / GameConstants.BATTLESHIP_BOARD_SIZE;
+    }
+
+    public int getShotCol(int index) {
+        return (shots[index] & 0x7F) % GameConstants.BATTLESHIP_BOARD_SIZE;
+    }
+
+    // Serialización
+
+    /**
+     * Escribe la instantánea.
+     * @param out Destino
+     * @throws IOException Si falla la escritura
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(roomNumber);
+        out.writeBoolean(vsAI);
+        out.writeLong(seed);
+        out.writeLong(lastSequence);
+        out.writeUTF(options);
+        out.writeUTF(playerIds[0] != null ? playerIds[0] : "");
+        out.writeUTF(playerIds[1] != null ? playerIds[1] : "");
+        out.writeUTF(sessionTokens[0] != null ? sessionTokens[0] : "");
+        out.writeUTF(sessionTokens[1] != null ? sessionTokens[1] : "");
+        out.write(fleet);
+        out.writeShort(shotCount);
+        out.write(shots, 0, shotCount);
+    }
+
+    /**
+     * Lee una instantánea escrita con {@link #writeTo(DataOutput)}.
+     * @param in Origen
+     * @return Instantánea leída
+     * @throws IOException Si falla la lectura
+     */
+    public static RoomSnapshot readFrom(DataInput in) throws IOException {
+        int roomNumber = in.readInt();
+        boolean vsAI = in.readBoolean();
+        long seed = in.readLong();
+        long lastSequence = in.readLong();
+
+        RoomSnapshot snapshot = new RoomSnapshot(roomNumber, vsAI, in.readUTF(), seed);
+        snapshot.lastSequence = lastSequence;
+        for (int slot = 0; slot < 2; slot++) {
+            String id = in.readUTF();
+            snapshot.playerIds[slot] = id.isEmpty() ? null : id;
+        }
+        for (int slot = 0; slot < 2; slot++) {
+            String token = in.readUTF();
+            snapshot.sessionTokens[slot] = token.isEmpty() ? null : token;
+        }
+        in.readFully(snapshot.fleet);
+        snapshot.shotCount = in.readUnsignedShort();
+        snapshot.shots = new byte[Math.max(16, snapshot.shotCount)];
+        in.readFully(snapshot.shots, 0, snapshot.shotCount);
+        return snapshot;
+    }
+
+    // Getters
+
+    public int getRoomNumber() {
+        return roomNumber;
+    }
+
+    public String getRoomId() {
+        return "ROOM_" + roomNumber;
+    }
+
+    public boolean isVsAI() {
+        return vsAI;
+    }
+
+    public String getOptions() {
+        return options;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getPlayerId(int slot) {
+        return playerIds[slot];
+    }
+
+    public String getSessionToken(int slot) {
+        return sessionTokens[slot];
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,238 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Registro asíncrono y estructurado de los eventos frecuentes del servidor
+ * (conexiones, salas, movimientos y mensajes).
+ *
+ * Cada evento se copia a una ranura de un buffer circular preasignado sin
+ * bloqueos ni reservas de memoria: los argumentos son referencias a objetos
+ * que ya existen o valores primitivos. Un hilo de fondo da formato a los
+ * eventos ("EVENTO clave=valor ...") y los publica en java.util.logging, así
+ * que los handlers y niveles configurados siguen valiendo. Un evento de un
+ * nivel desactivado sólo cuesta leer un booleano.
+ *
+ * Si el buffer está lleno el evento se descarta y se cuenta; el servidor nunca
+ * espera al registro.
+ */
+public final class ServerLog {
+
+    private static final Logger EVENTS = Logger.getLogger("com.juegos.servidor.events");
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    /**
+     * Eventos registrados, con su nivel y los nombres de sus campos.
+     */
+    public enum Event {
+        CONNECTION_ACCEPTED(Level.INFO, "address"),
+        CLIENT_REGISTERED(Level.INFO, "client", "clients"),
+        CLIENT_UNREGISTERED(Level.INFO, "client", "clients"),
+        CLIENT_CONNECTED(Level.INFO, "name", "client"),
+        CLIENT_DISCONNECTED(Level.INFO, "client"),
+        ROOM_CREATED(Level.INFO, "room", "type", "mode"),
+        ROOM_JOINED(Level.INFO, "client", "room"),
+        ROOM_REMOVED(Level.INFO, "room"),
+        PLAYER_ADDED(Level.INFO, "room", "client"),
+        PLAYER_REMOVED(Level.INFO, "room", "client"),
+        PLAYER_DETACHED(Level.INFO, "room", "client"),
+        PLAYER_RESUMED(Level.INFO, "client", "room"),
+        GAME_INITIALIZED(Level.INFO, "room", "type", "seed"),
+        GAME_ENDED(Level.INFO, "room", "result"),
+        MOVE_RECEIVED(Level.FINE, "room", "client", "move"),
+        MESSAGE_SENT(Level.FINE, "client", "message");
+
+        private final Level level;
+        private final String[] fields;
+        private volatile boolean enabled;
+
+        Event(Level level, String... fields) {
+            this.level = level;
+            this.fields = fields;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+    }
+
+    /**
+     * Ranura del buffer circular. sequence indica qué evento contiene y se
+     * escribe la última, después de los datos, para publicarla.
+     */
+    private static final class Slot {
+        volatile long sequence = -1;
+        Event event;
+        long timestamp;
+        Object first;
+        Object second;
+        Object third;
+        long number;
+        boolean hasNumber;
+    }
+
+    private static final Slot[] RING;
+    private static final int MASK;
+    private static final AtomicLong HEAD = new AtomicLong();  // Siguiente secuencia a reservar
+    private static volatile long tail;                         // Siguiente secuencia a publicar
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    static {
+        int capacity = Integer.highestOneBit(Math.max(2, GameConstants.LOG_RING_CAPACITY - 1)) << 1;
+        RING = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            RING[i] = new Slot();
+        }
+        MASK = capacity - 1;
+        refreshLevels();
+
+        Thread writer = new Thread(ServerLog::drainLoop, "server-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private ServerLog() {
+        throw new AssertionError("Esta clase no debe ser instanciada");
+    }
+
+    /**
+     * Vuelve a leer el nivel configurado para los eventos.
+     * Hay que llamarlo si se cambia el nivel del logger "com.juegos.servidor.events" en caliente.
+     */
+    public static void refreshLevels() {
+        for (Event event : Event.values()) {
+            event.enabled = EVENTS.isLoggable(event.level);
+        }
+    }
+
+    public static void log(Event event, Object first) {
+        if (event.enabled) {
+            publish(event, first, null, null, 0, false);
+        }
+    }
+
+    public static void log(Event event, Object first, Object second) {
+        if (event.enabled) {
+            publish(event, first, second, null, 0, false);
+        }
+    }
+
+    public static void log(Event event, Object first, Object second, Object third) {
+        if (event.enabled) {
+            publish(event, first, second, third, 0, false);
+        }
+    }
+
+    public static void log(Event event, Object first, long number) {
+        if (event.enabled) {
+            publish(event, first, null, null, number, true);
+        }
+    }
+
+    public static void log(Event event, Object first, Object second, long number) {
+        if (event.enabled) {
+            publish(event, first, second, null, number, true);
+        }
+    }
+
+    /**
+     * Reserva una ranura con CAS, copia el evento y lo publica.
+     */
+    private static void publish(Event event, Object first, Object second, Object third,
+                                long number, boolean hasNumber) {
+        long sequence;
+        do {
+            sequence = HEAD.get();
+            if (sequence - tail >= RING.length) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        } while (!HEAD.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = RING[(int) sequence & MASK];
+        slot.event = event;
+        slot.timestamp = System.currentTimeMillis();
+        slot.first = first;
+        slot.second = second;
+        slot.third = third;
+        slot.number = number;
+        slot.hasNumber = hasNumber;
+        slot.sequence = sequence;
+    }
+
+    /**
+     * Bucle del hilo de fondo: publica los eventos en orden de reserva.
+     */
+    private static void drainLoop() {
+        StringBuilder text = new StringBuilder(256);
+        while (true) {
+            Slot slot = RING[(int) tail & MASK];
+            if (slot.sequence != tail) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(slot, text);
+            } catch (RuntimeException e) {
+                EVENTS.log(Level.WARNING, "Error publicando el evento " + slot.event, e);
+            }
+            slot.first = null;
+            slot.second = null;
+            slot.third = null;
+            tail = tail + 1;
+        }
+    }
+
+    private static void write(Slot slot, StringBuilder text) {
+        Event event = slot.event;
+        text.setLength(0);
+        text.append(event.name());
+
+        Object[] values = {slot.first, slot.second, slot.third};
+        int objects = event.fields.length - (slot.hasNumber ? 1 : 0);
+        for (int i = 0; i < objects && i < values.length; i++) {
+            text.append(' ').append(event.fields[i]).append('=').append(values[i]);
+        }
+        if (slot.hasNumber) {
+            text.append(' ').append(event.fields[event.fields.length - 1]).append('=').append(slot.number);
+        }
+
+        LogRecord record = new LogRecord(event.level, text.toString());
+        record.setInstant(Instant.ofEpochMilli(slot.timestamp));
+        record.setLoggerName(EVENTS.getName());
+        record.setSourceClassName(null);  // Evita que se busque el llamante en la pila
+        record.setSourceMethodName(null);
+        EVENTS.log(record);
+    }
+
+    /**
+     * Espera a que el hilo de fondo publique los eventos ya registrados.
+     * @param timeoutMillis Tiempo máximo de espera
+     */
+    public static void flush(long timeoutMillis) {
+        long target = HEAD.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (tail < target && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    public static long getPending() {
+        return HEAD.get() - tail;
+    }
+}
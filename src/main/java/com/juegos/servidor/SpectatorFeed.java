@@ -0,0 +1,246 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retransmisión de una sala a sus espectadores.
+ *
+ * La sala sólo publica eventos públicos (disparos con su resultado, turnos,
+ * fin de partida...), nunca la posición de los barcos. Cada evento se codifica
+ * una vez y el mismo array de bytes se entrega a todos los espectadores.
+ *
+ * Publicar no bloquea a la sala: el reparto a las colas de los espectadores
+ * se hace en un hilo aparte, compartido por todas las salas, y la escritura en
+ * los sockets en un pool de entrega. Cada espectador tiene una cola acotada;
+ * si se llena porque no lee al ritmo de la partida se le deja de retransmitir
+ * la sala. Con retardo, cada evento se entrega cuando ha pasado ese tiempo
+ * desde que se jugó.
+ */
+public class SpectatorFeed {
+
+    private static final Charset CHARSET = Charset.defaultCharset();  // El mismo que usa el PrintWriter del cliente
+    private static final String LINE_END = System.lineSeparator();
+
+    /**
+     * Evento ya codificado, compartido por todos los espectadores.
+     */
+    private static final class Frame {
+        final String message;
+        final byte[] data;
+        final long time;
+        volatile byte[] prefixed;  // Con el prefijo de sala, para conexiones multiplexadas
+
+        Frame(String message, long time) {
+            this.message = message;
+            this.data = (message + LINE_END).getBytes(CHARSET);
+            this.time = time;
+        }
+
+        byte[] prefixed(String roomId) {
+            byte[] result = prefixed;
+            if (result == null) {
+                result = (roomId + ClientHandler.SESSION_SEPARATOR + message + LINE_END).getBytes(CHARSET);
+                prefixed = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Espectador con su cola de eventos pendientes. Sólo hay una tarea de entrega
+     * en marcha o programada por espectador.
+     */
+    private final class Spectator implements Runnable {
+        final ClientHandler handler;
+        final long delayMillis;
+        final ArrayBlockingQueue<Frame> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile String endReason;  // Motivo para dejar de retransmitirle, o null
+
+        Spectator(ClientHandler handler, long delayMillis) {
+            this.handler = handler;
+            this.delayMillis = delayMillis;
+            this.queue = new ArrayBlockingQueue<>(GameConstants.SPECTATOR_QUEUE_CAPACITY);
+        }
+
+        void offer(Frame frame) {
+            if (endReason == null && !queue.offer(frame)) {
+                end("LAGGING");
+            }
+            wake();
+        }
+
+        void end(String reason) {
+            endReason = reason;
+            spectators.remove(handler.getClientId());
+            spectatorCount = spectators.size();
+        }
+
+        void wake() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Escribe los eventos pendientes cuyo retardo ya se ha cumplido.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                if (endReason != null) {
+                    queue.clear();
+                    handler.sendRoomMessage(roomId, "SPECTATE_ENDED:" + roomId + ":" + endReason);
+                    return;  // No se vuelve a programar
+                }
+                Frame frame = queue.peek();
+                if (frame == null) {
+                    scheduled.set(false);
+                    // Un evento pudo llegar entre peek y set(false)
+                    if ((queue.isEmpty() && endReason == null) || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                long wait = frame.time + delayMillis - System.currentTimeMillis();
+                if (wait > 0) {
+                    try {
+                        delivery.schedule(this, wait, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        scheduled.set(false);
+                    }
+                    return;
+                }
+                queue.poll();
+                handler.sendEncoded(handler.isMultiplexed() ? frame.prefixed(roomId) : frame.data);
+            }
+        }
+    }
+
+    private final String roomId;
+    private final ExecutorService fanout;             // Un solo hilo: ordena publicaciones, altas y bajas
+    private final ScheduledExecutorService delivery;  // Escritura a los espectadores
+
+    // Sólo se modifican desde el hilo de reparto
+    private final List<Frame> frames;                 // Eventos públicos de la partida, para quien llegue tarde
+    private final Map<String, Spectator> spectators;
+    private volatile int spectatorCount;
+    private volatile boolean closed;
+
+    /**
+     * Constructor de la retransmisión.
+     * @param roomId ID de la sala
+     * @param fanout Ejecutor de un solo hilo para el reparto
+     * @param delivery Pool que escribe a los espectadores
+     */
+    public SpectatorFeed(String roomId, ExecutorService fanout, ScheduledExecutorService delivery) {
+        this.roomId = roomId;
+        this.fanout = fanout;
+        this.delivery = delivery;
+        this.frames = new ArrayList<>();
+        this.spectators = new HashMap<>();
+    }
+
+    /**
+     * Publica un evento público de la sala. No bloquea: sólo lo codifica y encarga el reparto.
+     * @param message Evento en el formato del protocolo
+     */
+    public void publish(String message) {
+        if (closed) {
+            return;
+        }
+        Frame frame = new Frame(message, System.currentTimeMillis());
+        submit(() -> {
+            frames.add(frame);
+            for (Spectator spectator : spectators.values().toArray(new Spectator[0])) {
+                spectator.offer(frame);
+            }
+        });
+    }
+
+    /**
+     * Da de alta un espectador. Recibe primero los eventos ya jugados, con el
+     * mismo retardo que los siguientes.
+     * @param handler Manejador del cliente
+     * @param delayMillis Retardo de la retransmisión
+     * @return false si la sala ya no admite espectadores
+     */
+    public boolean add(ClientHandler handler, long delayMillis) {
+        if (closed || spectatorCount >= GameConstants.MAX_SPECTATORS_PER_ROOM) {
+            return false;
+        }
+        String clientId = handler.getClientId();
+        return submit(() -> {
+            if (spectators.containsKey(clientId)) {
+                return;
+            }
+            Spectator spectator = new Spectator(handler, delayMillis);
+            spectators.put(clientId, spectator);
+            spectatorCount = spectators.size();
+            for (Frame frame : frames) {
+                spectator.offer(frame);
+            }
+            spectator.wake();
+        });
+    }
+
+    /**
+     * Da de baja un espectador.
+     * @param clientId ID del cliente
+     */
+    public void remove(String clientId) {
+        submit(() -> {
+            spectators.remove(clientId);
+            spectatorCount = spectators.size();
+        });
+    }
+
+    /**
+     * Termina la retransmisión: los espectadores reciben los eventos pendientes
+     * y después el aviso de fin.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        publish("SPECTATE_ENDED:" + roomId + ":CLOSED");
+        closed = true;
+        submit(() -> {
+            spectators.clear();
+            spectatorCount = 0;
+        });
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            fanout.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,115 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Torneo por sistema suizo: nadie queda eliminado y en cada ronda se enfrentan
+ * jugadores con los mismos puntos, evitando las revanchas.
+ *
+ * Se juegan log2(inscritos) rondas redondeado hacia arriba. Como el
+ * emparejamiento depende de la clasificación, cada ronda empieza cuando
+ * termina la última partida de la anterior. Con un número impar de jugadores
+ * el peor clasificado que aún no descansó queda exento y suma un punto.
+ */
+public class SwissTournament extends Tournament {
+
+    private static final int REMATCH_WINDOW = 64;  // Rivales revisados para evitar una revancha
+
+    private int rounds;
+    private int round = -1;
+    private int pending;  // Partidas sin terminar de la ronda en curso
+
+    SwissTournament(String id, String organizerId, RoomOptions options) {
+        super(id, organizerId, options);
+    }
+
+    @Override
+    protected List<Match> firstRound() {
+        rounds = Math.max(1, 32 - Integer.numberOfLeadingZeros(entrants.size() - 1));
+        return nextRound();
+    }
+
+    @Override
+    protected List<Match> advance(Match match) {
+        if (--pending > 0) {
+            return Collections.emptyList();
+        }
+        if (round + 1 >= rounds) {
+            conclude(ranking().get(0));
+            return Collections.emptyList();
+        }
+        return nextRound();
+    }
+
+    /**
+     * Empareja la ronda siguiente por orden de clasificación: cada jugador con el
+     * siguiente libre contra el que no haya jugado, o con el siguiente libre si
+     * no hay ninguno cerca.
+     */
+    private List<Match> nextRound() {
+        round++;
+        List<Integer> order = ranking();
+        int bye = BYE;
+        if (order.size() % 2 == 1) {
+            int last = order.size() - 1;
+            for (int i = last; i >= 0; i--) {
+                if (!hadBye(order.get(i))) {
+                    last = i;
+                    break;
+                }
+            }
+            bye = order.remove(last);
+        }
+
+        List<Match> matches = new ArrayList<>(order.size() / 2 + 1);
+        boolean[] used = new boolean[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            if (used[i]) {
+                continue;
+            }
+            used[i] = true;
+            int choice = -1;
+            for (int j = i + 1; j < order.size(); j++) {
+                if (used[j]) {
+                    continue;
+                }
+                if (choice < 0) {
+                    choice = j;
+                }
+                if (!played(order.get(i), order.get(j))) {
+                    choice = j;
+                    break;
+                }
+                if (j - i >= REMATCH_WINDOW) {
+                    break;
+                }
+            }
+            used[choice] = true;
+            matches.add(pair(round, matches.size(), order.get(i), order.get(choice)));
+        }
+        if (bye != BYE) {
+            matches.add(pair(round, matches.size(), bye, BYE));
+        }
+
+        pending = matches.size();
+        List<Match> ready = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            schedule(match, ready);
+        }
+        return ready;
+    }
+
+    @Override
+    public int getRounds() {
+        return rounds;
+    }
+
+    @Override
+    public String getFormat() {
+        return GameConstants.TOURNAMENT_SWISS;
+    }
+}
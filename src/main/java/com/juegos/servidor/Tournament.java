@@ -0,0 +1,333 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Torneo de Batalla Naval: lista de inscritos y cuadro de emparejamientos.
+ *
+ * Sólo lleva la lógica del cuadro; crear las salas y avisar a los jugadores es
+ * cosa de {@link TournamentManager}. {@link #start()} y {@link #finish(Match, int)}
+ * devuelven las partidas que ya se pueden jugar, incluidas las exenciones (que
+ * llegan resueltas). Los inscritos se identifican por su posición en la lista.
+ *
+ * No es seguro entre hilos: lo usa el gestor dentro de su propio bloqueo.
+ */
+public abstract class Tournament {
+
+    /** Rival de una partida exenta. */
+    public static final int BYE = -1;
+
+    /**
+     * Jugador inscrito.
+     */
+    public static final class Entrant {
+        private final String clientId;
+        private final String name;
+        private final double rating;
+        private final Set<Integer> opponents;  // Inscritos contra los que ya jugó
+        private int seed;                      // 0 = cabeza de serie
+        private double points;
+        private boolean hadBye;
+
+        Entrant(String clientId, String name, double rating) {
+            this.clientId = clientId;
+            this.name = name;
+            this.rating = rating;
+            this.opponents = new HashSet<>();
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        public int getSeed() {
+            return seed;
+        }
+
+        public double getPoints() {
+            return points;
+        }
+    }
+
+    /**
+     * Partida del cuadro entre dos inscritos.
+     */
+    public static final class Match {
+        private final int round;
+        private final int index;   // Posición dentro de la ronda
+        int first = BYE;           // Inscrito con mejor cabeza de serie
+        int second = BYE;
+        private int winner = BYE;
+        private boolean finished;
+        private String roomId;
+
+        Match(int round, int index) {
+            this.round = round;
+            this.index = index;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getFirst() {
+            return first;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        public int getWinner() {
+            return winner;
+        }
+
+        public boolean isBye() {
+            return second == BYE;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public void setRoomId(String roomId) {
+            this.roomId = roomId;
+        }
+    }
+
+    private final String id;
+    private final String organizerId;
+    private final RoomOptions options;
+    protected final List<Entrant> entrants;
+    private final Map<String, Integer> byClient;  // ID del cliente → inscrito
+    private boolean started;
+    private Entrant winner;
+
+    /**
+     * Constructor del torneo.
+     * @param id ID del torneo
+     * @param organizerId Cliente que lo creó y puede empezarlo
+     * @param options Opciones de las salas del torneo
+     */
+    protected Tournament(String id, String organizerId, RoomOptions options) {
+        this.id = id;
+        this.organizerId = organizerId;
+        this.options = options;
+        this.entrants = new ArrayList<>();
+        this.byClient = new HashMap<>();
+    }
+
+    /**
+     * Crea un torneo del formato indicado.
+     * @param format {@link GameConstants#TOURNAMENT_ELIMINATION} o {@link GameConstants#TOURNAMENT_SWISS}
+     * @param id ID del torneo
+     * @param organizerId Cliente que lo crea
+     * @param options Opciones de las salas del torneo
+     * @return Torneo o null si el formato no existe
+     */
+    public static Tournament create(String format, String id, String organizerId, RoomOptions options) {
+        if (GameConstants.TOURNAMENT_ELIMINATION.equalsIgnoreCase(format)) {
+            return new EliminationTournament(id, organizerId, options);
+        }
+        if (GameConstants.TOURNAMENT_SWISS.equalsIgnoreCase(format)) {
+            return new SwissTournament(id, organizerId, options);
+        }
+        return null;
+    }
+
+    /**
+     * Inscribe a un jugador antes de que empiece el torneo.
+     * @param clientId ID del cliente
+     * @param name Nombre del jugador
+     * @param rating Puntuación del jugador, para ordenar las cabezas de serie
+     * @return false si ya empezó, está lleno o el jugador ya estaba inscrito
+     */
+    public boolean register(String clientId, String name, double rating) {
+        if (started || entrants.size() >= GameConstants.TOURNAMENT_MAX_ENTRANTS || byClient.containsKey(clientId)) {
+            return false;
+        }
+        byClient.put(clientId, entrants.size());
+        entrants.add(new Entrant(clientId, name, rating));
+        return true;
+    }
+
+    /**
+     * Cierra la inscripción, ordena las cabezas de serie por puntuación y arma la primera ronda.
+     * @return Partidas de la primera ronda
+     */
+    public List<Match> start() {
+        started = true;
+        List<Entrant> bySeed = new ArrayList<>(entrants);
+        Collections.sort(bySeed, Comparator.comparingDouble(Entrant::getRating).reversed());
+        for (int seed = 0; seed < bySeed.size(); seed++) {
+            bySeed.get(seed).seed = seed;
+        }
+        return firstRound();
+    }
+
+    /**
+     * Arma la primera ronda del cuadro.
+     * @return Partidas listas para jugarse
+     */
+    protected abstract List<Match> firstRound();
+
+    /**
+     * Anota el resultado de una partida.
+     * @param match Partida terminada
+     * @param winner Inscrito ganador, o {@link #BYE} si hubo empate
+     * @return Partidas que quedan listas por este resultado
+     */
+    public List<Match> finish(Match match, int winner) {
+        if (match.finished) {
+            return Collections.emptyList();
+        }
+        match.finished = true;
+        match.winner = winner;
+        if (!match.isBye()) {
+            entrants.get(match.first).opponents.add(match.second);
+            entrants.get(match.second).opponents.add(match.first);
+        }
+        if (winner == BYE) {
+            entrants.get(match.first).points += 0.5;
+            entrants.get(match.second).points += 0.5;
+        } else {
+            entrants.get(winner).points += 1;
+        }
+        return advance(match);
+    }
+
+    /**
+     * Hace avanzar el cuadro tras una partida terminada.
+     * @param match Partida terminada
+     * @return Partidas que quedan listas
+     */
+    protected abstract List<Match> advance(Match match);
+
+    /**
+     * Crea una partida entre dos inscritos; con {@link #BYE} como segundo es una exención.
+     */
+    protected Match pair(int round, int index, int first, int second) {
+        Match match = new Match(round, index);
+        match.first = first;
+        match.second = second;
+        return match;
+    }
+
+    /**
+     * Añade una partida a las listas para jugarse; las exenciones se resuelven y
+     * se añaden también las partidas que dejen listas.
+     */
+    protected void schedule(Match match, List<Match> ready) {
+        ready.add(match);
+        if (match.isBye()) {
+            entrants.get(match.first).hadBye = true;
+            ready.addAll(finish(match, match.first));
+        }
+    }
+
+    /**
+     * Ordena a los inscritos por puntos y, a igualdad, por cabeza de serie.
+     * @return Posiciones de los inscritos de primero a último
+     */
+    protected List<Integer> ranking() {
+        List<Integer> order = new ArrayList<>(entrants.size());
+        for (int i = 0; i < entrants.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> {
+            int byPoints = Double.compare(entrants.get(b).points, entrants.get(a).points);
+            return byPoints != 0 ? byPoints : Integer.compare(entrants.get(a).seed, entrants.get(b).seed);
+        });
+        return order;
+    }
+
+    protected boolean hadBye(int entrant) {
+        return entrants.get(entrant).hadBye;
+    }
+
+    protected boolean played(int entrant, int opponent) {
+        return entrants.get(entrant).opponents.contains(opponent);
+    }
+
+    /**
+     * Da el torneo por terminado.
+     * @param champion Inscrito ganador
+     */
+    protected void conclude(int champion) {
+        winner = entrants.get(champion);
+    }
+
+    /**
+     * Obtiene el inscrito de un cliente.
+     * @param clientId ID del cliente
+     * @return Posición del inscrito o {@link #BYE} si no está inscrito
+     */
+    public int entrantOf(String clientId) {
+        return byClient.getOrDefault(clientId, BYE);
+    }
+
+    public Entrant getEntrant(int entrant) {
+        return entrants.get(entrant);
+    }
+
+    public List<Entrant> getEntrants() {
+        return Collections.unmodifiableList(entrants);
+    }
+
+    /**
+     * Número de rondas del torneo.
+     * @return Rondas, conocidas al empezar
+     */
+    public abstract int getRounds();
+
+    public abstract String getFormat();
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOrganizerId() {
+        return organizerId;
+    }
+
+    public RoomOptions getOptions() {
+        return options;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isFinished() {
+        return winner != null;
+    }
+
+    public Entrant getWinner() {
+        return winner;
+    }
+}
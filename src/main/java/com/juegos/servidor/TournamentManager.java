@@ -0,0 +1,255 @@
+package com.juegos.servidor;
+
+import com.juegos.common.GameConstants;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Gestor de los torneos del servidor: inscripciones, salas de cada ronda y
+ * resultados.
+ *
+ * Las partidas de una ronda se crean todas a la vez. Cada sala de torneo se
+ * apunta en un índice sala → partida, así que el aviso de fin de una sala
+ * ({@link GameRoom#setOnFinished}) encuentra su partida sin recorrer las salas
+ * del servidor. El resultado se procesa en un hilo propio, fuera del bloqueo
+ * de la sala, y las partidas que deja listas se crean en el momento.
+ */
+public class TournamentManager {
+
+    private static final Logger LOGGER = Logger.getLogger(TournamentManager.class.getName());
+
+    /**
+     * Partida de torneo que se juega en una sala.
+     */
+    private static final class Entry {
+        final Tournament tournament;
+        final Tournament.Match match;
+
+        Entry(Tournament tournament, Tournament.Match match) {
+            this.tournament = tournament;
+            this.match = match;
+        }
+    }
+
+    private final GameServer server;
+    private final Map<String, Tournament> tournaments;  // ID del torneo → torneo
+    private final Map<String, Entry> roomIndex;         // ID de la sala → partida de torneo
+    private final ExecutorService results;
+    private int nextTournamentId = 1;
+
+    /**
+     * Constructor del gestor.
+     * @param server Servidor en el que se crean las salas
+     */
+    public TournamentManager(GameServer server) {
+        this.server = server;
+        this.tournaments = new HashMap<>();
+        this.roomIndex = new ConcurrentHashMap<>();
+        this.results = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tournament-results");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Detiene el gestor y descarta los torneos en curso.
+     */
+    public synchronized void stop() {
+        results.shutdownNow();
+        tournaments.clear();
+        roomIndex.clear();
+    }
+
+    /**
+     * Crea un torneo abierto a inscripciones.
+     * @param organizer Cliente que lo crea y podrá empezarlo
+     * @param format Formato del torneo
+     * @param options Opciones de las salas del torneo
+     * @return ID del torneo o null si el formato no existe
+     */
+    public synchronized String create(ClientHandler organizer, String format, RoomOptions options) {
+        String id = "TOURNAMENT_" + nextTournamentId;
+        Tournament tournament = Tournament.create(format, id, organizer.getClientId(), options);
+        if (tournament == null) {
+            return null;
+        }
+        nextTournamentId++;
+        tournaments.put(id, tournament);
+        return id;
+    }
+
+    /**
+     * Inscribe a un cliente en un torneo.
+     * @param client Manejador del cliente
+     * @param tournamentId ID del torneo
+     * @return Inscritos tras la inscripción, o -1 si no se pudo inscribir
+     */
+    public synchronized int join(ClientHandler client, String tournamentId) {
+        Tournament tournament = tournaments.get(tournamentId);
+        if (tournament == null || !tournament.register(client.getClientId(), client.getPlayer().getName(),
+                                                       client.getPlayer().getRating())) {
+            return -1;
+        }
+        return tournament.getEntrants().size();
+    }
+
+    /**
+     * Cierra la inscripción de un torneo y crea las salas de su primera ronda.
+     * @param client Cliente que lo pide (sólo el organizador puede)
+     * @param tournamentId ID del torneo
+     * @return Motivo del rechazo o null si empezó
+     */
+    public synchronized String start(ClientHandler client, String tournamentId) {
+        Tournament tournament = tournaments.get(tournamentId);
+        if (tournament == null) {
+            return "No existe el torneo " + tournamentId;
+        }
+        if (!tournament.getOrganizerId().equals(client.getClientId())) {
+            return "Sólo el organizador puede empezar el torneo";
+        }
+        if (tournament.isStarted()) {
+            return "El torneo ya empezó";
+        }
+        if (tournament.getEntrants().size() < GameConstants.TOURNAMENT_MIN_ENTRANTS) {
+            return "Hacen falta al menos " + GameConstants.TOURNAMENT_MIN_ENTRANTS + " inscritos";
+        }
+
+        List<Tournament.Match> first = tournament.start();
+        String started = "TOURNAMENT_STARTED:" + tournamentId + ":" + tournament.getFormat() + ":" +
+                         tournament.getEntrants().size() + ":" + tournament.getRounds();
+        for (Tournament.Entrant entrant : tournament.getEntrants()) {
+            send(entrant, started);
+        }
+        launch(tournament, first);
+        return null;
+    }
+
+    /**
+     * Recibe una sala terminada. Si es de un torneo, su resultado se procesa en
+     * el hilo del gestor; si no, se ignora sin coste.
+     * @param room Sala terminada (bloqueada por quien llama)
+     */
+    public void onRoomFinished(GameRoom room) {
+        if (roomIndex.containsKey(room.getRoomId())) {
+            results.execute(() -> recordResult(room));
+        }
+    }
+
+    /**
+     * Anota el resultado de una sala de torneo, la libera y crea las partidas que queden listas.
+     */
+    private synchronized void recordResult(GameRoom room) {
+        Entry entry = roomIndex.remove(room.getRoomId());
+        if (entry == null) {
+            return;
+        }
+        Tournament tournament = entry.tournament;
+        Tournament.Match match = entry.match;
+        try {
+            int winner = winnerOf(tournament, match, room);
+            server.releaseRoom(room);
+            List<Tournament.Match> ready = tournament.finish(match, winner);
+            notifyResult(tournament, match, winner);
+            launch(tournament, ready);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error procesando la partida de torneo de " + room.getRoomId(), e);
+        }
+    }
+
+    /**
+     * Deduce el inscrito ganador de una sala: quien ganó o quien se quedó si el
+     * otro abandonó. Devuelve {@link Tournament#BYE} si hubo empate.
+     */
+    private int winnerOf(Tournament tournament, Tournament.Match match, GameRoom room) {
+        String winnerId = null;
+        if (room.getAbandonedBy() != null) {
+            String leaver = room.getAbandonedBy().getClientId();
+            winnerId = tournament.getEntrant(match.getFirst()).getClientId().equals(leaver)
+                     ? tournament.getEntrant(match.getSecond()).getClientId()
+                     : tournament.getEntrant(match.getFirst()).getClientId();
+        } else if (room.getResult() != null && room.getResult().startsWith(GameConstants.RESULT_WIN + ":")) {
+            winnerId = room.getResult().substring(4);
+        }
+        if (winnerId == null) {
+            return Tournament.BYE;
+        }
+        return tournament.getEntrant(match.getSecond()).getClientId().equals(winnerId) ? match.getSecond()
+                                                                                        : match.getFirst();
+    }
+
+    /**
+     * Crea las salas de las partidas listas. Las exenciones sólo se avisan y, si
+     * falta alguno de los dos jugadores, la partida se da por ganada al presente.
+     */
+    private void launch(Tournament tournament, List<Tournament.Match> matches) {
+        Deque<Tournament.Match> pending = new ArrayDeque<>(matches);
+        while (!pending.isEmpty()) {
+            Tournament.Match match = pending.poll();
+            Tournament.Entrant first = tournament.getEntrant(match.getFirst());
+            if (match.isBye()) {
+                send(first, "TOURNAMENT_BYE:" + tournament.getId() + ":" + (match.getRound() + 1));
+                continue;
+            }
+            Tournament.Entrant second = tournament.getEntrant(match.getSecond());
+            ClientHandler firstClient = server.getClient(first.getClientId());
+            ClientHandler secondClient = server.getClient(second.getClientId());
+
+            GameRoom room = null;
+            if (firstClient != null && secondClient != null) {
+                send(first, "TOURNAMENT_MATCH:" + tournament.getId() + ":" + (match.getRound() + 1) + ":" + second.getName());
+                send(second, "TOURNAMENT_MATCH:" + tournament.getId() + ":" + (match.getRound() + 1) + ":" + first.getName());
+                room = server.startRoom(firstClient, secondClient, GameConstants.GAME_BATTLESHIP,
+                                        GameConstants.MODE_VS_HUMAN, tournament.getOptions());
+            }
+            if (room == null) {
+                int winner = firstClient != null || secondClient == null ? match.getFirst() : match.getSecond();
+                pending.addAll(tournament.finish(match, winner));
+                notifyResult(tournament, match, winner);
+                continue;
+            }
+            match.setRoomId(room.getRoomId());
+            roomIndex.put(room.getRoomId(), new Entry(tournament, match));
+        }
+
+        if (tournament.isFinished()) {
+            String ended = "TOURNAMENT_ENDED:" + tournament.getId() + ":" + tournament.getWinner().getName();
+            for (Tournament.Entrant entrant : tournament.getEntrants()) {
+                send(entrant, ended);
+            }
+            tournaments.remove(tournament.getId());
+        }
+    }
+
+    private void notifyResult(Tournament tournament, Tournament.Match match, int winner) {
+        String prefix = "TOURNAMENT_RESULT:" + tournament.getId() + ":" + (match.getRound() + 1) + ":";
+        for (int entrant : new int[] {match.getFirst(), match.getSecond()}) {
+            String outcome = winner == Tournament.BYE ? GameConstants.RESULT_DRAW : winner == entrant ? "WIN" : "LOSS";
+            send(tournament.getEntrant(entrant), prefix + outcome + ":" + tournament.getEntrant(entrant).getPoints());
+        }
+    }
+
+    private void send(Tournament.Entrant entrant, String message) {
+        ClientHandler client = server.getClient(entrant.getClientId());
+        if (client != null) {
+            client.sendMessage(message);
+        }
+    }
+
+    public synchronized int getActiveTournaments() {
+        return tournaments.size();
+    }
+
+    public int getActiveRooms() {
+        return roomIndex.size();
+    }
+}
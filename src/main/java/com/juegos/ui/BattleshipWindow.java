@@ -4,7 +4,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Ventana del juego Battleship con interfaz Swing
@@ -24,10 +25,19 @@ public class BattleshipWindow extends JFrame {
     private int enemyHitCount;
     private int playerMissCount;
     
+    private final long seed;                 // Semilla de la ventana, para reproducir partidas
+    private final SplittableRandom random;   // Generador único de la ventana
+    
     private static final int BOARD_SIZE = 8;
     private static final int SHIPS_TO_SINK = 10;
     
     public BattleshipWindow() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+    
+    public BattleshipWindow(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
         this.isPlayerTurn = true;
         this.playerHitCount = 0;
         this.enemyHitCount = 0;
@@ -47,8 +57,6 @@ public class BattleshipWindow extends JFrame {
     }
     
     private void placeShipsRandomly() {
-        Random random = new Random();
-        
         // Colocar barcos del jugador
         int playerShipsPlaced = 0;
         while (playerShipsPlaced < SHIPS_TO_SINK) {
@@ -288,7 +296,6 @@ public class BattleshipWindow extends JFrame {
     }
     
     private void enemyAttack() {
-        Random random = new Random();
         int row, col;
         
         // Buscar una posición no atacada
@@ -326,6 +333,10 @@ public class BattleshipWindow extends JFrame {
         isPlayerTurn = true;
     }
     
+    public long getSeed() {
+        return seed;
+    }
+    
     private void updateLabels() {
         hitsLabel.setText("Aciertos: " + playerHitCount + "/" + SHIPS_TO_SINK);
         missesLabel.setText("Fallos: " + playerMissCount);